@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import com.google.android.ground.persistence.remote.firebase.schema.GeometryConverter
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+@RunWith(Parameterized::class)
+class GeometryConverterBenchmark(vertexCount: Int) {
+  @get:Rule val benchmarkRule = BenchmarkRule()
+
+  private val polygon = SyntheticData.polygon(vertexCount)
+  private val multiPolygon = SyntheticData.multiPolygon(vertexCount)
+  private val polygonMap = GeometryConverter.toFirestoreMap(polygon).getOrThrow()
+  private val multiPolygonMap = GeometryConverter.toFirestoreMap(multiPolygon).getOrThrow()
+
+  @Test
+  fun toFirestoreMap_polygon() {
+    benchmarkRule.measureRepeated { GeometryConverter.toFirestoreMap(polygon).getOrThrow() }
+  }
+
+  @Test
+  fun toFirestoreMap_multiPolygon() {
+    benchmarkRule.measureRepeated { GeometryConverter.toFirestoreMap(multiPolygon).getOrThrow() }
+  }
+
+  @Test
+  fun fromFirestoreMap_polygon() {
+    benchmarkRule.measureRepeated { GeometryConverter.fromFirestoreMap(polygonMap).getOrThrow() }
+  }
+
+  @Test
+  fun fromFirestoreMap_multiPolygon() {
+    benchmarkRule.measureRepeated {
+      GeometryConverter.fromFirestoreMap(multiPolygonMap).getOrThrow()
+    }
+  }
+
+  companion object {
+    @JvmStatic
+    @Parameterized.Parameters(name = "vertices={0}")
+    fun vertexCounts() = SyntheticData.VERTEX_COUNTS
+  }
+}
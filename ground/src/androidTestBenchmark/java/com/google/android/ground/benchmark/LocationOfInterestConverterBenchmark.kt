@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.converter.toModelObject
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/** Benchmarks mapping between LOI entities and model objects. */
+@RunWith(Parameterized::class)
+class LocationOfInterestConverterBenchmark(vertexCount: Int) {
+  @get:Rule val benchmarkRule = BenchmarkRule()
+
+  private val survey = SyntheticData.survey(jobCount = 1, tasksPerJob = 10)
+  private val loi = SyntheticData.locationOfInterest(survey, vertexCount)
+  private val loiEntity = loi.toLocalDataStoreObject()
+
+  @Test
+  fun toLocalDataStoreObject() {
+    benchmarkRule.measureRepeated { loi.toLocalDataStoreObject() }
+  }
+
+  @Test
+  fun toModelObject() {
+    benchmarkRule.measureRepeated { loiEntity.toModelObject(survey) }
+  }
+
+  companion object {
+    @JvmStatic
+    @Parameterized.Parameters(name = "vertices={0}")
+    fun vertexCounts() = SyntheticData.VERTEX_COUNTS
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.persistence.mbtiles.MbtilesFootprintParser
+import com.google.android.ground.persistence.uuid.OfflineUuidGenerator
+import com.google.android.ground.ui.map.Bounds
+import java.io.File
+import java.util.UUID
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+@RunWith(Parameterized::class)
+class MbtilesFootprintParserBenchmark(private val tileCount: Int) {
+  @get:Rule val benchmarkRule = BenchmarkRule()
+
+  private val parser =
+    MbtilesFootprintParser(
+      object : OfflineUuidGenerator {
+        override fun generateUuid(): String = UUID.randomUUID().toString()
+      }
+    )
+  private lateinit var file: File
+
+  @Before
+  fun setUp() {
+    file = File.createTempFile("footprints", ".geojson")
+    SyntheticData.writeFootprints(file, tileCount)
+  }
+
+  @After
+  fun tearDown() {
+    file.delete()
+  }
+
+  @Test
+  fun allTiles() {
+    benchmarkRule.measureRepeated { parser.allTiles(file).blockingGet() }
+  }
+
+  @Test
+  fun intersectingTiles() {
+    benchmarkRule.measureRepeated { parser.intersectingTiles(BOUNDS, file).blockingGet() }
+  }
+
+  companion object {
+    /** A small area near the center of the generated footprint grid. */
+    private val BOUNDS = Bounds(Coordinate(-1.5, -1.5), Coordinate(1.5, 1.5))
+
+    @JvmStatic
+    @Parameterized.Parameters(name = "tiles={0}")
+    fun tileCounts() = listOf(100, 10_000)
+  }
+}
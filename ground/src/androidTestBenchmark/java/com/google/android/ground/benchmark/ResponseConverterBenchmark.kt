@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import com.google.android.ground.persistence.local.room.converter.ResponseDeltasConverter
+import com.google.android.ground.persistence.local.room.converter.ResponseMapConverter
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/** Benchmarks encoding and decoding of submission responses with one response per task. */
+@RunWith(Parameterized::class)
+class ResponseConverterBenchmark(taskCount: Int) {
+  @get:Rule val benchmarkRule = BenchmarkRule()
+
+  private val job = SyntheticData.job("job", taskCount)
+  private val taskDataMap = SyntheticData.taskDataMap(job)
+  private val taskDataDeltas = SyntheticData.taskDataDeltas(job)
+  private val responseBytes = ResponseMapConverter.toByteArray(taskDataMap)
+  private val deltaBytes = ResponseDeltasConverter.toByteArray(taskDataDeltas)
+
+  @Test
+  fun responseMap_toByteArray() {
+    benchmarkRule.measureRepeated { ResponseMapConverter.toByteArray(taskDataMap) }
+  }
+
+  @Test
+  fun responseMap_fromByteArray() {
+    benchmarkRule.measureRepeated { ResponseMapConverter.fromByteArray(job, responseBytes) }
+  }
+
+  @Test
+  fun responseMap_applyDeltas() {
+    benchmarkRule.measureRepeated {
+      ResponseMapConverter.applyDeltas(job, responseBytes, listOf(deltaBytes))
+    }
+  }
+
+  @Test
+  fun responseDeltas_toByteArray() {
+    benchmarkRule.measureRepeated { ResponseDeltasConverter.toByteArray(taskDataDeltas) }
+  }
+
+  @Test
+  fun responseDeltas_fromByteArray() {
+    benchmarkRule.measureRepeated { ResponseDeltasConverter.fromByteArray(job, deltaBytes) }
+  }
+
+  companion object {
+    @JvmStatic
+    @Parameterized.Parameters(name = "tasks={0}")
+    fun taskCounts() = listOf(10, 100)
+  }
+}
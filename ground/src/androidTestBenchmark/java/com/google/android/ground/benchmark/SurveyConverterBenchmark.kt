@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import com.google.android.ground.model.Survey
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.converter.toModelObject
+import com.google.android.ground.persistence.local.room.relations.JobEntityAndRelations
+import com.google.android.ground.persistence.local.room.relations.SurveyEntityAndRelations
+import com.google.android.ground.persistence.local.room.relations.TaskEntityAndRelations
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Benchmarks mapping between survey and submission entities and model objects, for surveys of 10
+ * jobs with the specified number of tasks each.
+ */
+@RunWith(Parameterized::class)
+class SurveyConverterBenchmark(tasksPerJob: Int) {
+  @get:Rule val benchmarkRule = BenchmarkRule()
+
+  private val survey = SyntheticData.survey(jobCount = 10, tasksPerJob = tasksPerJob)
+  private val surveyEntityAndRelations = toEntityAndRelations(survey)
+  private val loi = SyntheticData.locationOfInterest(survey, vertexCount = 10)
+  private val submission = SyntheticData.submission(loi)
+  private val submissionEntity = submission.toLocalDataStoreObject()
+
+  @Test
+  fun survey_toModelObject() {
+    benchmarkRule.measureRepeated { surveyEntityAndRelations.toModelObject() }
+  }
+
+  @Test
+  fun submission_toLocalDataStoreObject() {
+    benchmarkRule.measureRepeated { submission.toLocalDataStoreObject() }
+  }
+
+  @Test
+  fun submission_toModelObject() {
+    benchmarkRule.measureRepeated { submissionEntity.toModelObject(loi) }
+  }
+
+  companion object {
+    @JvmStatic
+    @Parameterized.Parameters(name = "tasks={0}")
+    fun taskCounts() = listOf(10, 100)
+
+    /** Returns the entities from which [survey] is assembled when read from the local db. */
+    private fun toEntityAndRelations(survey: Survey) =
+      SurveyEntityAndRelations(
+        survey.toLocalDataStoreObject(),
+        survey.jobs.map { job ->
+          JobEntityAndRelations(
+            job.toLocalDataStoreObject(survey.id),
+            job.tasks.values.map { task ->
+              TaskEntityAndRelations(
+                task.toLocalDataStoreObject(job.id),
+                listOfNotNull(task.multipleChoice?.toLocalDataStoreObject(task.id)),
+                task.multipleChoice?.options?.map { it.toLocalDataStoreObject(task.id) }
+                  ?: listOf()
+              )
+            }
+          )
+        },
+        listOf()
+      )
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.benchmark
+
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.Survey
+import com.google.android.ground.model.User
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.LinearRing
+import com.google.android.ground.model.geometry.MultiPolygon
+import com.google.android.ground.model.geometry.Polygon
+import com.google.android.ground.model.job.Job
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.submission.DateTaskData
+import com.google.android.ground.model.submission.MultipleChoiceTaskData
+import com.google.android.ground.model.submission.NumberTaskData
+import com.google.android.ground.model.submission.Submission
+import com.google.android.ground.model.submission.TaskData
+import com.google.android.ground.model.submission.TaskDataDelta
+import com.google.android.ground.model.submission.TaskDataMap
+import com.google.android.ground.model.submission.TextTaskData
+import com.google.android.ground.model.task.MultipleChoice
+import com.google.android.ground.model.task.Option
+import com.google.android.ground.model.task.Task
+import java.io.File
+import java.util.Date
+import java8.util.Optional
+import kotlin.math.PI
+import kotlin.math.ceil
+import kotlin.math.cos
+import kotlin.math.sin
+import kotlin.math.sqrt
+import kotlinx.collections.immutable.toPersistentList
+
+/**
+ * Generates realistic synthetic inputs for benchmarks. Output is deterministic, so that results are
+ * comparable across runs.
+ */
+object SyntheticData {
+  /** Geometry sizes benchmarked, from a simple field boundary to a detailed administrative area. */
+  val VERTEX_COUNTS = listOf(10, 1_000, 100_000)
+
+  val USER = User("user_id", "user@gmail.com", "User")
+
+  private val AUDIT_INFO = AuditInfo(USER, Date(0))
+
+  /** Task types cycled through in generated jobs. */
+  private val TASK_TYPES =
+    listOf(Task.Type.TEXT, Task.Type.NUMBER, Task.Type.MULTIPLE_CHOICE, Task.Type.DATE)
+
+  /**
+   * Returns a closed ring of [vertexCount] vertices, including the closing vertex, approximating a
+   * circle around [center].
+   */
+  fun linearRing(
+    vertexCount: Int,
+    center: Coordinate = Coordinate(0.0, 0.0),
+    radius: Double = 0.01
+  ): LinearRing {
+    require(vertexCount >= 4) { "A linear ring has at least 4 vertices" }
+    val coordinates =
+      (0 until vertexCount - 1).map {
+        val angle = 2 * PI * it / (vertexCount - 1)
+        Coordinate(center.lat + radius * sin(angle), center.lng + radius * cos(angle))
+      }
+    return LinearRing(coordinates + coordinates.first())
+  }
+
+  /** Returns a polygon with a total of [vertexCount] vertices across its shell and one hole. */
+  fun polygon(vertexCount: Int, center: Coordinate = Coordinate(0.0, 0.0)): Polygon {
+    val holeVertexCount = maxOf(4, vertexCount / 10)
+    return Polygon(
+      linearRing(maxOf(4, vertexCount - holeVertexCount), center, radius = 0.01),
+      listOf(linearRing(holeVertexCount, center, radius = 0.005))
+    )
+  }
+
+  /** Returns a multi-polygon of [polygonCount] polygons with a total of [vertexCount] vertices. */
+  fun multiPolygon(vertexCount: Int, polygonCount: Int = 10): MultiPolygon =
+    MultiPolygon(
+      (0 until polygonCount).map { polygon(vertexCount / polygonCount, Coordinate(0.0, it * 0.1)) }
+    )
+
+  /** Returns a job with [taskCount] tasks of mixed types. */
+  fun job(id: String, taskCount: Int, optionsPerTask: Int = 10): Job =
+    Job(
+      id = id,
+      name = "Job $id",
+      tasks =
+        (0 until taskCount)
+          .map { task("$id-task-$it", it, TASK_TYPES[it % TASK_TYPES.size], optionsPerTask) }
+          .associateBy { it.id }
+    )
+
+  private fun task(id: String, index: Int, type: Task.Type, optionCount: Int): Task =
+    Task(
+      id,
+      index,
+      type,
+      "Task $id",
+      isRequired = index % 2 == 0,
+      multipleChoice =
+        if (type == Task.Type.MULTIPLE_CHOICE) {
+          MultipleChoice(
+            (0 until optionCount)
+              .map { Option("$id-option-$it", "CODE$it", "Option $it") }
+              .toPersistentList(),
+            MultipleChoice.Cardinality.SELECT_MULTIPLE
+          )
+        } else {
+          null
+        }
+    )
+
+  /** Returns a survey with [jobCount] jobs of [tasksPerJob] tasks each. */
+  fun survey(jobCount: Int, tasksPerJob: Int): Survey =
+    Survey(
+      "survey",
+      "Synthetic survey",
+      "Survey with $jobCount jobs of $tasksPerJob tasks",
+      (0 until jobCount).map { job("job-$it", tasksPerJob) }.associateBy { it.id },
+      listOf(),
+      mapOf(USER.email to "data-collector")
+    )
+
+  /** Returns an LOI in the first job of [survey] whose polygon has [vertexCount] vertices. */
+  fun locationOfInterest(survey: Survey, vertexCount: Int): LocationOfInterest =
+    LocationOfInterest(
+      id = "loi",
+      surveyId = survey.id,
+      job = survey.jobs.first(),
+      caption = "Synthetic LOI",
+      created = AUDIT_INFO,
+      lastModified = AUDIT_INFO,
+      geometry = polygon(vertexCount)
+    )
+
+  /** Returns a submission of [loi] with a response to every task in its job. */
+  fun submission(loi: LocationOfInterest): Submission =
+    Submission(
+      id = "submission",
+      surveyId = loi.surveyId,
+      locationOfInterest = loi,
+      job = loi.job,
+      created = AUDIT_INFO,
+      lastModified = AUDIT_INFO,
+      responses = taskDataMap(loi.job)
+    )
+
+  /** Returns responses to every task in [job]. */
+  fun taskDataMap(job: Job): TaskDataMap =
+    TaskDataMap(job.tasks.values.associate { it.id to taskData(it).orElse(null) })
+
+  /** Returns a delta setting a new response for each task in [job]. */
+  fun taskDataDeltas(job: Job): List<TaskDataDelta> =
+    job.tasks.values.map { TaskDataDelta(it.id, it.type, taskData(it)) }
+
+  private fun taskData(task: Task): Optional<TaskData> =
+    when (task.type) {
+      Task.Type.NUMBER -> NumberTaskData.fromNumber("${task.index}.5")
+      Task.Type.MULTIPLE_CHOICE ->
+        MultipleChoiceTaskData.fromList(
+          task.multipleChoice,
+          task.multipleChoice!!.options.take(3).map { it.id }
+        )
+      Task.Type.DATE -> DateTaskData.fromDate(Date(task.index * 86_400_000L))
+      else -> TextTaskData.fromString("Response to ${task.label}")
+    }
+
+  /** Writes GeoJSON footprints of a grid of [tileCount] one-degree square tiles to [file]. */
+  fun writeFootprints(file: File, tileCount: Int) {
+    val gridSize = ceil(sqrt(tileCount.toDouble())).toInt()
+    file.bufferedWriter().use { writer ->
+      writer.write("{\"type\":\"FeatureCollection\",\"features\":[")
+      for (i in 0 until tileCount) {
+        if (i > 0) writer.write(",")
+        val south = (i / gridSize).toDouble() - gridSize / 2
+        val west = (i % gridSize).toDouble() - gridSize / 2
+        val north = south + 1
+        val east = west + 1
+        writer.write(
+          "{\"type\":\"Feature\",\"id\":\"tile_$i\"," +
+            "\"properties\":{\"url\":\"https://example.com/tiles/tile_$i.mbtiles\"}," +
+            "\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[" +
+            "[$west,$south],[$east,$south],[$east,$north],[$west,$north],[$west,$south]" +
+            "]]}}"
+        )
+      }
+      writer.write("]}")
+    }
+  }
+}
@@ -25,7 +25,7 @@ object Config {
 
   // Local db settings.
   // TODO(#128): Reset version to 1 before releasing.
-  const val DB_VERSION = 100
+  const val DB_VERSION = 104
   const val DB_NAME = "ground.db"
 
   // Firebase Cloud Firestore settings.
@@ -35,6 +35,15 @@ object Config {
   // Photos
   const val PHOTO_EXT = ".jpg"
 
+  /**
+   * Maximum width or height of saved photos, in pixels. Larger photos are downscaled before being
+   * saved, since they're uploaded over slow field connections.
+   */
+  const val PHOTO_MAX_DIMENSION_PX = 2048
+
+  /** JPEG quality, from 0 to 100, at which saved photos are encoded. */
+  const val PHOTO_JPEG_QUALITY = 85
+
   // Map Settings
   /**
    * Map zoom level threshold at which to trigger scaling of markers and re-rendering. When a user
@@ -50,4 +59,16 @@ object Config {
    * lower, renders markers as clusters, otherwise, we render them as individual markers.
    */
   const val CLUSTERING_ZOOM_THRESHOLD = 14f
+
+  // Offline areas
+  /** Maximum number of tile set source files downloaded at the same time. */
+  const val MAX_PARALLEL_TILE_SET_DOWNLOADS = 4
+
+  // Diagnostics
+  /**
+   * Fraction of Rx streams, from 0 to 1, whose assembly stack traces are captured in release builds
+   * to add context to errors. Capturing a stack trace is expensive, so all streams are only traced
+   * in debug builds.
+   */
+  const val RX_ASSEMBLY_TRACE_SAMPLE_RATE = 0.01
 }
@@ -22,7 +22,7 @@ import android.util.Log
 import androidx.hilt.work.HiltWorkerFactory
 import androidx.multidex.MultiDexApplication
 import androidx.work.Configuration
-import com.akaita.java.rxjava2debug.RxJava2Debug
+import com.google.android.ground.rx.RxAssemblyTracking
 import com.google.firebase.crashlytics.FirebaseCrashlytics
 import dagger.hilt.android.HiltAndroidApp
 import javax.inject.Inject
@@ -48,8 +48,12 @@ class GroundApplication : MultiDexApplication(), Configuration.Provider {
       setStrictMode()
     }
 
-    // Enable RxJava assembly stack collection for more useful stack traces.
-    RxJava2Debug.enableRxJava2AssemblyTracking(arrayOf(javaClass.getPackage().name))
+    // Collect RxJava assembly stack traces for more useful stack traces. Release builds only
+    // sample a fraction of streams to avoid walking the stack on every operator.
+    RxAssemblyTracking.enable(
+      if (isReleaseBuild()) Config.RX_ASSEMBLY_TRACE_SAMPLE_RATE else 1.0,
+      javaClass.getPackage().name
+    )
   }
 
   override fun getWorkManagerConfiguration(): Configuration =
@@ -19,6 +19,8 @@ package com.google.android.ground.domain.usecases.survey
 import com.google.android.ground.model.Survey
 import com.google.android.ground.repository.LocationOfInterestRepository
 import com.google.android.ground.repository.SurveyRepository
+import com.google.android.ground.system.perf.PerfTracer
+import com.google.android.ground.system.perf.trace
 import javax.inject.Inject
 import kotlinx.coroutines.rx2.await
 
@@ -26,17 +28,27 @@ class SyncSurveyUseCase
 @Inject
 constructor(
   private val surveyRepository: SurveyRepository,
-  private val loiRepository: LocationOfInterestRepository
+  private val loiRepository: LocationOfInterestRepository,
+  private val perfTracer: PerfTracer
 ) {
   /**
    * Downloads the survey with the specified ID and related LOIs from remote and inserts and/or
    * updates them on the local device.
    */
-  suspend operator fun invoke(surveyId: String): Survey {
-    val survey = surveyRepository.syncSurveyWithRemote(surveyId).await()
+  suspend operator fun invoke(surveyId: String): Survey =
+    perfTracer.trace(SURVEY_SYNC_TRACE) { trace ->
+      val survey = surveyRepository.syncSurveyWithRemote(surveyId).await()
+      trace.putMetric(JOBS_METRIC, survey.jobs.size.toLong())
+      trace.putMetric(TASKS_METRIC, survey.jobs.sumOf { it.tasks.size }.toLong())
 
-    loiRepository.syncLocationsOfInterest(survey)
+      loiRepository.syncLocationsOfInterest(survey)
 
-    return survey
+      survey
+    }
+
+  companion object {
+    private const val SURVEY_SYNC_TRACE = "survey_sync"
+    private const val JOBS_METRIC = "jobs"
+    private const val TASKS_METRIC = "tasks"
   }
 }
@@ -15,13 +15,19 @@
  */
 package com.google.android.ground.model.basemap.tile
 
-/** Represents a source of offline imagery tileset data. */
+/**
+ * Represents a source of offline imagery tileset data.
+ *
+ * @property downloadedBytes the number of bytes of the source file known to have been written to
+ * local storage. Downloads in progress resume from this offset.
+ */
 data class TileSet(
   val url: String,
   val id: String,
   val path: String,
   val state: State,
-  val offlineAreaReferenceCount: Int
+  val offlineAreaReferenceCount: Int,
+  val downloadedBytes: Long = 0
 ) {
   /** Increment the area reference count of a tile source by one. */
   fun incrementOfflineAreaCount(): TileSet =
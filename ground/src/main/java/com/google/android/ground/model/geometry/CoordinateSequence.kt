@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.model.geometry
+
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.builtins.ListSerializer
+import kotlinx.serialization.descriptors.SerialDescriptor
+import kotlinx.serialization.encoding.Decoder
+import kotlinx.serialization.encoding.Encoder
+
+/**
+ * An immutable list of [Coordinate]s packed into a single [DoubleArray] of alternating latitudes
+ * and longitudes. Elements are only allocated when accessed, so each vertex of a stored geometry
+ * costs two doubles rather than a [Coordinate] and a [Point].
+ *
+ * Serialized as a list of [Coordinate]s, so that the encoding of geometries is unchanged.
+ */
+@Serializable(with = CoordinateSequenceSerializer::class)
+class CoordinateSequence private constructor(private val values: DoubleArray) :
+  AbstractList<Coordinate>(), RandomAccess {
+
+  override val size: Int
+    get() = values.size / 2
+
+  override fun get(index: Int): Coordinate {
+    if (index < 0 || index >= size) throw IndexOutOfBoundsException("index: $index, size: $size")
+    return Coordinate(lat(index), lng(index))
+  }
+
+  fun lat(index: Int): Double = values[index * 2]
+
+  fun lng(index: Int): Double = values[index * 2 + 1]
+
+  /** A view of this sequence as [Point]s, each allocated when accessed. */
+  val points: List<Point>
+    get() = view { lat, lng -> Point(Coordinate(lat, lng)) }
+
+  /**
+   * Returns a read-only view of this sequence which applies [transform] to each coordinate when it
+   * is accessed, without copying or allocating intermediate [Coordinate]s.
+   */
+  fun <T> view(transform: (lat: Double, lng: Double) -> T): List<T> =
+    object : AbstractList<T>(), RandomAccess {
+      override val size: Int
+        get() = this@CoordinateSequence.size
+
+      override fun get(index: Int): T {
+        if (index < 0 || index >= size) {
+          throw IndexOutOfBoundsException("index: $index, size: $size")
+        }
+        return transform(lat(index), lng(index))
+      }
+    }
+
+  override fun equals(other: Any?): Boolean =
+    if (other is CoordinateSequence) values.contentEquals(other.values) else super.equals(other)
+
+  /** Consistent with [List.hashCode] of the equivalent list of [Coordinate]s. */
+  override fun hashCode(): Int {
+    var result = 1
+    for (i in 0 until size) {
+      result = 31 * result + (31 * lat(i).hashCode() + lng(i).hashCode())
+    }
+    return result
+  }
+
+  companion object {
+    /** Returns [coordinates] packed into a new sequence, or as is if already packed. */
+    fun of(coordinates: List<Coordinate>): CoordinateSequence {
+      if (coordinates is CoordinateSequence) return coordinates
+      val values = DoubleArray(coordinates.size * 2)
+      coordinates.forEachIndexed { i, coordinate ->
+        values[i * 2] = coordinate.lat
+        values[i * 2 + 1] = coordinate.lng
+      }
+      return CoordinateSequence(values)
+    }
+
+    /**
+     * Returns a sequence of [size] coordinates whose latitudes and longitudes are returned by [lat]
+     * and [lng], respectively.
+     */
+    fun of(size: Int, lat: (index: Int) -> Double, lng: (index: Int) -> Double) =
+      CoordinateSequence(
+        DoubleArray(size * 2).also {
+          for (i in 0 until size) {
+            it[i * 2] = lat(i)
+            it[i * 2 + 1] = lng(i)
+          }
+        }
+      )
+  }
+}
+
+/** Encodes [CoordinateSequence]s in the same format as a `List<Coordinate>`. */
+internal object CoordinateSequenceSerializer : KSerializer<CoordinateSequence> {
+  private val listSerializer = ListSerializer(Coordinate.serializer())
+
+  override val descriptor: SerialDescriptor = listSerializer.descriptor
+
+  override fun serialize(encoder: Encoder, value: CoordinateSequence) =
+    listSerializer.serialize(encoder, value)
+
+  override fun deserialize(decoder: Decoder): CoordinateSequence =
+    CoordinateSequence.of(listSerializer.deserialize(decoder))
+}
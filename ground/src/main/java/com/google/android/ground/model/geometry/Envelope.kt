@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.model.geometry
+
+/**
+ * An axis-aligned bounding rectangle in decimal degrees. Unlike map bounds, envelopes never cross
+ * the antimeridian; [minLng] is always less than or equal to [maxLng].
+ */
+data class Envelope(
+  val minLat: Double,
+  val minLng: Double,
+  val maxLat: Double,
+  val maxLng: Double
+) {
+  val centerLat: Double
+    get() = (minLat + maxLat) / 2
+
+  val centerLng: Double
+    get() = (minLng + maxLng) / 2
+
+  /** Returns true if this envelope and [other] share at least one point, including edges. */
+  fun intersects(other: Envelope): Boolean =
+    minLat <= other.maxLat &&
+      maxLat >= other.minLat &&
+      minLng <= other.maxLng &&
+      maxLng >= other.minLng
+
+  /** Returns the smallest envelope containing both this envelope and [other]. */
+  fun union(other: Envelope): Envelope =
+    Envelope(
+      minOf(minLat, other.minLat),
+      minOf(minLng, other.minLng),
+      maxOf(maxLat, other.maxLat),
+      maxOf(maxLng, other.maxLng)
+    )
+
+  companion object {
+    /** The envelope of no vertices; the identity of [union]. */
+    private val EMPTY =
+      Envelope(
+        Double.POSITIVE_INFINITY,
+        Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY,
+        Double.NEGATIVE_INFINITY
+      )
+
+    /** Returns the envelope of all vertices of the given geometry. */
+    fun of(geometry: Geometry): Envelope =
+      when (geometry) {
+        is Point -> geometry.coordinate.let { Envelope(it.lat, it.lng, it.lat, it.lng) }
+        is LineString -> of(geometry.coordinates)
+        is LinearRing -> of(geometry.coordinates)
+        is Polygon -> of(geometry.shell.coordinates)
+        is MultiPolygon -> geometry.polygons.map { of(it) }.fold(EMPTY, Envelope::union)
+      }
+
+    /** Returns the envelope of the given coordinates, reading them without unpacking. */
+    private fun of(coordinates: CoordinateSequence): Envelope {
+      var minLat = Double.POSITIVE_INFINITY
+      var minLng = Double.POSITIVE_INFINITY
+      var maxLat = Double.NEGATIVE_INFINITY
+      var maxLng = Double.NEGATIVE_INFINITY
+      for (i in 0 until coordinates.size) {
+        val lat = coordinates.lat(i)
+        val lng = coordinates.lng(i)
+        if (lat < minLat) minLat = lat
+        if (lat > maxLat) maxLat = lat
+        if (lng < minLng) minLng = lng
+        if (lng > maxLng) maxLng = lng
+      }
+      return Envelope(minLat, minLng, maxLat, maxLng)
+    }
+  }
+}
@@ -43,28 +43,38 @@ sealed interface Geometry {
 @Serializable
 @SerialName("polygon")
 data class Polygon(val shell: LinearRing, val holes: List<LinearRing> = listOf()) : Geometry {
-  override val vertices: List<Point> = shell.vertices
+  override val vertices: List<Point>
+    get() = shell.vertices
 }
 
 /** Represents a single point. */
 @Serializable
 @SerialName("point")
 data class Point(val coordinate: Coordinate) : Geometry {
-  override val vertices: List<Point> = listOf(this)
+  override val vertices: List<Point>
+    get() = listOf(this)
 }
 
 /** A collection of [Polygon]s. */
 @Serializable
 @SerialName("multi_polygon")
 data class MultiPolygon(val polygons: List<Polygon>) : Geometry {
-  override val vertices: List<Point> = polygons.flatMap { it.vertices }
+  /** The vertices of all shells, copied into a new list on each access. */
+  override val vertices: List<Point>
+    get() = polygons.flatMap { it.vertices }
+
+  override val size: Int
+    get() = polygons.sumOf { it.size }
 }
 
 /** A sequence of two or more vertices modelling an OCG style line string. */
 @Serializable
 @SerialName("line_string")
-data class LineString(val coordinates: List<Coordinate>) : Geometry {
-  override val vertices: List<Point> = coordinates.map { Point(it) }
+data class LineString(val coordinates: CoordinateSequence) : Geometry {
+  constructor(coordinates: List<Coordinate>) : this(CoordinateSequence.of(coordinates))
+
+  override val vertices: List<Point>
+    get() = coordinates.points
 }
 
 /**
@@ -73,13 +83,15 @@ data class LineString(val coordinates: List<Coordinate>) : Geometry {
  */
 @Serializable
 @SerialName("linear_ring")
-data class LinearRing(val coordinates: List<Coordinate>) : Geometry {
+data class LinearRing(val coordinates: CoordinateSequence) : Geometry {
+  constructor(coordinates: List<Coordinate>) : this(CoordinateSequence.of(coordinates))
 
   init {
     validate()
   }
 
-  override val vertices: List<Point> = coordinates.map { Point(it) }
+  override val vertices: List<Point>
+    get() = coordinates.points
 
   override fun validate() {
     // TODO(#1647): Check for vertices count > 3
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.model.mutation
+
+import com.google.android.ground.model.geometry.Geometry
+import java.util.*
+
+/**
+ * A lightweight description of a queued LOI or submission mutation and the LOI it applies to, used
+ * to list mutations without loading their full contents.
+ */
+data class MutationSummary(
+  val mutationId: Long,
+  val isSubmission: Boolean,
+  val type: Mutation.Type,
+  val syncStatus: Mutation.SyncStatus,
+  val clientTimestamp: Date,
+  /** The caption of the LOI, or null if not set or if the LOI no longer exists locally. */
+  val loiCaption: String?,
+  /** The geometry of the LOI, or null if the LOI no longer exists locally. */
+  val loiGeometry: Geometry?,
+  /** The name of the LOI's job, or null if not set or if the job no longer exists locally. */
+  val jobName: String?
+)
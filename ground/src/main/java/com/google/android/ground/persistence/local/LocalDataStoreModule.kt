@@ -37,6 +37,9 @@ abstract class LocalDataStoreModule {
   ): LocalLocationOfInterestStore
   @Binds
   @Singleton
+  abstract fun mutationSyncStore(store: RoomMutationSyncStore): LocalMutationSyncStore
+  @Binds
+  @Singleton
   abstract fun offlineAreaStore(store: RoomOfflineAreaStore): LocalOfflineAreaStore
   @Binds @Singleton abstract fun submissionStore(store: RoomSubmissionStore): LocalSubmissionStore
   @Binds @Singleton abstract fun surveyStore(store: RoomSurveyStore): LocalSurveyStore
@@ -54,6 +57,11 @@ abstract class LocalDataStoreModule {
       return localDatabase.locationOfInterestMutationDao()
     }
 
+    @Provides
+    fun mutationDao(localDatabase: LocalDatabase): MutationDao {
+      return localDatabase.mutationDao()
+    }
+
     @Provides
     fun taskDao(localDatabase: LocalDatabase): TaskDao {
       return localDatabase.taskDao()
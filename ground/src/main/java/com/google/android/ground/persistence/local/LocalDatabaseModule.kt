@@ -20,6 +20,7 @@ import androidx.room.Room
 import com.google.android.ground.Config
 import com.google.android.ground.coroutines.IoDispatcher
 import com.google.android.ground.persistence.local.room.LocalDatabase
+import com.google.android.ground.persistence.local.room.ResponseBlobMigration
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
@@ -39,6 +40,7 @@ object LocalDatabaseModule {
     @IoDispatcher ioDispatcher: CoroutineDispatcher
   ): LocalDatabase =
     Room.databaseBuilder(context, LocalDatabase::class.java, Config.DB_NAME)
+      .addMigrations(ResponseBlobMigration)
       .fallbackToDestructiveMigration() // TODO(#128): Disable before official release.
       // Run queries and transactions on background I/O thread.
       .setQueryExecutor(ioDispatcher.asExecutor())
@@ -16,6 +16,7 @@
 package com.google.android.ground.persistence.local
 
 import android.content.SharedPreferences
+import com.google.android.ground.Config
 import com.google.android.ground.ui.map.CameraPosition
 import com.google.android.ground.ui.map.gms.GmsExt.defaultMapType
 import com.google.android.ground.ui.settings.Keys
@@ -104,11 +105,60 @@ class LocalValueStore @Inject constructor(private val preferences: SharedPrefere
     }
   }
 
+  /**
+   * Returns the latest server timestamp, in milliseconds since the epoch, of the LOIs last synced
+   * in the specified survey, or `null` if LOIs in the survey have never been synced.
+   */
+  fun getLoiSyncWatermark(surveyId: String): Long? = allowThreadDiskReads {
+    getLongOrNull(loiSyncKey(LOI_SYNC_WATERMARK_PREFIX, surveyId))
+  }
+
+  fun setLoiSyncWatermark(surveyId: String, timestamp: Long) = allowThreadDiskWrites {
+    preferences.edit().putLong(loiSyncKey(LOI_SYNC_WATERMARK_PREFIX, surveyId), timestamp).apply()
+  }
+
+  /**
+   * Returns the device time, in milliseconds since the epoch, at which all LOIs in the specified
+   * survey were last downloaded, or `null` if they never were.
+   */
+  fun getLastFullLoiSyncTime(surveyId: String): Long? = allowThreadDiskReads {
+    getLongOrNull(loiSyncKey(LAST_FULL_LOI_SYNC_PREFIX, surveyId))
+  }
+
+  fun setLastFullLoiSyncTime(surveyId: String, timestamp: Long) = allowThreadDiskWrites {
+    preferences.edit().putLong(loiSyncKey(LAST_FULL_LOI_SYNC_PREFIX, surveyId), timestamp).apply()
+  }
+
+  /**
+   * Returns the URI of the resumable upload session last started for the specified remote media
+   * path, or `null` if no upload is in progress.
+   */
+  fun getUploadSessionUri(remotePath: String): String? = allowThreadDiskReads {
+    preferences.getString(UPLOAD_SESSION_PREFIX + remotePath, null)
+  }
+
+  fun setUploadSessionUri(remotePath: String, sessionUri: String?) = allowThreadDiskWrites {
+    preferences.edit().putString(UPLOAD_SESSION_PREFIX + remotePath, sessionUri).apply()
+  }
+
+  private fun getLongOrNull(key: String): Long? =
+    if (preferences.contains(key)) preferences.getLong(key, 0) else null
+
+  /**
+   * Sync state is keyed by db version, since the local db is recreated from scratch on schema
+   * changes, at which point previously synced LOIs must be downloaded again.
+   */
+  private fun loiSyncKey(prefix: String, surveyId: String) =
+    "$prefix${Config.DB_VERSION}_$surveyId"
+
   companion object {
     const val ACTIVE_SURVEY_ID_KEY = "activeSurveyId"
     const val MAP_TYPE = "map_type"
     const val LAST_VIEWPORT_PREFIX = "last_viewport_"
     const val TOS_ACCEPTED = "tos_accepted"
     const val LOCATION_LOCK_ENABLED = "location_lock_enabled"
+    const val LOI_SYNC_WATERMARK_PREFIX = "loi_sync_watermark_"
+    const val LAST_FULL_LOI_SYNC_PREFIX = "last_full_loi_sync_"
+    const val UPLOAD_SESSION_PREFIX = "upload_session_"
   }
 }
@@ -70,6 +70,7 @@ import com.google.android.ground.persistence.local.room.fields.*
 abstract class LocalDatabase : RoomDatabase() {
   abstract fun locationOfInterestDao(): LocationOfInterestDao
   abstract fun locationOfInterestMutationDao(): LocationOfInterestMutationDao
+  abstract fun mutationDao(): MutationDao
   abstract fun taskDao(): TaskDao
   abstract fun jobDao(): JobDao
   abstract fun multipleChoiceDao(): MultipleChoiceDao
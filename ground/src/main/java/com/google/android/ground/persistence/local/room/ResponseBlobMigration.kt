@@ -0,0 +1,109 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import com.google.android.ground.persistence.local.room.converter.ResponseDeltasConverter
+import com.google.android.ground.persistence.local.room.converter.ResponseMapConverter
+
+/**
+ * Changes the `submission.responses` and `submission_mutation.response_deltas` columns from JSON
+ * strings to binary blobs. Existing values are copied over as UTF-8 bytes; [ResponseMapConverter]
+ * and [ResponseDeltasConverter] still read these as legacy JSON, and rewrite them in the binary
+ * format the next time they are updated.
+ *
+ * SQLite doesn't support changing column types in place, so both tables are recreated. The
+ * submission_mutation table is recreated first, since it references the submission table.
+ */
+internal object ResponseBlobMigration : Migration(103, 104) {
+  private const val AUDIT_INFO_COLUMNS =
+    "`created_user_id`, `created_user_email`, `created_user_display_name`, " +
+      "`created_clientTimestamp`, `created_serverTimestamp`, " +
+      "`modified_user_id`, `modified_user_email`, `modified_user_display_name`, " +
+      "`modified_clientTimestamp`, `modified_serverTimestamp`"
+
+  private const val SUBMISSION_COLUMNS =
+    "`id`, `location_of_interest_id`, `job_id`, `state`, $AUDIT_INFO_COLUMNS"
+
+  private const val SUBMISSION_MUTATION_COLUMNS =
+    "`id`, `survey_id`, `type`, `state`, `retry_count`, `last_error`, `user_id`, " +
+      "`client_timestamp`, `location_of_interest_id`, `job_id`, `submission_id`"
+
+  override fun migrate(database: SupportSQLiteDatabase) {
+    with(database) {
+      execSQL(
+        "CREATE TABLE `submission_mutation_new` (" +
+          "`id` INTEGER PRIMARY KEY AUTOINCREMENT, `survey_id` TEXT NOT NULL, " +
+          "`type` INTEGER NOT NULL, `state` INTEGER NOT NULL, `retry_count` INTEGER NOT NULL, " +
+          "`last_error` TEXT NOT NULL, `user_id` TEXT NOT NULL, " +
+          "`client_timestamp` INTEGER NOT NULL, `location_of_interest_id` TEXT NOT NULL, " +
+          "`job_id` TEXT NOT NULL, `submission_id` TEXT NOT NULL, `response_deltas` BLOB, " +
+          "FOREIGN KEY(`location_of_interest_id`) REFERENCES `location_of_interest`(`id`) " +
+          "ON UPDATE NO ACTION ON DELETE CASCADE, " +
+          "FOREIGN KEY(`submission_id`) REFERENCES `submission`(`id`) " +
+          "ON UPDATE NO ACTION ON DELETE CASCADE)"
+      )
+      execSQL(
+        "INSERT INTO `submission_mutation_new` ($SUBMISSION_MUTATION_COLUMNS, `response_deltas`) " +
+          "SELECT $SUBMISSION_MUTATION_COLUMNS, CAST(`response_deltas` AS BLOB) " +
+          "FROM `submission_mutation`"
+      )
+      execSQL("DROP TABLE `submission_mutation`")
+      execSQL("ALTER TABLE `submission_mutation_new` RENAME TO `submission_mutation`")
+      execSQL(
+        "CREATE INDEX `index_submission_mutation_location_of_interest_id` " +
+          "ON `submission_mutation` (`location_of_interest_id`)"
+      )
+      execSQL(
+        "CREATE INDEX `index_submission_mutation_submission_id` " +
+          "ON `submission_mutation` (`submission_id`)"
+      )
+      execSQL(
+        "CREATE INDEX `index_submission_mutation_survey_id_state` " +
+          "ON `submission_mutation` (`survey_id`, `state`)"
+      )
+      execSQL(
+        "CREATE INDEX `index_submission_mutation_state` ON `submission_mutation` (`state`)"
+      )
+
+      execSQL(
+        "CREATE TABLE `submission_new` (" +
+          "`id` TEXT NOT NULL, `location_of_interest_id` TEXT NOT NULL, " +
+          "`job_id` TEXT NOT NULL, `state` INTEGER NOT NULL, `responses` BLOB, " +
+          "`created_user_id` TEXT NOT NULL, `created_user_email` TEXT NOT NULL, " +
+          "`created_user_display_name` TEXT NOT NULL, " +
+          "`created_clientTimestamp` INTEGER NOT NULL, `created_serverTimestamp` INTEGER, " +
+          "`modified_user_id` TEXT NOT NULL, `modified_user_email` TEXT NOT NULL, " +
+          "`modified_user_display_name` TEXT NOT NULL, " +
+          "`modified_clientTimestamp` INTEGER NOT NULL, `modified_serverTimestamp` INTEGER, " +
+          "PRIMARY KEY(`id`), " +
+          "FOREIGN KEY(`location_of_interest_id`) REFERENCES `location_of_interest`(`id`) " +
+          "ON UPDATE NO ACTION ON DELETE CASCADE)"
+      )
+      execSQL(
+        "INSERT INTO `submission_new` ($SUBMISSION_COLUMNS, `responses`) " +
+          "SELECT $SUBMISSION_COLUMNS, CAST(`responses` AS BLOB) FROM `submission`"
+      )
+      execSQL("DROP TABLE `submission`")
+      execSQL("ALTER TABLE `submission_new` RENAME TO `submission`")
+      execSQL(
+        "CREATE INDEX `index_submission_location_of_interest_id_job_id_state` " +
+          "ON `submission` (`location_of_interest_id`, `job_id`, `state`)"
+      )
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.google.android.ground.model.geometry.*
 import com.google.android.ground.model.job.Job
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
+import com.google.android.ground.model.mutation.MutationSummary
 import com.google.android.ground.model.mutation.SubmissionMutation
 import com.google.android.ground.model.submission.Submission
 import com.google.android.ground.model.submission.TaskDataMap
@@ -35,6 +36,7 @@ import com.google.android.ground.persistence.local.LocalDataConsistencyException
 import com.google.android.ground.persistence.local.room.entity.*
 import com.google.android.ground.persistence.local.room.fields.*
 import com.google.android.ground.persistence.local.room.relations.JobEntityAndRelations
+import com.google.android.ground.persistence.local.room.relations.MutationAndLocationOfInterest
 import com.google.android.ground.persistence.local.room.relations.SurveyEntityAndRelations
 import com.google.android.ground.persistence.local.room.relations.TaskEntityAndRelations
 import com.google.android.ground.ui.map.Bounds
@@ -120,8 +122,9 @@ fun JobEntityAndRelations.toModelObject(): Job {
   )
 }
 
-fun LocationOfInterest.toLocalDataStoreObject() =
-  LocationOfInterestEntity(
+fun LocationOfInterest.toLocalDataStoreObject(): LocationOfInterestEntity {
+  val envelope = Envelope.of(geometry)
+  return LocationOfInterestEntity(
     id = id,
     surveyId = surveyId,
     jobId = job.id,
@@ -129,8 +132,13 @@ fun LocationOfInterest.toLocalDataStoreObject() =
     caption = caption,
     created = created.toLocalDataStoreObject(),
     lastModified = lastModified.toLocalDataStoreObject(),
-    geometry = geometry.toLocalDataStoreObject()
+    geometry = geometry.toLocalDataStoreObject(),
+    minLat = envelope.minLat,
+    minLng = envelope.minLng,
+    maxLat = envelope.maxLat,
+    maxLng = envelope.maxLng
   )
+}
 
 fun LocationOfInterestEntity.toModelObject(survey: Survey): LocationOfInterest =
   if (geometry == null) {
@@ -161,6 +169,7 @@ fun LocationOfInterestMutation.toLocalDataStoreObject(auditInfo: AuditInfo) =
 
 fun LocationOfInterestMutation.toLocalDataStoreObject(user: User): LocationOfInterestEntity {
   val auditInfo = AuditInfo(user, clientTimestamp).toLocalDataStoreObject()
+  val envelope = geometry?.let { Envelope.of(it) }
 
   return LocationOfInterestEntity(
     id = locationOfInterestId,
@@ -171,7 +180,11 @@ fun LocationOfInterestMutation.toLocalDataStoreObject(user: User): LocationOfInt
     // TODO(#1562): Preserve creation audit info for UPDATE mutations.
     created = auditInfo,
     lastModified = auditInfo,
-    geometry = geometry?.toLocalDataStoreObject()
+    geometry = geometry?.toLocalDataStoreObject(),
+    minLat = envelope?.minLat,
+    minLng = envelope?.minLng,
+    maxLat = envelope?.maxLat,
+    maxLng = envelope?.maxLng
   )
 }
 
@@ -207,6 +220,18 @@ fun LocationOfInterestMutationEntity.toModelObject() =
     retryCount = retryCount,
   )
 
+fun MutationAndLocationOfInterest.toModelObject() =
+  MutationSummary(
+    mutationId = id,
+    isSubmission = isSubmission,
+    type = type.toMutationType(),
+    syncStatus = syncStatus.toMutationSyncStatus(),
+    clientTimestamp = Date(clientTimestamp),
+    loiCaption = loiCaption,
+    loiGeometry = loiGeometry?.getGeometry(),
+    jobName = jobName
+  )
+
 fun MultipleChoiceEntity.toModelObject(optionEntities: List<OptionEntity>): MultipleChoice {
   val options = optionEntities.map { it.toModelObject() }
   return MultipleChoice(options.toPersistentList(), this.type.toCardinality())
@@ -272,7 +297,7 @@ fun SubmissionEntity.toModelObject(loi: LocationOfInterest): Submission {
     job = job,
     created = this.created.toModelObject(),
     lastModified = this.lastModified.toModelObject(),
-    responses = ResponseMapConverter.fromString(job, this.responses)
+    responses = ResponseMapConverter.fromByteArray(job, this.responses)
   )
 }
 
@@ -282,7 +307,7 @@ fun Submission.toLocalDataStoreObject() =
     jobId = this.job.id,
     locationOfInterestId = this.locationOfInterest.id,
     state = EntityState.DEFAULT,
-    responses = ResponseMapConverter.toString(this.responses),
+    responses = ResponseMapConverter.toByteArray(this.responses),
     created = this.created.toLocalDataStoreObject(),
     lastModified = this.lastModified.toLocalDataStoreObject(),
   )
@@ -295,7 +320,7 @@ fun SubmissionMutation.toLocalDataStoreObject(created: AuditInfo): SubmissionEnt
     jobId = this.job!!.id,
     locationOfInterestId = this.locationOfInterestId,
     state = EntityState.DEFAULT,
-    responses = ResponseMapConverter.toString(TaskDataMap().copyWithDeltas(this.taskDataDeltas)),
+    responses = ResponseMapConverter.toByteArray(TaskDataMap().copyWithDeltas(this.taskDataDeltas)),
     // TODO(#1562): Preserve creation audit info for UPDATE mutations.
     created = auditInfo,
     lastModified = auditInfo
@@ -312,7 +337,7 @@ fun SubmissionMutationEntity.toModelObject(survey: Survey): SubmissionMutation {
   return SubmissionMutation(
     job = job,
     submissionId = submissionId,
-    taskDataDeltas = ResponseDeltasConverter.fromString(job, responseDeltas),
+    taskDataDeltas = ResponseDeltasConverter.fromByteArray(job, responseDeltas),
     id = id,
     surveyId = surveyId,
     locationOfInterestId = locationOfInterestId,
@@ -334,7 +359,7 @@ fun SubmissionMutation.toLocalDataStoreObject() =
     submissionId = submissionId,
     type = MutationEntityType.fromMutationType(type),
     syncStatus = MutationEntitySyncStatus.fromMutationSyncStatus(syncStatus),
-    responseDeltas = ResponseDeltasConverter.toString(taskDataDeltas),
+    responseDeltas = ResponseDeltasConverter.toByteArray(taskDataDeltas),
     retryCount = retryCount,
     lastError = lastError,
     userId = userId,
@@ -423,7 +448,8 @@ fun TileSetEntity.toModelObject() =
     url = url,
     path = path,
     offlineAreaReferenceCount = offlineAreaReferenceCount,
-    state = state.toModelObject()
+    state = state.toModelObject(),
+    downloadedBytes = downloadedBytes
   )
 
 fun TileSet.toLocalDataStoreObject() =
@@ -432,7 +458,8 @@ fun TileSet.toLocalDataStoreObject() =
     url = url,
     path = path,
     offlineAreaReferenceCount = offlineAreaReferenceCount,
-    state = state.toLocalDataStoreObject()
+    state = state.toLocalDataStoreObject(),
+    downloadedBytes = downloadedBytes
   )
 
 fun User.toLocalDataStoreObject() =
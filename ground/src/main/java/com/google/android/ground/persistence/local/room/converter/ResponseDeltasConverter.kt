@@ -20,49 +20,94 @@ import com.google.android.ground.model.job.Job
 import com.google.android.ground.model.submission.TaskDataDelta
 import com.google.android.ground.model.task.Task
 import com.google.android.ground.persistence.local.LocalDataConsistencyException
+import com.google.android.ground.persistence.local.room.converter.ResponseProtoConverter.TaskDataDeltaProto
+import com.google.android.ground.persistence.local.room.converter.ResponseProtoConverter.TaskDataDeltasProto
 import com.google.android.ground.persistence.remote.DataStoreException
 import com.google.android.ground.util.Enums.toEnum
+import java8.util.Optional
 import kotlinx.collections.immutable.toPersistentList
+import kotlinx.serialization.SerializationException
 import org.json.JSONException
 import org.json.JSONObject
 import timber.log.Timber
 
-/** Converts between [TaskDataDelta] and JSON strings used to represent them in the local db. */
+/**
+ * Converts between [TaskDataDelta] and the binary values used to represent them in the local db.
+ * Values written in the legacy JSON format are still read, but are always rewritten in the binary
+ * format.
+ */
 object ResponseDeltasConverter {
 
   private const val KEY_TASK_TYPE = "taskType"
   private const val KEY_NEW_RESPONSE = "newTaskData"
 
   @JvmStatic
-  fun toString(taskDataDeltas: List<TaskDataDelta>): String =
-    JSONObject()
-      .apply {
-        for (delta in taskDataDeltas) {
-          try {
-            put(
-              delta.taskId,
-              JSONObject()
-                .put(KEY_TASK_TYPE, delta.taskType.name)
-                .put(
-                  KEY_NEW_RESPONSE,
-                  delta.newTaskData
-                    .map { ResponseJsonConverter.toJsonObject(it) }
-                    .orElse(JSONObject.NULL)
-                )
-            )
-          } catch (e: JSONException) {
-            Timber.e(e, "Error building JSON")
+  fun toByteArray(taskDataDeltas: List<TaskDataDelta>): ByteArray =
+    ResponseProtoConverter.encodeVersioned(
+      TaskDataDeltasProto.serializer(),
+      TaskDataDeltasProto(taskDataDeltas.map { it.toProto() })
+    )
+
+  @JvmStatic
+  fun fromByteArray(job: Job, bytes: ByteArray?): List<TaskDataDelta> {
+    val deltas = mutableListOf<TaskDataDelta>()
+    for (proto in toDeltaProtos(job, bytes)) {
+      try {
+        val task =
+          job.getTask(proto.taskId).orElseThrow {
+            LocalDataConsistencyException("Unknown task id ${proto.taskId}")
           }
+        val newTaskData = proto.newTaskData
+        deltas.add(
+          TaskDataDelta(
+            proto.taskId,
+            toEnum(Task.Type::class.java, proto.taskType),
+            if (newTaskData == null) Optional.empty()
+            else ResponseProtoConverter.toResponse(task, newTaskData)
+          )
+        )
+      } catch (e: LocalDataConsistencyException) {
+        Timber.d("Bad taskData in local db: " + e.message)
+      } catch (e: DataStoreException) {
+        Timber.d("Bad taskData in local db: " + e.message)
+      } catch (e: SerializationException) {
+        Timber.e(e, "Error decoding taskData")
+      }
+    }
+    return deltas.toPersistentList()
+  }
+
+  /** Returns the deltas in [bytes] without decoding the new responses they contain. */
+  internal fun toDeltaProtos(job: Job, bytes: ByteArray?): List<TaskDataDeltaProto> {
+    if (bytes == null || bytes.isEmpty()) {
+      return listOf()
+    }
+    return try {
+      when (bytes[0]) {
+        ResponseProtoConverter.FORMAT_VERSION ->
+          ResponseProtoConverter.decodeVersioned(TaskDataDeltasProto.serializer(), bytes).deltas
+        ResponseProtoConverter.LEGACY_JSON_FORMAT ->
+          fromJsonString(job, bytes.decodeToString()).map { it.toProto() }
+        else -> {
+          Timber.e("Unknown format of taskData deltas in local db: ${bytes[0]}")
+          listOf()
         }
       }
-      .toString()
+    } catch (e: SerializationException) {
+      Timber.e(e, "Error decoding taskData deltas")
+      listOf()
+    }
+  }
 
-  @JvmStatic
-  fun fromString(job: Job, jsonString: String?): List<TaskDataDelta> {
+  private fun TaskDataDelta.toProto() =
+    TaskDataDeltaProto(
+      taskId,
+      taskType.name,
+      newTaskData.map { ResponseProtoConverter.toByteArray(it) }.orElse(null)
+    )
+
+  private fun fromJsonString(job: Job, jsonString: String): List<TaskDataDelta> {
     val deltas = mutableListOf<TaskDataDelta>()
-    if (jsonString == null) {
-      return deltas.toPersistentList()
-    }
     try {
       val jsonObject = JSONObject(jsonString)
       val keys = jsonObject.keys()
@@ -90,6 +135,6 @@ object ResponseDeltasConverter {
     } catch (e: JSONException) {
       Timber.e(e, "Error parsing JSON string")
     }
-    return deltas.toPersistentList()
+    return deltas
   }
 }
@@ -20,39 +20,98 @@ import com.google.android.ground.model.job.Job
 import com.google.android.ground.model.submission.TaskData
 import com.google.android.ground.model.submission.TaskDataMap
 import com.google.android.ground.persistence.local.LocalDataConsistencyException
+import com.google.android.ground.persistence.local.room.converter.ResponseProtoConverter.TaskDataMapProto
+import com.google.android.ground.persistence.remote.DataStoreException
 import kotlinx.collections.immutable.toPersistentMap
+import kotlinx.serialization.SerializationException
 import org.json.JSONException
 import org.json.JSONObject
 import timber.log.Timber
 
-/** Converts between [TaskDataMap] and JSON strings used to represent them in the local db. */
+/**
+ * Converts between [TaskDataMap] and the binary values used to represent them in the local db.
+ * Values written in the legacy JSON format are still read, but are always rewritten in the binary
+ * format.
+ */
 object ResponseMapConverter {
 
   @JvmStatic
-  fun toString(responseDeltas: TaskDataMap): String =
-    JSONObject()
-      .apply {
-        for (taskId in responseDeltas.taskIds()) {
-          try {
-            put(
-              taskId,
-              responseDeltas
-                .getResponse(taskId)
-                .map { ResponseJsonConverter.toJsonObject(it) }
-                .orElse(null)
-            )
-          } catch (e: JSONException) {
-            Timber.e(e, "Error building JSON")
+  fun toByteArray(taskDataMap: TaskDataMap): ByteArray = encode(taskDataMap.toEncodedTaskData())
+
+  @JvmStatic
+  fun fromByteArray(job: Job, bytes: ByteArray?): TaskDataMap {
+    val map = mutableMapOf<String, TaskData>()
+    for ((taskId, encodedTaskData) in toEncodedTaskData(job, bytes)) {
+      try {
+        val task =
+          job.getTask(taskId).orElseThrow {
+            LocalDataConsistencyException("Unknown task id $taskId")
           }
-        }
+        ResponseProtoConverter.toResponse(task, encodedTaskData).ifPresent { map[taskId] = it }
+      } catch (e: LocalDataConsistencyException) {
+        Timber.d("Bad taskData in local db: ${e.message}")
+      } catch (e: DataStoreException) {
+        Timber.d("Bad taskData in local db: ${e.message}")
+      } catch (e: SerializationException) {
+        Timber.e(e, "Error decoding taskData")
       }
-      .toString()
+    }
+    return TaskDataMap(map.toPersistentMap())
+  }
 
-  @JvmStatic
-  fun fromString(job: Job, jsonString: String?): TaskDataMap {
-    if (jsonString == null) {
-      return TaskDataMap()
+  /**
+   * Applies the changes encoded in [deltas] to the encoded [responses] and returns the result. The
+   * individual responses are copied as is, without being decoded and re-encoded.
+   */
+  fun applyDeltas(job: Job, responses: ByteArray?, deltas: List<ByteArray?>): ByteArray {
+    val taskData = toEncodedTaskData(job, responses).toMutableMap()
+    for (delta in deltas.flatMap { ResponseDeltasConverter.toDeltaProtos(job, it) }) {
+      val newTaskData = delta.newTaskData
+      if (newTaskData == null) {
+        taskData.remove(delta.taskId)
+      } else {
+        taskData[delta.taskId] = newTaskData
+      }
     }
+    return encode(taskData)
+  }
+
+  private fun encode(taskData: Map<String, ByteArray>): ByteArray =
+    ResponseProtoConverter.encodeVersioned(
+      TaskDataMapProto.serializer(),
+      TaskDataMapProto(taskData)
+    )
+
+  /** Returns the encoded responses in [bytes] keyed by task id, without decoding them. */
+  private fun toEncodedTaskData(job: Job, bytes: ByteArray?): Map<String, ByteArray> {
+    if (bytes == null || bytes.isEmpty()) {
+      return mapOf()
+    }
+    return try {
+      when (bytes[0]) {
+        ResponseProtoConverter.FORMAT_VERSION ->
+          ResponseProtoConverter.decodeVersioned(TaskDataMapProto.serializer(), bytes).taskData
+        ResponseProtoConverter.LEGACY_JSON_FORMAT ->
+          fromJsonString(job, bytes.decodeToString()).toEncodedTaskData()
+        else -> {
+          Timber.e("Unknown format of taskData in local db: ${bytes[0]}")
+          mapOf()
+        }
+      }
+    } catch (e: SerializationException) {
+      Timber.e(e, "Error decoding taskData")
+      mapOf()
+    }
+  }
+
+  private fun TaskDataMap.toEncodedTaskData(): Map<String, ByteArray> =
+    taskIds()
+      .mapNotNull { taskId ->
+        getResponse(taskId).map { taskId to ResponseProtoConverter.toByteArray(it) }.orElse(null)
+      }
+      .toMap()
+
+  private fun fromJsonString(job: Job, jsonString: String): TaskDataMap {
     val map = mutableMapOf<String, TaskData>()
     try {
       val jsonObject = JSONObject(jsonString)
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.converter
+
+import com.google.android.ground.model.submission.*
+import com.google.android.ground.model.task.Task
+import com.google.android.ground.persistence.remote.DataStoreException
+import java.util.*
+import java8.util.Optional
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.decodeFromByteArray
+import kotlinx.serialization.encodeToByteArray
+import kotlinx.serialization.protobuf.ProtoBuf
+import kotlinx.serialization.protobuf.ProtoNumber
+
+/**
+ * Converts between [TaskData] and the compact binary representation of responses used in the local
+ * db. Individual responses are encoded without their task type, which is instead taken from the
+ * corresponding [Task] on decode.
+ *
+ * Values written by [encodeVersioned] are prefixed with a single format version byte, so that they
+ * can be told apart from values written in the legacy JSON format, which always start with `{`.
+ */
+internal object ResponseProtoConverter {
+
+  /** Version byte prefixed to values written in the current binary format. */
+  const val FORMAT_VERSION: Byte = 1
+
+  /** First byte of values written in the legacy JSON format. */
+  const val LEGACY_JSON_FORMAT: Byte = '{'.code.toByte()
+
+  /** The response to a single task. Which fields are set depends on the type of the task. */
+  @Serializable
+  class TaskDataProto(
+    @ProtoNumber(1) val text: String? = null,
+    @ProtoNumber(2) val selectedOptionIds: List<String> = listOf(),
+    @ProtoNumber(3) val timestamp: Long? = null
+  )
+
+  /** Encoded responses keyed by task id. */
+  @Serializable
+  class TaskDataMapProto(@ProtoNumber(1) val taskData: Map<String, ByteArray> = mapOf())
+
+  /** A change to the response to a single task. A null [newTaskData] clears the response. */
+  @Serializable
+  class TaskDataDeltaProto(
+    @ProtoNumber(1) val taskId: String,
+    @ProtoNumber(2) val taskType: String,
+    @ProtoNumber(3) val newTaskData: ByteArray? = null
+  )
+
+  /** Changes to responses, in the order in which they are to be applied. */
+  @Serializable
+  class TaskDataDeltasProto(@ProtoNumber(1) val deltas: List<TaskDataDeltaProto> = listOf())
+
+  fun toByteArray(taskData: TaskData): ByteArray =
+    ProtoBuf.encodeToByteArray(
+      when (taskData) {
+        is TextTaskData -> TaskDataProto(text = taskData.text)
+        is MultipleChoiceTaskData -> TaskDataProto(selectedOptionIds = taskData.selectedOptionIds)
+        is NumberTaskData -> TaskDataProto(text = taskData.getDetailsText())
+        is DateTaskData -> TaskDataProto(timestamp = taskData.date.time)
+        is TimeTaskData -> TaskDataProto(timestamp = taskData.time.time)
+        is DropAPinTaskData -> TaskDataProto(text = taskData.cameraPosition.serialize())
+        else -> throw UnsupportedOperationException("Unimplemented taskData ${taskData.javaClass}")
+      }
+    )
+
+  fun toResponse(task: Task, bytes: ByteArray): Optional<TaskData> {
+    val proto = ProtoBuf.decodeFromByteArray<TaskDataProto>(bytes)
+    return when (task.type) {
+      Task.Type.TEXT,
+      Task.Type.PHOTO -> TextTaskData.fromString(proto.text ?: "")
+      Task.Type.MULTIPLE_CHOICE ->
+        MultipleChoiceTaskData.fromList(task.multipleChoice, proto.selectedOptionIds)
+      Task.Type.NUMBER -> NumberTaskData.fromNumber(proto.text ?: "")
+      Task.Type.DATE -> DateTaskData.fromDate(proto.timestamp?.let { Date(it) })
+      Task.Type.TIME -> TimeTaskData.fromDate(Date(proto.timestamp ?: 0))
+      Task.Type.DRAW_POLYGON,
+      Task.Type.DROP_A_PIN -> DropAPinTaskData.fromString(proto.text ?: "")
+      Task.Type.UNKNOWN -> throw DataStoreException("Unknown type in task ${task.id}")
+    }
+  }
+
+  /** Encodes [value] in the current binary format, prefixed with [FORMAT_VERSION]. */
+  fun <T> encodeVersioned(serializer: KSerializer<T>, value: T): ByteArray =
+    byteArrayOf(FORMAT_VERSION) + ProtoBuf.encodeToByteArray(serializer, value)
+
+  /** Decodes a value written by [encodeVersioned]. */
+  fun <T> decodeVersioned(serializer: KSerializer<T>, bytes: ByteArray): T =
+    ProtoBuf.decodeFromByteArray(serializer, bytes.copyOfRange(1, bytes.size))
+}
@@ -18,6 +18,7 @@ package com.google.android.ground.persistence.local.room.dao
 import androidx.room.Delete
 import androidx.room.Insert
 import androidx.room.Update
+import androidx.room.Upsert
 import io.reactivex.Completable
 import io.reactivex.Single
 
@@ -41,7 +42,17 @@ interface BaseDao<E> {
 
   @Update fun updateAll(entities: List<E>): Completable
 
+  // TODO(#1581): Rename once all uses migrated to coroutines.
+  /** Update entities in local db. Main-safe. */
+  @Update suspend fun updateAllSuspend(entities: List<E>)
+
   @Delete fun delete(entity: E): Completable
+
+  /** Inserts entities which don't yet exist and updates those which do. Main-safe. */
+  @Upsert suspend fun upsertAllSuspend(entities: List<E>)
+
+  /** Deletes entities from local db by primary key. Main-safe. */
+  @Delete suspend fun deleteAllSuspend(entities: List<E>)
 }
 
 /** Try to update the specified entity, and if it doesn't yet exist, create it. */
@@ -17,6 +17,7 @@ package com.google.android.ground.persistence.local.room.dao
 
 import androidx.room.Dao
 import androidx.room.Query
+import androidx.room.Upsert
 import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
 import com.google.android.ground.persistence.local.room.fields.EntityState
 import io.reactivex.Flowable
@@ -35,13 +36,35 @@ interface LocationOfInterestDao : BaseDao<LocationOfInterestEntity> {
   @Query("SELECT * FROM location_of_interest WHERE survey_id = :surveyId AND state = :state")
   fun findByState(surveyId: String, state: EntityState): Flow<List<LocationOfInterestEntity>>
 
+  /**
+   * Returns a stream of LOIs in the specified survey whose bounding boxes intersect the specified
+   * bounds. Bounds where [west] is greater than [east] are treated as crossing the antimeridian.
+   */
+  @Query(
+    "SELECT * FROM location_of_interest " +
+      "WHERE survey_id = :surveyId AND state = :state " +
+      "AND min_lat <= :north AND max_lat >= :south " +
+      "AND ((:west <= :east AND min_lng <= :east AND max_lng >= :west) " +
+      "OR (:west > :east AND (min_lng <= :east OR max_lng >= :west))) " +
+      // Preserve insertion order regardless of which index is used.
+      "ORDER BY rowid"
+  )
+  fun findWithinBoundsOnceAndStream(
+    surveyId: String,
+    state: EntityState,
+    south: Double,
+    west: Double,
+    north: Double,
+    east: Double
+  ): Flowable<List<LocationOfInterestEntity>>
+
   @Query("SELECT * FROM location_of_interest WHERE id = :id")
   fun findById(id: String): Maybe<LocationOfInterestEntity>
 
-  /**
-   * Deletes all LOIs in specified survey whose IDs are not present in the specified list..
-   * Main-safe.
-   */
-  @Query("DELETE FROM location_of_interest WHERE survey_id = :surveyId AND id NOT IN (:ids)")
-  suspend fun deleteNotIn(surveyId: String, ids: List<String>)
+  /** Deletes the LOIs with the specified ids. Main-safe. */
+  @Query("DELETE FROM location_of_interest WHERE id IN (:ids)")
+  suspend fun deleteByIds(ids: List<String>)
+
+  /** Inserts the specified LOIs, or updates them if they already exist. Main-safe. */
+  @Upsert suspend fun upsertAll(entities: List<LocationOfInterestEntity>)
 }
@@ -29,8 +29,22 @@ import io.reactivex.Single
  */
 @Dao
 interface LocationOfInterestMutationDao : BaseDao<LocationOfInterestMutationEntity> {
-  @Query("SELECT * FROM location_of_interest_mutation")
-  fun loadAllOnceAndStream(): Flowable<List<LocationOfInterestMutationEntity>>
+  /**
+   * Deletes mutations in the specified state, except for the [retainCount] most recently enqueued.
+   * Main-safe.
+   */
+  @Query(
+    "DELETE FROM location_of_interest_mutation WHERE state = :state AND id NOT IN " +
+      "(SELECT id FROM location_of_interest_mutation WHERE state = :state " +
+      "ORDER BY id DESC LIMIT :retainCount)"
+  )
+  suspend fun deleteByStateExceptMostRecent(state: MutationEntitySyncStatus, retainCount: Int)
+
+  /** Returns mutations in the specified states across all LOIs, in the order they were enqueued. */
+  @Query("SELECT * FROM location_of_interest_mutation WHERE state IN (:allowedStates) ORDER BY id")
+  fun findByState(
+    vararg allowedStates: MutationEntitySyncStatus
+  ): Single<List<LocationOfInterestMutationEntity>>
 
   @Query(
     "SELECT * FROM location_of_interest_mutation " +
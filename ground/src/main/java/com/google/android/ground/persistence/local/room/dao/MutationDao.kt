@@ -0,0 +1,49 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.dao
+
+import androidx.paging.PagingSource
+import androidx.room.Dao
+import androidx.room.Query
+import com.google.android.ground.persistence.local.room.relations.MutationAndLocationOfInterest
+
+/** Provides read operations spanning both LOI and submission mutations in the local db. */
+@Dao
+interface MutationDao {
+  /**
+   * Returns a paging source over all LOI and submission mutations in the specified survey, most
+   * recent first, each joined with the LOI and job it applies to.
+   */
+  @Query(
+    "SELECT m.id AS id, 0 AS is_submission, m.type AS type, m.state AS state, " +
+      "m.client_timestamp AS client_timestamp, l.caption AS loi_caption, " +
+      "l.geometry AS loi_geometry, j.name AS job_name " +
+      "FROM location_of_interest_mutation m " +
+      "LEFT JOIN location_of_interest l ON l.id = m.location_of_interest_id " +
+      "LEFT JOIN job j ON j.id = m.job_id " +
+      "WHERE m.survey_id = :surveyId " +
+      "UNION ALL " +
+      "SELECT m.id, 1, m.type, m.state, m.client_timestamp, l.caption, l.geometry, j.name " +
+      "FROM submission_mutation m " +
+      "LEFT JOIN location_of_interest l ON l.id = m.location_of_interest_id " +
+      "LEFT JOIN job j ON j.id = m.job_id " +
+      "WHERE m.survey_id = :surveyId " +
+      "ORDER BY client_timestamp DESC, is_submission DESC, id DESC"
+  )
+  fun getMutationsAndLocationsOfInterest(
+    surveyId: String
+  ): PagingSource<Int, MutationAndLocationOfInterest>
+}
@@ -21,6 +21,7 @@ import com.google.android.ground.persistence.local.room.entity.SubmissionEntity
 import com.google.android.ground.persistence.local.room.fields.EntityState
 import io.reactivex.Maybe
 import io.reactivex.Single
+import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface SubmissionDao : BaseDao<SubmissionEntity> {
@@ -28,6 +29,10 @@ interface SubmissionDao : BaseDao<SubmissionEntity> {
   @Query("SELECT * FROM submission WHERE id = :submissionId")
   fun findById(submissionId: String): Maybe<SubmissionEntity>
 
+  /** Deletes the submissions with the specified ids. Main-safe. */
+  @Query("DELETE FROM submission WHERE id IN (:ids)")
+  suspend fun deleteByIds(ids: List<String>)
+
   /**
    * Returns the list submissions associated with the specified location of interest, task and
    * state.
@@ -42,4 +47,19 @@ interface SubmissionDao : BaseDao<SubmissionEntity> {
     jobId: String,
     state: EntityState
   ): Single<List<SubmissionEntity>>
+
+  /**
+   * Returns the number of submissions associated with the specified location of interest, job and
+   * state, emitting again whenever the submission table changes.
+   */
+  @Query(
+    "SELECT COUNT(*) FROM submission " +
+      "WHERE location_of_interest_id = :locationOfInterestId " +
+      "AND job_id = :jobId AND state = :state"
+  )
+  fun countByLocationOfInterestId(
+    locationOfInterestId: String,
+    jobId: String,
+    state: EntityState
+  ): Flow<Int>
 }
@@ -26,8 +26,25 @@ import io.reactivex.Single
 /** Data access object for database operations related to [SubmissionMutationEntity]. */
 @Dao
 interface SubmissionMutationDao : BaseDao<SubmissionMutationEntity> {
-  @Query("SELECT * FROM submission_mutation")
-  fun loadAllOnceAndStream(): Flowable<List<SubmissionMutationEntity>>
+  /**
+   * Deletes mutations in the specified state, except for the [retainCount] most recently enqueued.
+   * Main-safe.
+   */
+  @Query(
+    "DELETE FROM submission_mutation WHERE state = :state AND id NOT IN " +
+      "(SELECT id FROM submission_mutation WHERE state = :state " +
+      "ORDER BY id DESC LIMIT :retainCount)"
+  )
+  suspend fun deleteByStateExceptMostRecent(state: MutationEntitySyncStatus, retainCount: Int)
+
+  /**
+   * Returns mutations in the specified states across all submissions, in the order they were
+   * enqueued.
+   */
+  @Query("SELECT * FROM submission_mutation WHERE state IN (:allowedStates) ORDER BY id")
+  fun findByState(
+    vararg allowedStates: MutationEntitySyncStatus
+  ): Single<List<SubmissionMutationEntity>>
 
   @Query(
     "SELECT * FROM submission_mutation " +
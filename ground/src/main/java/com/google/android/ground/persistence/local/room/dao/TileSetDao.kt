@@ -29,6 +29,9 @@ interface TileSetDao : BaseDao<TileSetEntity> {
   @Query("SELECT * FROM tile_sources WHERE state = :state")
   fun findByState(state: Int): Single<List<TileSetEntity>>
 
+  @Query("SELECT * FROM tile_sources WHERE state IN (:states)")
+  fun findByStates(vararg states: Int): Single<List<TileSetEntity>>
+
   @Query("SELECT * FROM tile_sources WHERE id = :id") fun findById(id: String): Maybe<TileSetEntity>
 
   @Query("SELECT * FROM tile_sources WHERE url = :url")
@@ -40,5 +43,10 @@ interface TileSetDao : BaseDao<TileSetEntity> {
   @Query("UPDATE tile_sources SET basemap_count=:newCount WHERE url = :url")
   fun updateBasemapReferenceCount(newCount: Int, url: String): Single<Int>
 
+  @Query(
+    "UPDATE tile_sources SET state = :state, downloaded_bytes = :downloadedBytes WHERE id = :id"
+  )
+  fun updateDownloadProgress(id: String, state: Int, downloadedBytes: Long): Single<Int>
+
   @Query("DELETE FROM tile_sources WHERE url = :url") fun deleteByUrl(url: String): Maybe<Int>
 }
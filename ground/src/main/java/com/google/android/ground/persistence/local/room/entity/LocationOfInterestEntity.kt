@@ -22,7 +22,10 @@ import com.google.android.ground.persistence.local.room.fields.EntityState
  * Defines how Room persists LOIs in the local db. By default, Room uses the name of object fields
  * and their respective types to determine database column names and types.
  */
-@Entity(tableName = "location_of_interest", indices = [Index("survey_id")])
+@Entity(
+  tableName = "location_of_interest",
+  indices = [Index("survey_id"), Index("survey_id", "state", "min_lat", "max_lat")]
+)
 data class LocationOfInterestEntity(
   @ColumnInfo(name = "id") @PrimaryKey val id: String,
   @ColumnInfo(name = "survey_id") val surveyId: String,
@@ -31,5 +34,13 @@ data class LocationOfInterestEntity(
   @ColumnInfo(name = "caption") val caption: String?,
   @Embedded(prefix = "created_") val created: AuditInfoEntity,
   @Embedded(prefix = "modified_") val lastModified: AuditInfoEntity,
-  val geometry: GeometryWrapper?
+  val geometry: GeometryWrapper?,
+  /**
+   * Bounding box of [geometry], precomputed so that LOIs can be filtered by map bounds without
+   * decoding their geometries. Null iff [geometry] is null.
+   */
+  @ColumnInfo(name = "min_lat") val minLat: Double?,
+  @ColumnInfo(name = "min_lng") val minLng: Double?,
+  @ColumnInfo(name = "max_lat") val maxLat: Double?,
+  @ColumnInfo(name = "max_lng") val maxLng: Double?
 )
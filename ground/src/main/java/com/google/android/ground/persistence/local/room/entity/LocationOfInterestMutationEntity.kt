@@ -35,7 +35,7 @@ import com.google.android.ground.persistence.local.room.fields.MutationEntityTyp
         onDelete = ForeignKey.CASCADE
       )
     ],
-  indices = [Index("location_of_interest_id")]
+  indices = [Index("location_of_interest_id"), Index("survey_id", "state"), Index("state")]
 )
 data class LocationOfInterestMutationEntity(
   @ColumnInfo(name = "id") @PrimaryKey(autoGenerate = true) val id: Long? = 0,
@@ -17,6 +17,7 @@ package com.google.android.ground.persistence.local.room.entity
 
 import androidx.room.*
 import com.google.android.ground.model.submission.Submission
+import com.google.android.ground.persistence.local.room.converter.ResponseMapConverter
 import com.google.android.ground.persistence.local.room.fields.EntityState
 
 /** Representation of a [Submission] in local db. */
@@ -38,7 +39,31 @@ data class SubmissionEntity(
   @ColumnInfo(name = "location_of_interest_id") val locationOfInterestId: String,
   @ColumnInfo(name = "job_id") val jobId: String,
   @ColumnInfo(name = "state") val state: EntityState,
-  @ColumnInfo(name = "responses") val responses: String?,
+  /** Responses encoded by [ResponseMapConverter]. */
+  @ColumnInfo(name = "responses") val responses: ByteArray?,
   @Embedded(prefix = "created_") val created: AuditInfoEntity,
   @Embedded(prefix = "modified_") val lastModified: AuditInfoEntity,
-)
+) {
+  // Generated equals() and hashCode() would compare [responses] by reference.
+  override fun equals(other: Any?): Boolean =
+    other is SubmissionEntity &&
+      id == other.id &&
+      locationOfInterestId == other.locationOfInterestId &&
+      jobId == other.jobId &&
+      state == other.state &&
+      responses.contentEquals(other.responses) &&
+      created == other.created &&
+      lastModified == other.lastModified
+
+  override fun hashCode(): Int =
+    listOf(
+        id,
+        locationOfInterestId,
+        jobId,
+        state,
+        responses.contentHashCode(),
+        created,
+        lastModified
+      )
+      .hashCode()
+}
@@ -17,6 +17,7 @@ package com.google.android.ground.persistence.local.room.entity
 
 import androidx.room.*
 import com.google.android.ground.model.mutation.SubmissionMutation
+import com.google.android.ground.persistence.local.room.converter.ResponseDeltasConverter
 import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
 import com.google.android.ground.persistence.local.room.fields.MutationEntityType
 import java.util.*
@@ -39,7 +40,13 @@ import java.util.*
         onDelete = ForeignKey.CASCADE
       )
     ],
-  indices = [Index("location_of_interest_id"), Index("submission_id")]
+  indices =
+    [
+      Index("location_of_interest_id"),
+      Index("submission_id"),
+      Index("survey_id", "state"),
+      Index("state")
+    ]
 )
 data class SubmissionMutationEntity(
   @ColumnInfo(name = "id") @PrimaryKey(autoGenerate = true) val id: Long? = 0,
@@ -54,11 +61,44 @@ data class SubmissionMutationEntity(
   @ColumnInfo(name = "job_id") val jobId: String,
   @ColumnInfo(name = "submission_id") val submissionId: String,
   /**
-   * For mutations of type [MutationEntityType.CREATE] and [MutationEntityType.UPDATE], returns a
-   * [JSONObject] with the new values of modified task responses, with `null` values representing
-   * responses that were removed/cleared.
+   * For mutations of type [MutationEntityType.CREATE] and [MutationEntityType.UPDATE], returns the
+   * new values of modified task responses encoded by [ResponseDeltasConverter], with empty values
+   * representing responses that were removed/cleared.
    *
    * This method returns `null` for mutation type [MutationEntityType.DELETE].
    */
-  @ColumnInfo(name = "response_deltas") val responseDeltas: String?
-)
+  @ColumnInfo(name = "response_deltas") val responseDeltas: ByteArray?
+) {
+  // Generated equals() and hashCode() would compare [responseDeltas] by reference.
+  override fun equals(other: Any?): Boolean =
+    other is SubmissionMutationEntity &&
+      id == other.id &&
+      surveyId == other.surveyId &&
+      type == other.type &&
+      syncStatus == other.syncStatus &&
+      retryCount == other.retryCount &&
+      lastError == other.lastError &&
+      userId == other.userId &&
+      clientTimestamp == other.clientTimestamp &&
+      locationOfInterestId == other.locationOfInterestId &&
+      jobId == other.jobId &&
+      submissionId == other.submissionId &&
+      responseDeltas.contentEquals(other.responseDeltas)
+
+  override fun hashCode(): Int =
+    listOf(
+        id,
+        surveyId,
+        type,
+        syncStatus,
+        retryCount,
+        lastError,
+        userId,
+        clientTimestamp,
+        locationOfInterestId,
+        jobId,
+        submissionId,
+        responseDeltas.contentHashCode()
+      )
+      .hashCode()
+}
@@ -26,5 +26,6 @@ data class TileSetEntity(
   @ColumnInfo(name = "path") val path: String,
   @ColumnInfo(name = "url") val url: String,
   @ColumnInfo(name = "state") val state: TileSetEntityState,
-  @ColumnInfo(name = "basemap_count") val offlineAreaReferenceCount: Int
+  @ColumnInfo(name = "basemap_count") val offlineAreaReferenceCount: Int,
+  @ColumnInfo(name = "downloaded_bytes") val downloadedBytes: Long
 )
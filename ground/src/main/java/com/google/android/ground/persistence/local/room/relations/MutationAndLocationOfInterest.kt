@@ -0,0 +1,36 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.relations
+
+import androidx.room.ColumnInfo
+import com.google.android.ground.persistence.local.room.entity.GeometryWrapper
+import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
+import com.google.android.ground.persistence.local.room.fields.MutationEntityType
+
+/**
+ * A LOI or submission mutation joined with the caption and geometry of the LOI it applies to and
+ * the name of its job. LOI and job columns are null if the referenced rows no longer exist.
+ */
+data class MutationAndLocationOfInterest(
+  @ColumnInfo(name = "id") val id: Long,
+  @ColumnInfo(name = "is_submission") val isSubmission: Boolean,
+  @ColumnInfo(name = "type") val type: MutationEntityType,
+  @ColumnInfo(name = "state") val syncStatus: MutationEntitySyncStatus,
+  @ColumnInfo(name = "client_timestamp") val clientTimestamp: Long,
+  @ColumnInfo(name = "loi_caption") val loiCaption: String?,
+  @ColumnInfo(name = "loi_geometry") val loiGeometry: GeometryWrapper?,
+  @ColumnInfo(name = "job_name") val jobName: String?
+)
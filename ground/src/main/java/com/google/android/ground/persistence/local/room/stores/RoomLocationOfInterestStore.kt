@@ -15,12 +15,14 @@
  */
 package com.google.android.ground.persistence.local.room.stores
 
+import androidx.room.withTransaction
 import com.google.android.ground.model.Survey
 import com.google.android.ground.model.User
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.persistence.local.room.LocalDataStoreException
+import com.google.android.ground.persistence.local.room.LocalDatabase
 import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
 import com.google.android.ground.persistence.local.room.converter.toModelObject
 import com.google.android.ground.persistence.local.room.dao.LocationOfInterestDao
@@ -33,6 +35,10 @@ import com.google.android.ground.persistence.local.room.fields.EntityState
 import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
 import com.google.android.ground.persistence.local.stores.LocalLocationOfInterestStore
 import com.google.android.ground.rx.Schedulers
+import com.google.android.ground.system.perf.PerfTrace
+import com.google.android.ground.system.perf.PerfTracer
+import com.google.android.ground.system.perf.trace
+import com.google.android.ground.ui.map.Bounds
 import com.google.android.ground.util.Debug.logOnFailure
 import com.google.firebase.crashlytics.FirebaseCrashlytics
 import io.reactivex.Completable
@@ -47,10 +53,12 @@ import timber.log.Timber
 /** Manages access to [LocationOfInterest] objects persisted in local storage. */
 @Singleton
 class RoomLocationOfInterestStore @Inject internal constructor() : LocalLocationOfInterestStore {
+  @Inject lateinit var localDatabase: LocalDatabase
   @Inject lateinit var locationOfInterestDao: LocationOfInterestDao
   @Inject lateinit var locationOfInterestMutationDao: LocationOfInterestMutationDao
   @Inject lateinit var userStore: RoomUserStore
   @Inject lateinit var schedulers: Schedulers
+  @Inject lateinit var perfTracer: PerfTracer
 
   /**
    * Retrieves the complete set of [LocationOfInterest] associated with the given [Survey] from the
@@ -65,6 +73,22 @@ class RoomLocationOfInterestStore @Inject internal constructor() : LocalLocation
       .map { toLocationsOfInterest(survey, it) }
       .subscribeOn(schedulers.io())
 
+  override fun getWithinBoundsOnceAndStream(
+    survey: Survey,
+    bounds: Bounds
+  ): Flowable<Set<LocationOfInterest>> =
+    locationOfInterestDao
+      .findWithinBoundsOnceAndStream(
+        survey.id,
+        EntityState.DEFAULT,
+        bounds.south,
+        bounds.west,
+        bounds.north,
+        bounds.east
+      )
+      .map { toLocationsOfInterest(survey, it) }
+      .subscribeOn(schedulers.io())
+
   override suspend fun findLocationsOfInterest(survey: Survey) =
     locationOfInterestDao.findByState(survey.id, EntityState.DEFAULT).map {
       toLocationsOfInterest(survey, it)
@@ -178,18 +202,85 @@ class RoomLocationOfInterestStore @Inject internal constructor() : LocalLocation
       .findByLocationOfInterestIdOnceAndStream(locationOfInterestId, *allowedStates)
       .map { list: List<LocationOfInterestMutationEntity> -> list.map { it.toModelObject() } }
 
-  override fun getAllMutationsAndStream(): Flowable<List<LocationOfInterestMutationEntity>> =
-    locationOfInterestMutationDao.loadAllOnceAndStream()
-
   override fun findByLocationOfInterestId(
     id: String,
     vararg states: MutationEntitySyncStatus
   ): Single<List<LocationOfInterestMutationEntity>> =
     locationOfInterestMutationDao.findByLocationOfInterestId(id, *states)
 
+  override fun findByState(
+    vararg states: MutationEntitySyncStatus
+  ): Single<List<LocationOfInterestMutationEntity>> =
+    locationOfInterestMutationDao.findByState(*states)
+
   override suspend fun insertOrUpdate(loi: LocationOfInterest) =
     locationOfInterestDao.insertOrUpdateSuspend(loi.toLocalDataStoreObject())
 
-  override suspend fun deleteNotIn(surveyId: String, ids: List<String>) =
-    locationOfInterestDao.deleteNotIn(surveyId, ids)
+  override suspend fun insertOrUpdateAll(lois: List<LocationOfInterest>) =
+    perfTracer.trace(UPSERT_LOIS_TRACE) { trace ->
+      localDatabase.withTransaction { upsertAll(lois, trace) }
+    }
+
+  override suspend fun replaceAll(surveyId: String, lois: List<LocationOfInterest>) =
+    perfTracer.trace(REPLACE_LOIS_TRACE) { trace ->
+      localDatabase.withTransaction {
+        upsertAll(lois, trace)
+        trace.putMetric(DELETED_LOIS_METRIC, deleteNotIn(surveyId, lois.map { it.id }).toLong())
+      }
+    }
+
+  private suspend fun upsertAll(lois: List<LocationOfInterest>, trace: PerfTrace) {
+    trace.putMetric(LOIS_METRIC, lois.size.toLong())
+    lois.chunked(BATCH_SIZE).forEach { batch ->
+      locationOfInterestDao.upsertAll(batch.map { it.toLocalDataStoreObject() })
+      trace.incrementMetric(BATCHES_METRIC)
+    }
+  }
+
+  /**
+   * Deletes LOIs in the specified survey whose ids aren't in [ids]. Ids are staged in a temporary
+   * table rather than bound as query arguments, since the number of ids may exceed SQLite's limit
+   * on bound parameters. Must be called from within a transaction. Returns the number of LOIs
+   * deleted.
+   */
+  private fun deleteNotIn(surveyId: String, ids: List<String>): Int {
+    val db = localDatabase.openHelper.writableDatabase
+    db.execSQL("CREATE TEMP TABLE IF NOT EXISTS $TEMP_ID_TABLE (id TEXT PRIMARY KEY)")
+    try {
+      db.execSQL("DELETE FROM $TEMP_ID_TABLE")
+      db.compileStatement("INSERT OR IGNORE INTO $TEMP_ID_TABLE (id) VALUES (?)").use { insert ->
+        ids.forEach {
+          insert.bindString(1, it)
+          insert.executeInsert()
+          insert.clearBindings()
+        }
+      }
+      val count =
+        db.compileStatement(
+            "DELETE FROM location_of_interest " +
+              "WHERE survey_id = ? AND id NOT IN (SELECT id FROM $TEMP_ID_TABLE)"
+          )
+          .use { delete ->
+            delete.bindString(1, surveyId)
+            delete.executeUpdateDelete()
+          }
+      Timber.d("Deleted $count stale LOIs in survey $surveyId")
+      return count
+    } finally {
+      db.execSQL("DROP TABLE IF EXISTS $TEMP_ID_TABLE")
+    }
+  }
+
+  companion object {
+    /** Maximum number of LOIs to upsert per statement batch. */
+    private const val BATCH_SIZE = 500
+
+    private const val TEMP_ID_TABLE = "temp.location_of_interest_sync_ids"
+
+    private const val UPSERT_LOIS_TRACE = "db_upsert_lois"
+    private const val REPLACE_LOIS_TRACE = "db_replace_lois"
+    private const val LOIS_METRIC = "lois"
+    private const val BATCHES_METRIC = "batches"
+    private const val DELETED_LOIS_METRIC = "deleted_lois"
+  }
 }
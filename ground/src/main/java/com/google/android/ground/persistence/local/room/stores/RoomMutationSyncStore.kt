@@ -0,0 +1,103 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.stores
+
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.map
+import androidx.room.withTransaction
+import com.google.android.ground.model.mutation.LocationOfInterestMutation
+import com.google.android.ground.model.mutation.Mutation
+import com.google.android.ground.model.mutation.MutationSummary
+import com.google.android.ground.model.mutation.SubmissionMutation
+import com.google.android.ground.persistence.local.room.LocalDatabase
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.converter.toModelObject
+import com.google.android.ground.persistence.local.room.dao.LocationOfInterestDao
+import com.google.android.ground.persistence.local.room.dao.LocationOfInterestMutationDao
+import com.google.android.ground.persistence.local.room.dao.MutationDao
+import com.google.android.ground.persistence.local.room.dao.SubmissionDao
+import com.google.android.ground.persistence.local.room.dao.SubmissionMutationDao
+import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
+import com.google.android.ground.persistence.local.stores.LocalMutationSyncStore
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+
+@Singleton
+class RoomMutationSyncStore @Inject internal constructor() : LocalMutationSyncStore {
+  @Inject lateinit var localDatabase: LocalDatabase
+  @Inject lateinit var locationOfInterestDao: LocationOfInterestDao
+  @Inject lateinit var locationOfInterestMutationDao: LocationOfInterestMutationDao
+  @Inject lateinit var mutationDao: MutationDao
+  @Inject lateinit var submissionDao: SubmissionDao
+  @Inject lateinit var submissionMutationDao: SubmissionMutationDao
+
+  override fun getMutationSummaries(surveyId: String): Flow<PagingData<MutationSummary>> =
+    Pager(PagingConfig(pageSize = PAGE_SIZE, enablePlaceholders = false)) {
+        mutationDao.getMutationsAndLocationsOfInterest(surveyId)
+      }
+      .flow
+      .map { pagingData -> pagingData.map { it.toModelObject() } }
+
+  override suspend fun finalizeAll(completed: List<Mutation>, failed: List<Mutation>) =
+    localDatabase.withTransaction {
+      val mutations = completed.map { it.copySyncStatus(Mutation.SyncStatus.COMPLETED) } + failed
+      LocationOfInterestMutation.filter(mutations).chunked(BATCH_SIZE).forEach { batch ->
+        locationOfInterestMutationDao.updateAllSuspend(batch.map { it.toLocalDataStoreObject() })
+      }
+      SubmissionMutation.filter(mutations).chunked(BATCH_SIZE).forEach { batch ->
+        submissionMutationDao.updateAllSuspend(batch.map { it.toLocalDataStoreObject() })
+      }
+      val deletions = completed.filter { it.type == Mutation.Type.DELETE }
+      SubmissionMutation.filter(deletions)
+        .map { it.submissionId }
+        .chunked(BATCH_SIZE)
+        .forEach { submissionDao.deleteByIds(it) }
+      LocationOfInterestMutation.filter(deletions)
+        .map { it.locationOfInterestId }
+        .chunked(BATCH_SIZE)
+        .forEach { locationOfInterestDao.deleteByIds(it) }
+    }
+
+  override suspend fun deleteCompletedMutations(retainCount: Int) =
+    localDatabase.withTransaction {
+      locationOfInterestMutationDao.deleteByStateExceptMostRecent(
+        MutationEntitySyncStatus.COMPLETED,
+        retainCount
+      )
+      submissionMutationDao.deleteByStateExceptMostRecent(
+        MutationEntitySyncStatus.COMPLETED,
+        retainCount
+      )
+    }
+
+  private fun Mutation.copySyncStatus(syncStatus: Mutation.SyncStatus): Mutation =
+    when (this) {
+      is LocationOfInterestMutation -> copy(syncStatus = syncStatus)
+      is SubmissionMutation -> copy(syncStatus = syncStatus)
+    }
+
+  companion object {
+    /** Maximum number of rows to update or delete per statement, below SQLite's bind limit. */
+    private const val BATCH_SIZE = 500
+
+    /** Number of mutation summaries loaded per page. */
+    private const val PAGE_SIZE = 50
+  }
+}
@@ -23,10 +23,7 @@ import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.mutation.SubmissionMutation
 import com.google.android.ground.model.submission.Submission
-import com.google.android.ground.model.submission.TaskDataDelta
-import com.google.android.ground.model.submission.TaskDataMap
 import com.google.android.ground.persistence.local.room.LocalDataStoreException
-import com.google.android.ground.persistence.local.room.converter.ResponseDeltasConverter
 import com.google.android.ground.persistence.local.room.converter.ResponseMapConverter
 import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
 import com.google.android.ground.persistence.local.room.converter.toModelObject
@@ -51,7 +48,8 @@ import io.reactivex.Single
 import io.reactivex.SingleSource
 import javax.inject.Inject
 import javax.inject.Singleton
-import kotlinx.collections.immutable.toPersistentList
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.distinctUntilChanged
 import timber.log.Timber
 
 /** Manages access to [Submission] objects persisted in local storage. */
@@ -93,6 +91,14 @@ class RoomSubmissionStore @Inject internal constructor() : LocalSubmissionStore
       .map { toSubmissions(locationOfInterest, it) }
       .subscribeOn(schedulers.io())
 
+  override fun getSubmissionCountOnceAndStream(
+    locationOfInterest: LocationOfInterest,
+    jobId: String
+  ): Flow<Int> =
+    submissionDao
+      .countByLocationOfInterestId(locationOfInterest.id, jobId, EntityState.DEFAULT)
+      .distinctUntilChanged()
+
   fun insertOrUpdate(submission: Submission): Completable =
     submissionDao.insertOrUpdate(submission.toLocalDataStoreObject())
 
@@ -208,26 +214,19 @@ class RoomSubmissionStore @Inject internal constructor() : LocalSubmissionStore
 
     Timber.v("Merging submission $this with mutations $mutations")
 
+    // Merge changes to responses without decoding them.
+    val responses =
+      ResponseMapConverter.applyDeltas(
+        job!!,
+        submission.responses,
+        mutations.map { it.responseDeltas }
+      )
     return submission.copy(
-      responses = ResponseMapConverter.toString(commitMutations(job, submission, mutations)),
+      responses = responses,
       lastModified = AuditInfoEntity(UserDetails.fromUser(user), clientTimestamp)
     )
   }
 
-  private fun commitMutations(
-    job: Job?,
-    submission: SubmissionEntity,
-    mutations: List<SubmissionMutationEntity>
-  ): TaskDataMap {
-    val responseMap = ResponseMapConverter.fromString(job!!, submission.responses)
-    val deltas = mutableListOf<TaskDataDelta>()
-    for (mutation in mutations) {
-      // Merge changes to responses.
-      deltas.addAll(ResponseDeltasConverter.fromString(job, mutation.responseDeltas))
-    }
-    return responseMap.copyWithDeltas(deltas.toPersistentList())
-  }
-
   private fun toSubmissions(
     locationOfInterest: LocationOfInterest,
     submissionEntities: List<SubmissionEntity>
@@ -261,12 +260,13 @@ class RoomSubmissionStore @Inject internal constructor() : LocalSubmissionStore
       Completable.error(e)
     }
 
-  override fun getAllMutationsAndStream(): Flowable<List<SubmissionMutationEntity>> =
-    submissionMutationDao.loadAllOnceAndStream()
-
   override fun findByLocationOfInterestId(
     id: String,
     vararg states: MutationEntitySyncStatus
   ): Single<List<SubmissionMutationEntity>> =
     submissionMutationDao.findByLocationOfInterestId(id, *states)
+
+  override fun findByState(
+    vararg states: MutationEntitySyncStatus
+  ): Single<List<SubmissionMutationEntity>> = submissionMutationDao.findByState(*states)
 }
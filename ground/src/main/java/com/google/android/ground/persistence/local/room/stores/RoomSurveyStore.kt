@@ -15,23 +15,27 @@
  */
 package com.google.android.ground.persistence.local.room.stores
 
+import androidx.room.InvalidationTracker
+import androidx.room.withTransaction
 import com.google.android.ground.model.Survey
-import com.google.android.ground.model.job.Job
-import com.google.android.ground.model.task.MultipleChoice
-import com.google.android.ground.model.task.Option
-import com.google.android.ground.model.task.Task
+import com.google.android.ground.persistence.local.room.LocalDatabase
 import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
 import com.google.android.ground.persistence.local.room.converter.toModelObject
 import com.google.android.ground.persistence.local.room.dao.*
 import com.google.android.ground.persistence.local.stores.LocalSurveyStore
 import com.google.android.ground.rx.Schedulers
+import com.google.android.ground.system.perf.PerfTrace
+import com.google.android.ground.system.perf.PerfTracer
+import com.google.android.ground.system.perf.trace
 import io.reactivex.Completable
 import io.reactivex.Maybe
-import io.reactivex.Observable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
 import javax.inject.Inject
 import javax.inject.Singleton
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.rx2.rxCompletable
 
 /** Manages access to [Survey] objects persisted in local storage. */
 @Singleton
@@ -43,6 +47,27 @@ class RoomSurveyStore @Inject internal constructor() : LocalSurveyStore {
   @Inject lateinit var surveyDao: SurveyDao
   @Inject lateinit var baseMapDao: BaseMapDao
   @Inject lateinit var schedulers: Schedulers
+  @Inject lateinit var localDatabase: LocalDatabase
+  @Inject lateinit var perfTracer: PerfTracer
+
+  /**
+   * Surveys already loaded and converted from the local db, keyed by id. Cleared whenever any of
+   * the tables making up a survey are modified.
+   */
+  private val cache = ConcurrentHashMap<String, Survey>()
+
+  /** Incremented on each invalidation so that loads which raced with a write aren't cached. */
+  private val cacheGeneration = AtomicInteger()
+
+  private val invalidationObserver =
+    object : InvalidationTracker.Observer(SURVEY_TABLES) {
+      override fun onInvalidated(tables: Set<String>) = invalidateCache()
+    }
+
+  @Inject
+  fun registerInvalidationObserver() {
+    localDatabase.invalidationTracker.addObserver(invalidationObserver)
+  }
 
   override val surveys: Flow<List<Survey>>
     get() = surveyDao.getAll().map { surveyEntities -> surveyEntities.map { it.toModelObject() } }
@@ -52,12 +77,8 @@ class RoomSurveyStore @Inject internal constructor() : LocalSurveyStore {
    * provided survey does not exist, inserts the given survey into the database.
    */
   override fun insertOrUpdateSurvey(survey: Survey): Completable =
-    surveyDao
-      .insertOrUpdate(survey.toLocalDataStoreObject())
-      .andThen(jobDao.deleteBySurveyId(survey.id))
-      .andThen(insertOrUpdateJobs(survey.id, survey.jobs))
-      .andThen(baseMapDao.deleteBySurveyId(survey.id))
-      .andThen(insertOfflineBaseMapSources(survey))
+    rxCompletable { writeSurvey(survey) }
+      .doFinally { invalidateCache() }
       .subscribeOn(schedulers.io())
 
   /**
@@ -65,60 +86,135 @@ class RoomSurveyStore @Inject internal constructor() : LocalSurveyStore {
    * fails, returns a [NoSuchElementException].
    */
   override fun getSurveyById(id: String): Maybe<Survey> =
-    surveyDao.getSurveyById(id).map { it.toModelObject() }.subscribeOn(schedulers.io())
+    Maybe.defer {
+        val cached = cache[id]
+        if (cached != null) return@defer Maybe.just(cached)
+        val generation = cacheGeneration.get()
+        surveyDao
+          .getSurveyById(id)
+          .map { it.toModelObject() }
+          .doOnSuccess { putInCache(generation, it) }
+      }
+      .subscribeOn(schedulers.io())
 
   /**
    * Returns the [Survey] with the given ID from the local database. Returns `null` if retrieval
    * fails.
    */
-  override suspend fun getSurveyByIdSuspend(id: String): Survey? =
-    surveyDao.getSurveyByIdSuspend(id)?.toModelObject()
+  override suspend fun getSurveyByIdSuspend(id: String): Survey? {
+    cache[id]?.let {
+      return it
+    }
+    val generation = cacheGeneration.get()
+    return surveyDao.getSurveyByIdSuspend(id)?.toModelObject()?.also { putInCache(generation, it) }
+  }
 
   /** Deletes the provided [Survey] from the local database, if it exists in the database. */
   override fun deleteSurvey(survey: Survey): Completable =
-    surveyDao.delete(survey.toLocalDataStoreObject()).subscribeOn(schedulers.io())
-
-  private fun insertOrUpdateOption(taskId: String, option: Option): Completable =
-    optionDao.insertOrUpdate(option.toLocalDataStoreObject(taskId)).subscribeOn(schedulers.io())
-
-  private fun insertOrUpdateOptions(taskId: String, options: List<Option>): Completable =
-    Observable.fromIterable(options)
-      .flatMapCompletable { insertOrUpdateOption(taskId, it) }
+    surveyDao
+      .delete(survey.toLocalDataStoreObject())
+      .doFinally { invalidateCache() }
       .subscribeOn(schedulers.io())
 
-  private fun insertOrUpdateMultipleChoice(
-    taskId: String,
-    multipleChoice: MultipleChoice
-  ): Completable =
-    multipleChoiceDao
-      .insertOrUpdate(multipleChoice.toLocalDataStoreObject(taskId))
-      .andThen(insertOrUpdateOptions(taskId, multipleChoice.options))
-      .subscribeOn(schedulers.io())
+  /**
+   * Adds [survey] to the cache, unless the cache was invalidated since loading began at
+   * [generation].
+   */
+  private fun putInCache(generation: Int, survey: Survey) {
+    synchronized(cache) { if (cacheGeneration.get() == generation) cache[survey.id] = survey }
+  }
 
-  private fun insertOrUpdateTask(jobId: String, task: Task): Completable =
-    taskDao
-      .insertOrUpdate(task.toLocalDataStoreObject(jobId))
-      .andThen(
-        Observable.just(task)
-          .filter { task.multipleChoice != null }
-          .flatMapCompletable { insertOrUpdateMultipleChoice(task.id, task.multipleChoice!!) }
-      )
-      .subscribeOn(schedulers.io())
+  private fun invalidateCache() {
+    synchronized(cache) {
+      cacheGeneration.incrementAndGet()
+      cache.clear()
+    }
+  }
 
-  private fun insertOrUpdateTasks(jobId: String, tasks: Collection<Task>): Completable =
-    Observable.fromIterable(tasks).flatMapCompletable { insertOrUpdateTask(jobId, it) }
+  /**
+   * Writes the entities of [survey] in a single transaction, diffing them against those already
+   * stored so that only new or changed rows are written and only rows no longer present are
+   * deleted.
+   */
+  private suspend fun writeSurvey(survey: Survey) =
+    perfTracer.trace(WRITE_SURVEY_TRACE) { trace ->
+      localDatabase.withTransaction {
+        val stored = surveyDao.getSurveyByIdSuspend(survey.id)
+        val storedJobs = stored?.jobEntityAndRelations?.map { it.jobEntity } ?: listOf()
+        val storedTaskRelations =
+          stored?.jobEntityAndRelations?.flatMap { it.taskEntityAndRelations } ?: listOf()
+        val storedTasks = storedTaskRelations.map { it.taskEntity }
+        val storedMultipleChoices = storedTaskRelations.flatMap { it.multipleChoiceEntities }
+        val storedOptions = storedTaskRelations.flatMap { it.optionEntities }
+        val storedBaseMaps = stored?.baseMapEntityAndRelations ?: listOf()
 
-  private fun insertOrUpdateJob(surveyId: String, job: Job): Completable =
-    jobDao
-      .insertOrUpdate(job.toLocalDataStoreObject(surveyId))
-      .andThen(insertOrUpdateTasks(job.id, job.tasks.values))
-      .subscribeOn(schedulers.io())
+        val jobs = survey.jobs.map { it.toLocalDataStoreObject(survey.id) }
+        val tasks = survey.jobs.flatMap { job -> job.tasks.values.map { it to job.id } }
+        val taskEntities = tasks.map { (task, jobId) -> task.toLocalDataStoreObject(jobId) }
+        val multipleChoices =
+          tasks.mapNotNull { (task, _) -> task.multipleChoice?.toLocalDataStoreObject(task.id) }
+        val options =
+          tasks.flatMap { (task, _) ->
+            task.multipleChoice?.options?.map { it.toLocalDataStoreObject(task.id) } ?: listOf()
+          }
+        val baseMaps = survey.baseMaps.map { it.toLocalDataStoreObject(survey.id) }
 
-  private fun insertOrUpdateJobs(surveyId: String, jobs: Collection<Job>): Completable =
-    Observable.fromIterable(jobs).flatMapCompletable { insertOrUpdateJob(surveyId, it) }
+        // The ACL is held as a JSONObject, which doesn't implement equals(), so the survey row is
+        // always rewritten.
+        surveyDao.insertOrUpdateSuspend(survey.toLocalDataStoreObject())
+        // Upserts are applied parent first to satisfy foreign key constraints, and deletes child
+        // first so that rows moved to a new parent aren't removed by cascading deletes.
+        jobDao.upsertChanged(storedJobs, jobs, trace) { it.id }
+        taskDao.upsertChanged(storedTasks, taskEntities, trace) { it.id }
+        multipleChoiceDao.upsertChanged(storedMultipleChoices, multipleChoices, trace) { it.taskId }
+        optionDao.upsertChanged(storedOptions, options, trace) { it.id }
+        // Base map ids are generated on insert, so rows are matched on their contents instead.
+        baseMapDao.upsertChanged(storedBaseMaps, baseMaps, trace) { it.copy(id = 0) }
 
-  private fun insertOfflineBaseMapSources(survey: Survey): Completable =
-    Observable.fromIterable(survey.baseMaps).flatMapCompletable {
-      baseMapDao.insertOrUpdate(it.toLocalDataStoreObject(surveyId = survey.id))
+        optionDao.deleteRemoved(storedOptions, options, trace) { it.id }
+        multipleChoiceDao.deleteRemoved(storedMultipleChoices, multipleChoices, trace) { it.taskId }
+        taskDao.deleteRemoved(storedTasks, taskEntities, trace) { it.id }
+        jobDao.deleteRemoved(storedJobs, jobs, trace) { it.id }
+        baseMapDao.deleteRemoved(storedBaseMaps, baseMaps, trace) { it.copy(id = 0) }
+      }
     }
+
+  /**
+   * Upserts entities which are new or differ from the stored entity with the same key, counting
+   * them in [trace].
+   */
+  private suspend fun <E, K> BaseDao<E>.upsertChanged(
+    storedEntities: List<E>,
+    entities: List<E>,
+    trace: PerfTrace,
+    keyOf: (E) -> K
+  ) {
+    val storedByKey = storedEntities.associateBy(keyOf)
+    val changed = entities.filter { storedByKey[keyOf(it)] != it }
+    if (changed.isNotEmpty()) upsertAllSuspend(changed)
+    trace.incrementMetric(UPSERTED_ROWS_METRIC, changed.size.toLong())
+  }
+
+  /** Deletes stored entities whose keys aren't present in [entities], counting them in [trace]. */
+  private suspend fun <E, K> BaseDao<E>.deleteRemoved(
+    storedEntities: List<E>,
+    entities: List<E>,
+    trace: PerfTrace,
+    keyOf: (E) -> K
+  ) {
+    val keys = entities.map(keyOf).toSet()
+    val removed = storedEntities.filterNot { keys.contains(keyOf(it)) }
+    if (removed.isNotEmpty()) deleteAllSuspend(removed)
+    trace.incrementMetric(DELETED_ROWS_METRIC, removed.size.toLong())
+  }
+
+  companion object {
+    /** Tables from which [Survey] models are assembled. */
+    private val SURVEY_TABLES =
+      arrayOf("survey", "job", "task", "multiple_choice", "option", "offline_base_map_source")
+
+    private const val WRITE_SURVEY_TRACE = "db_write_survey"
+    private const val UPSERTED_ROWS_METRIC = "upserted_rows"
+    private const val DELETED_ROWS_METRIC = "deleted_rows"
+  }
 }
@@ -56,6 +56,26 @@ class RoomTileSetStore @Inject internal constructor() : LocalTileSetStore {
       .map { list: List<TileSetEntity> -> list.map { it.toModelObject() } }
       .subscribeOn(schedulers.io())
 
+  override fun incompleteTileSets(): Single<List<TileSet>> =
+    tileSetDao
+      .findByStates(
+        TileSetEntityState.PENDING.intValue(),
+        TileSetEntityState.IN_PROGRESS.intValue(),
+        TileSetEntityState.FAILED.intValue()
+      )
+      .map { list: List<TileSetEntity> -> list.map { it.toModelObject() } }
+      .subscribeOn(schedulers.io())
+
+  override fun updateDownloadProgress(tileSet: TileSet): Completable =
+    tileSetDao
+      .updateDownloadProgress(
+        tileSet.id,
+        tileSet.toLocalDataStoreObject().state.intValue(),
+        tileSet.downloadedBytes
+      )
+      .ignoreElement()
+      .subscribeOn(schedulers.io())
+
   override fun updateTileSetOfflineAreaReferenceCountByUrl(
     newCount: Int,
     url: String
@@ -21,6 +21,7 @@ import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.persistence.local.room.entity.LocationOfInterestMutationEntity
 import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
 import com.google.android.ground.rx.annotations.Cold
+import com.google.android.ground.ui.map.Bounds
 import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
@@ -43,6 +44,15 @@ interface LocalLocationOfInterestStore :
    */
   suspend fun findLocationsOfInterest(survey: Survey): Flow<Set<LocationOfInterest>>
 
+  /**
+   * Returns a long-lived stream that emits the LOIs in a survey whose bounding boxes intersect the
+   * specified bounds, re-emitting each time a LOI is added/changed/removed.
+   */
+  fun getWithinBoundsOnceAndStream(
+    survey: Survey,
+    bounds: Bounds
+  ): @Cold(terminates = false) Flowable<Set<LocationOfInterest>>
+
   /** Returns the LOI with the specified UUID from the local data store, if found. */
   fun getLocationOfInterest(
     survey: Survey,
@@ -61,14 +71,24 @@ interface LocalLocationOfInterestStore :
     vararg allowedStates: MutationEntitySyncStatus
   ): Flowable<List<LocationOfInterestMutation>>
 
-  fun getAllMutationsAndStream(): Flowable<List<LocationOfInterestMutationEntity>>
-
   fun findByLocationOfInterestId(
     id: String,
     vararg states: MutationEntitySyncStatus
   ): Single<List<LocationOfInterestMutationEntity>>
 
+  /** Returns LOI mutations in the specified states, in the order they were enqueued. */
+  fun findByState(
+    vararg states: MutationEntitySyncStatus
+  ): Single<List<LocationOfInterestMutationEntity>>
+
   suspend fun insertOrUpdate(loi: LocationOfInterest)
 
-  suspend fun deleteNotIn(surveyId: String, ids: List<String>)
+  /** Inserts or updates the specified LOIs in a single transaction. Main-safe. */
+  suspend fun insertOrUpdateAll(lois: List<LocationOfInterest>)
+
+  /**
+   * Inserts or updates the specified LOIs and deletes all other LOIs in the specified survey in a
+   * single transaction. Main-safe.
+   */
+  suspend fun replaceAll(surveyId: String, lois: List<LocationOfInterest>)
 }
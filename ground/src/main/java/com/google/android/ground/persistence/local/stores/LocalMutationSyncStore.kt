@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.stores
+
+import androidx.paging.PagingData
+import com.google.android.ground.model.mutation.Mutation
+import com.google.android.ground.model.mutation.MutationSummary
+import kotlinx.coroutines.flow.Flow
+
+/** Lists queued LOI and submission mutations and records the outcome of syncing them. */
+interface LocalMutationSyncStore {
+  /**
+   * Returns pages of summaries of all LOI and submission mutations in the specified survey, most
+   * recent first. A new [PagingData] is emitted whenever the underlying tables change.
+   */
+  fun getMutationSummaries(surveyId: String): Flow<PagingData<MutationSummary>>
+
+  /**
+   * In a single transaction, marks [completed] mutations as such, removes LOIs and submissions
+   * deleted by them, and saves the updated state of [failed] mutations. Main-safe.
+   */
+  suspend fun finalizeAll(completed: List<Mutation>, failed: List<Mutation>)
+
+  /**
+   * Deletes all but the [retainCount] most recently enqueued completed LOI mutations, and likewise
+   * for completed submission mutations. Main-safe.
+   */
+  suspend fun deleteCompletedMutations(retainCount: Int)
+}
@@ -26,6 +26,7 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import kotlinx.coroutines.flow.Flow
 
 interface LocalSubmissionStore : LocalMutationStore<SubmissionMutation, Submission> {
   /**
@@ -37,6 +38,15 @@ interface LocalSubmissionStore : LocalMutationStore<SubmissionMutation, Submissi
     jobId: String
   ): @Cold Single<List<Submission>>
 
+  /**
+   * Returns the number of submissions which are not marked for deletion for the specified
+   * locationOfInterest and job, followed by the new count each time the local submissions change.
+   */
+  fun getSubmissionCountOnceAndStream(
+    locationOfInterest: LocationOfInterest,
+    jobId: String
+  ): Flow<Int>
+
   /** Returns the submission with the specified UUID from the local data store, if found. */
   fun getSubmission(
     locationOfInterest: LocationOfInterest,
@@ -56,10 +66,11 @@ interface LocalSubmissionStore : LocalMutationStore<SubmissionMutation, Submissi
     vararg allowedStates: MutationEntitySyncStatus
   ): Flowable<List<SubmissionMutation>>
 
-  fun getAllMutationsAndStream(): Flowable<List<SubmissionMutationEntity>>
-
   fun findByLocationOfInterestId(
     id: String,
     vararg states: MutationEntitySyncStatus
   ): Single<List<SubmissionMutationEntity>>
+
+  /** Returns submission mutations in the specified states, in the order they were enqueued. */
+  fun findByState(vararg states: MutationEntitySyncStatus): Single<List<SubmissionMutationEntity>>
 }
@@ -41,6 +41,15 @@ interface LocalTileSetStore {
   /** Returns all pending tiles from the local data store. */
   fun pendingTileSets(): @Cold Single<List<TileSet>>
 
+  /** Returns all tiles which are pending, in progress, or whose download previously failed. */
+  fun incompleteTileSets(): @Cold Single<List<TileSet>>
+
+  /**
+   * Updates the state and downloaded byte count of the specified tile in the local data store,
+   * leaving all other fields unchanged.
+   */
+  fun updateDownloadProgress(tileSet: TileSet): @Cold Completable
+
   /**
    * Update the area count of an existing tile source in the local data store with the area count of
    * [TileSet].
@@ -15,37 +15,52 @@
  */
 package com.google.android.ground.persistence.mbtiles
 
+import android.util.JsonReader
+import android.util.JsonToken
 import com.google.android.ground.model.basemap.tile.TileSet
 import com.google.android.ground.model.basemap.tile.TileSet.Companion.pathFromId
 import com.google.android.ground.persistence.uuid.OfflineUuidGenerator
 import com.google.android.ground.ui.map.Bounds
 import io.reactivex.Single
 import java.io.File
-import java.nio.charset.Charset
 import javax.inject.Inject
-import org.apache.commons.io.FileUtils
-import org.json.JSONArray
-import org.json.JSONException
-import org.json.JSONObject
 import timber.log.Timber
 
+/**
+ * Parses tile set footprints from GeoJSON files. Files are streamed rather than loaded into memory,
+ * and only the tile sets requested are retained, so that country-scale footprint files can be
+ * processed on low-end devices.
+ */
 class MbtilesFootprintParser @Inject constructor(private val uuidGenerator: OfflineUuidGenerator) {
 
-  private fun getJsonTileSets(jsonSource: File): Single<List<TileSetJson>> =
-    try {
-      val fileContents =
-        FileUtils.readFileToString(jsonSource, Charset.forName(JSON_SOURCE_CHARSET))
-      val geoJson = JSONObject(fileContents)
-      val locationsOfInterest = geoJson.getJSONArray(LOCATIONS_OF_INTEREST_KEY)
-      Single.just(
-        toArrayList(locationsOfInterest).map { jsonObject: JSONObject -> TileSetJson(jsonObject) }
-      )
-    } catch (e: Exception) {
-      Single.error(e)
+  /** Reads the tile sets in the specified file, returning those matching the [filter]. */
+  private fun getJsonTileSets(
+    jsonSource: File,
+    filter: (TileSetJson) -> Boolean
+  ): Single<List<TileSetJson>> =
+    Single.fromCallable {
+      JsonReader(jsonSource.bufferedReader(Charsets.UTF_8)).use { reader ->
+        val tileSets = mutableListOf<TileSetJson>()
+        reader.beginObject()
+        while (reader.hasNext()) {
+          val name = reader.nextName()
+          if (name == LOCATIONS_OF_INTEREST_KEY && reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray()
+            while (reader.hasNext()) {
+              readTileSet(reader)?.let { if (filter(it)) tileSets.add(it) }
+            }
+            reader.endArray()
+          } else {
+            reader.skipValue()
+          }
+        }
+        reader.endObject()
+        tileSets
+      }
     }
 
   fun allTiles(file: File): Single<List<TileSet>> =
-    getJsonTileSets(file)
+    getJsonTileSets(file) { true }
       .map { tilesetJsonList -> tilesetJsonList.map { jsonToTileSet(it) } }
       .doOnError { Timber.e(it) }
 
@@ -54,11 +69,9 @@ class MbtilesFootprintParser @Inject constructor(private val uuidGenerator: Offl
    * bounds}.
    */
   fun intersectingTiles(bounds: Bounds, file: File): Single<List<TileSet>> =
-    getJsonTileSets(file)
+    getJsonTileSets(file) { it.boundsIntersect(bounds) }
       .map { tilesetJsonList ->
-        tilesetJsonList
-          .filter { it.boundsIntersect(bounds) }
-          .map { jsonToTileSet(it).incrementOfflineAreaCount() }
+        tilesetJsonList.map { jsonToTileSet(it).incrementOfflineAreaCount() }
       }
       .doOnError { Timber.e(it) }
 
@@ -67,9 +80,9 @@ class MbtilesFootprintParser @Inject constructor(private val uuidGenerator: Offl
   /** Returns the [TileSet] specified by {@param json}. */
   private fun jsonToTileSet(json: TileSetJson): TileSet =
     TileSet(
-      json.url.orElse(""),
+      json.url.orEmpty(),
       uuidGenerator.generateUuid(),
-      pathFromId(json.id.orElse("")),
+      pathFromId(json.id.orEmpty()),
       TileSet.State.PENDING,
       0
     )
@@ -78,22 +91,116 @@ class MbtilesFootprintParser @Inject constructor(private val uuidGenerator: Offl
     // TODO: s/features/locations_of_interest key once we have changed the MBtiles schema (if this
     //  even sticks around).
     private const val LOCATIONS_OF_INTEREST_KEY = "features"
-    private const val JSON_SOURCE_CHARSET = "UTF-8"
+    private const val GEOMETRY_KEY = "geometry"
+    private const val VERTICES_JSON_KEY = "coordinates"
+    private const val ID_KEY = "id"
+    private const val PROPERTIES_KEY = "properties"
+    private const val URL_KEY = "url"
+
+    /** South, west, north, and east extents of a tile with no vertices. */
+    private val EMPTY_EXTENTS =
+      doubleArrayOf(
+        Double.POSITIVE_INFINITY,
+        Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY,
+        Double.NEGATIVE_INFINITY
+      )
+
+    /**
+     * Reads the next feature from [reader], or skips it and returns `null` if it isn't an object.
+     * Unexpected values within the feature are ignored.
+     */
+    internal fun readTileSet(reader: JsonReader): TileSetJson? {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        Timber.e("Ignoring error in JSON array")
+        reader.skipValue()
+        return null
+      }
+      var id: String? = null
+      var url: String? = null
+      var extents = EMPTY_EXTENTS
+      reader.beginObject()
+      while (reader.hasNext()) {
+        when (reader.nextName()) {
+          ID_KEY -> id = readStringOrNull(reader)
+          PROPERTIES_KEY -> url = readProperty(reader, URL_KEY)
+          GEOMETRY_KEY -> extents = readExtents(reader)
+          else -> reader.skipValue()
+        }
+      }
+      reader.endObject()
+      return TileSetJson(id, url, extents[0], extents[1], extents[2], extents[3])
+    }
+
+    private fun readStringOrNull(reader: JsonReader): String? =
+      when (reader.peek()) {
+        JsonToken.STRING,
+        JsonToken.NUMBER -> reader.nextString()
+        else -> null.also { reader.skipValue() }
+      }
+
+    /** Returns the value of the specified property of the object at [reader], if present. */
+    private fun readProperty(reader: JsonReader, key: String): String? {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) return null.also { reader.skipValue() }
+      var value: String? = null
+      reader.beginObject()
+      while (reader.hasNext()) {
+        if (reader.nextName() == key) value = readStringOrNull(reader) else reader.skipValue()
+      }
+      reader.endObject()
+      return value
+    }
 
     /**
-     * Converts a JSONArray to an array of JSONObjects. Provided for compatibility with java8
-     * streams. JSONArray itself only inherits from Object, and is not convertible to a stream.
+     * Returns the south, west, north, and east extents of the exterior ring of the polygon geometry
+     * object at [reader].
      */
-    private fun toArrayList(arr: JSONArray): List<JSONObject> {
-      val result: MutableList<JSONObject> = ArrayList()
-      for (i in 0 until arr.length()) {
-        try {
-          result.add(arr.getJSONObject(i))
-        } catch (e: JSONException) {
-          Timber.e(e, "Ignoring error in JSON array")
+    private fun readExtents(reader: JsonReader): DoubleArray {
+      val extents = EMPTY_EXTENTS.copyOf()
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) return extents.also { reader.skipValue() }
+      reader.beginObject()
+      while (reader.hasNext()) {
+        if (reader.nextName() == VERTICES_JSON_KEY && reader.peek() == JsonToken.BEGIN_ARRAY) {
+          reader.beginArray()
+          if (reader.hasNext()) readRingExtents(reader, extents)
+          // Skip interior rings.
+          while (reader.hasNext()) reader.skipValue()
+          reader.endArray()
+        } else {
+          reader.skipValue()
         }
       }
-      return result
+      reader.endObject()
+      return extents
     }
+
+    /** Expands [extents] to include each [lng, lat] position in the ring at [reader]. */
+    private fun readRingExtents(reader: JsonReader, extents: DoubleArray) {
+      if (reader.peek() != JsonToken.BEGIN_ARRAY) return reader.skipValue()
+      reader.beginArray()
+      while (reader.hasNext()) {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+          reader.skipValue()
+          continue
+        }
+        reader.beginArray()
+        val lng = readDoubleOrZero(reader)
+        val lat = readDoubleOrZero(reader)
+        while (reader.hasNext()) reader.skipValue()
+        reader.endArray()
+        extents[0] = minOf(extents[0], lat)
+        extents[1] = minOf(extents[1], lng)
+        extents[2] = maxOf(extents[2], lat)
+        extents[3] = maxOf(extents[3], lng)
+      }
+      reader.endArray()
+    }
+
+    private fun readDoubleOrZero(reader: JsonReader): Double =
+      when {
+        !reader.hasNext() -> 0.0
+        reader.peek() == JsonToken.NUMBER -> reader.nextDouble()
+        else -> 0.0.also { reader.skipValue() }
+      }
   }
 }
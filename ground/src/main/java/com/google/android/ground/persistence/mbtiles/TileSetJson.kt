@@ -15,68 +15,40 @@
  */
 package com.google.android.ground.persistence.mbtiles
 
-import com.google.android.ground.model.geometry.Coordinate
 import com.google.android.ground.ui.map.Bounds
-import com.google.android.ground.ui.map.gms.GmsExt.contains
-import java8.util.Optional
-import org.json.JSONArray
-import org.json.JSONObject
 
 /**
- * Describes a tile set source, including its id, extents, and source URL.
+ * Describes a tile set source, including its id, extents, and source URL, as parsed from a feature
+ * in a footprint GeoJSON file.
  *
  * A valid tile has the following information:
  * - a geometry describing a polygon.
  * - an id specifying cartesian coordinates.
  * - a URL specifying a source for the tile imagery.
  *
- * GeoJSON Polygons are described using coordinate arrays that task a linear ring. The first and
- * last value in a linear ring are equivalent. We assume coordinates are ordered, S/W, S/E, N/E,
- * N/W, (S/W again, closing the ring).
- *
- * Interior rings, which describe holes in the polygon, are ignored.
+ * Extents are stored as the bounding box of the polygon's exterior ring. Interior rings, which
+ * describe holes in the polygon, are ignored. Tiles with no vertices have empty extents, and never
+ * intersect any bounds.
  */
-internal class TileSetJson(private val json: JSONObject) {
-
-  private val vertices: List<Coordinate>
-    get() {
-      val exteriorRing =
-        Optional.ofNullable(json.optJSONObject(GEOMETRY_KEY))
-          .flatMap { j: JSONObject -> Optional.ofNullable(j.optJSONArray(VERTICES_JSON_KEY)) }
-          .map { j: JSONArray -> j.optJSONArray(0) }
-      return jsonArrayToCoordinates(exteriorRing.orElse(null))
-    }
-
-  val id: Optional<String>
-    get() {
-      val value = json.optString(ID_KEY)
-      return if (value.isEmpty()) Optional.empty() else Optional.of(value)
+internal data class TileSetJson(
+  val id: String?,
+  val url: String?,
+  val south: Double,
+  val west: Double,
+  val north: Double,
+  val east: Double
+) {
+  private val isEmpty: Boolean
+    get() = south > north
+
+  /** Returns true iff the extents of this tile overlap the specified [bounds]. */
+  fun boundsIntersect(bounds: Bounds): Boolean {
+    if (isEmpty || south > bounds.north || north < bounds.south) return false
+    return if (bounds.west <= bounds.east) {
+      west <= bounds.east && east >= bounds.west
+    } else {
+      // Bounds crossing the antimeridian.
+      east >= bounds.west || west <= bounds.east
     }
-
-  val url: Optional<String>
-    get() = Optional.ofNullable(json.optJSONObject(PROPERTIES_KEY)).map { it.optString(URL_KEY) }
-
-  fun boundsIntersect(bounds: Bounds): Boolean = vertices.any { bounds.contains(it) }
-
-  private fun jsonArrayToCoordinates(exteriorRing: JSONArray?): List<Coordinate> {
-    if (exteriorRing == null) {
-      return listOf()
-    }
-    val coordinates: MutableList<Coordinate> = ArrayList()
-    for (i in 0 until exteriorRing.length()) {
-      val point = exteriorRing.optJSONArray(i)
-      val lat = point.optDouble(1, 0.0)
-      val lng = point.optDouble(0, 0.0)
-      coordinates.add(Coordinate(lat, lng))
-    }
-    return coordinates
-  }
-
-  companion object {
-    private const val GEOMETRY_KEY = "geometry"
-    private const val VERTICES_JSON_KEY = "coordinates"
-    private const val ID_KEY = "id"
-    private const val PROPERTIES_KEY = "properties"
-    private const val URL_KEY = "url"
   }
 }
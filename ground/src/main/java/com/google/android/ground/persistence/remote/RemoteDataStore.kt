@@ -26,6 +26,7 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import java.util.Date
 
 /**
  * Defines API for accessing data in a remote data store. Implementations must ensure all
@@ -57,6 +58,15 @@ interface RemoteDataStore {
   /** Returns all LOIs in the specified survey. Main-safe. */
   suspend fun loadLocationsOfInterest(survey: Survey): List<LocationOfInterest>
 
+  /**
+   * Returns LOIs in the specified survey whose last modification was received by the server at or
+   * after the specified time. Deleted LOIs are not included. Main-safe.
+   */
+  suspend fun loadLocationsOfInterestModifiedSince(
+    survey: Survey,
+    timestamp: Date
+  ): List<LocationOfInterest>
+
   /**
    * Returns a list of all submissions associated with the specified LOI, or an empty list if none
    * are found.
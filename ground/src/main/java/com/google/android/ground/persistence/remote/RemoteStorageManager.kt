@@ -29,6 +29,15 @@ interface RemoteStorageManager {
   /** Returns a URL that can be used to download a file at the specified path in remote storage. */
   fun getDownloadUrl(remoteDestinationPath: String): @Cold Single<Uri>
 
-  /** Uploads file to a remote path. */
-  fun uploadMediaFromFile(file: File, remoteDestinationPath: String): @Cold Completable
+  /**
+   * Uploads file to a remote path. If [resumeSessionUri] is specified, the upload continues from
+   * where that upload session left off. [onSessionStarted] is called with the URI of the upload
+   * session once known, so that it can be persisted and the upload resumed if interrupted.
+   */
+  fun uploadMediaFromFile(
+    file: File,
+    remoteDestinationPath: String,
+    resumeSessionUri: Uri? = null,
+    onSessionStarted: (Uri) -> Unit = {}
+  ): @Cold Completable
 }
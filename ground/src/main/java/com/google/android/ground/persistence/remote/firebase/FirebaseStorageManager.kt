@@ -19,6 +19,7 @@ import android.net.Uri
 import com.google.android.ground.persistence.remote.RemoteStorageManager
 import com.google.android.ground.rx.RxTask
 import com.google.android.ground.rx.annotations.Cold
+import com.google.firebase.storage.StorageException
 import com.google.firebase.storage.StorageReference
 import io.reactivex.Completable
 import io.reactivex.CompletableEmitter
@@ -47,11 +48,43 @@ class FirebaseStorageManager @Inject constructor() : RemoteStorageManager {
 
   // Do not delete the file after successful upload. It is used as a cache
   // while viewing submissions when network is unavailable.
-  override fun uploadMediaFromFile(file: File, remoteDestinationPath: String): @Cold Completable =
+  override fun uploadMediaFromFile(
+    file: File,
+    remoteDestinationPath: String,
+    resumeSessionUri: Uri?,
+    onSessionStarted: (Uri) -> Unit
+  ): @Cold Completable =
+    putFile(file, remoteDestinationPath, resumeSessionUri, onSessionStarted).onErrorResumeNext {
+      if (resumeSessionUri != null && isSessionExpired(it)) {
+        Timber.d("Upload session expired, restarting upload of $remoteDestinationPath")
+        putFile(file, remoteDestinationPath, null, onSessionStarted)
+      } else {
+        Completable.error(it)
+      }
+    }
+
+  private fun putFile(
+    file: File,
+    remoteDestinationPath: String,
+    resumeSessionUri: Uri?,
+    onSessionStarted: (Uri) -> Unit
+  ): @Cold Completable =
     Completable.create { emitter: CompletableEmitter ->
+      var sessionUri: Uri? = null
       createReference(remoteDestinationPath)
-        .putFile(Uri.fromFile(file))
-        .addOnCompleteListener { emitter.onComplete() }
+        .putFile(Uri.fromFile(file), null, resumeSessionUri)
+        .addOnProgressListener { snapshot ->
+          val uri = snapshot.uploadSessionUri
+          if (uri != null && uri != sessionUri) {
+            sessionUri = uri
+            onSessionStarted(uri)
+          }
+          Timber.v(
+            "Uploaded ${snapshot.bytesTransferred} of ${snapshot.totalByteCount} bytes to " +
+              remoteDestinationPath
+          )
+        }
+        .addOnSuccessListener { emitter.onComplete() }
         .addOnFailureListener { emitter.onError(it) }
     }
 
@@ -59,6 +92,9 @@ class FirebaseStorageManager @Inject constructor() : RemoteStorageManager {
     /** Top-level directory in Cloud Storage where user media is stored. */
     private const val MEDIA_ROOT_DIR = "user-media"
 
+    /** HTTP status codes returned when resuming an upload session which no longer exists. */
+    private val SESSION_EXPIRED_HTTP_CODES = setOf(404, 410)
+
     /**
      * Generates destination path in which an submission attachment is to be stored in to Cloud
      * Storage.
@@ -75,5 +111,12 @@ class FirebaseStorageManager @Inject constructor() : RemoteStorageManager {
         .add("submissions")
         .add(filename)
         .toString()
+
+    /**
+     * Returns true if [error] indicates that the upload session can no longer be resumed. Other
+     * errors, such as permission denied, would fail a fresh upload too, so they aren't retried.
+     */
+    internal fun isSessionExpired(error: Throwable): Boolean =
+      error is StorageException && error.httpResultCode in SESSION_EXPIRED_HTTP_CODES
   }
 }
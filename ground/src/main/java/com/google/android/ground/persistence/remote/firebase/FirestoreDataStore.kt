@@ -41,6 +41,7 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import java.util.Date
 import javax.inject.Inject
 import javax.inject.Singleton
 import timber.log.Timber
@@ -125,6 +126,9 @@ internal constructor(
   override suspend fun loadLocationsOfInterest(survey: Survey) =
     db.surveys().survey(survey.id).lois().locationsOfInterest(survey)
 
+  override suspend fun loadLocationsOfInterestModifiedSince(survey: Survey, timestamp: Date) =
+    db.surveys().survey(survey.id).lois().locationsOfInterestModifiedSince(survey, timestamp)
+
   override fun applyMutations(mutations: List<Mutation>, user: User): @Cold Completable =
     RxTask.toCompletable { applyMutationsInternal(mutations, user) }
       .doOnError { e: Throwable -> recordException(e, "Error applying mutation") }
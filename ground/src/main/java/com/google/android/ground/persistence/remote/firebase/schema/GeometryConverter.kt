@@ -64,7 +64,7 @@ object GeometryConverter {
     listToIndexedMap((listOf(polygon.shell) + polygon.holes).map(::getLinearRingCoordinates))
 
   private fun getLinearRingCoordinates(linearRing: LinearRing): IndexedMap<GeoPoint> =
-    listToIndexedMap(linearRing.coordinates.map(::coordinateToGeoPoint))
+    listToIndexedMap(linearRing.coordinates.view { lat, lng -> GeoPoint(lat, lng) })
 
   private fun getMultiPolygonCoordinates(
     multiPolygon: MultiPolygon
@@ -109,8 +109,12 @@ object GeometryConverter {
     )
   }
 
-  private fun indexedMapToLinearRing(coordinatesMap: IndexedMap<GeoPoint>): LinearRing =
-    LinearRing(indexedMapToList(coordinatesMap).map(this::geoPointToCoordinate))
+  private fun indexedMapToLinearRing(coordinatesMap: IndexedMap<GeoPoint>): LinearRing {
+    val geoPoints = indexedMapToList(coordinatesMap)
+    return LinearRing(
+      CoordinateSequence.of(geoPoints.size, { geoPoints[it].latitude }, { geoPoints[it].longitude })
+    )
+  }
 
   private fun nestedIndexedMapToMultiPolygon(
     coordinatesMap: IndexedMap<IndexedMap<IndexedMap<GeoPoint>>>
@@ -22,11 +22,13 @@ import com.google.android.ground.persistence.remote.RemoteDataEvent
 import com.google.android.ground.persistence.remote.firebase.base.FluentCollectionReference
 import com.google.android.ground.persistence.remote.firebase.schema.LoiConverter.toLoi
 import com.google.android.ground.rx.annotations.Cold
+import com.google.firebase.Timestamp
 import com.google.firebase.firestore.CollectionReference
 import com.google.firebase.firestore.DocumentSnapshot
 import com.google.firebase.firestore.QuerySnapshot
 import durdinapps.rxfirebase2.RxFirestore
 import io.reactivex.Flowable
+import java.util.Date
 import kotlinx.coroutines.tasks.await
 import kotlinx.coroutines.withContext
 import timber.log.Timber
@@ -48,6 +50,20 @@ class LoiCollectionReference internal constructor(ref: CollectionReference) :
   suspend fun locationsOfInterest(survey: Survey): List<LocationOfInterest> =
     withContext(ioDispatcher) { toLois(survey, reference().get().await()) }
 
+  /**
+   * Retrieves LOIs in the specified survey last modified on the server at or after [timestamp].
+   * Main-safe.
+   */
+  suspend fun locationsOfInterestModifiedSince(
+    survey: Survey,
+    timestamp: Date
+  ): List<LocationOfInterest> =
+    withContext(ioDispatcher) {
+      val since = Timestamp(timestamp)
+      val query = reference().whereGreaterThanOrEqualTo(LAST_MODIFIED_SERVER_TIMESTAMP, since)
+      toLois(survey, query.get().await())
+    }
+
   private suspend fun toLois(survey: Survey, snapshot: QuerySnapshot): List<LocationOfInterest> =
     withContext(defaultDispatcher) {
       snapshot.documents
@@ -61,4 +77,9 @@ class LoiCollectionReference internal constructor(ref: CollectionReference) :
     snapshot: QuerySnapshot
   ): Iterable<RemoteDataEvent<LocationOfInterest>> =
     QuerySnapshotConverter.toEvents(snapshot) { doc: DocumentSnapshot -> toLoi(survey, doc) }
+
+  companion object {
+    private const val LAST_MODIFIED_SERVER_TIMESTAMP =
+      "${LoiConverter.LAST_MODIFIED}.serverTimestamp"
+  }
 }
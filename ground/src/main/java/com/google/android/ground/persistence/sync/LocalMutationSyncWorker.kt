@@ -17,30 +17,32 @@ package com.google.android.ground.persistence.sync
 
 import android.content.Context
 import androidx.hilt.work.HiltWorker
-import androidx.work.Data
 import androidx.work.Worker
 import androidx.work.WorkerParameters
 import com.google.android.ground.model.User
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
 import com.google.android.ground.model.mutation.SubmissionMutation
-import com.google.android.ground.model.submission.TaskDataDelta
 import com.google.android.ground.model.task.Task
 import com.google.android.ground.persistence.local.stores.LocalUserStore
 import com.google.android.ground.persistence.remote.RemoteDataStore
-import com.google.android.ground.persistence.sync.LocalMutationSyncWorker.Companion.createInputData
 import com.google.android.ground.repository.MutationRepository
+import com.google.android.ground.system.perf.PerfTrace
+import com.google.android.ground.system.perf.PerfTracer
+import com.google.android.ground.system.perf.trace
 import com.google.firebase.crashlytics.FirebaseCrashlytics
 import dagger.assisted.Assisted
 import dagger.assisted.AssistedInject
-import io.reactivex.Completable
 import io.reactivex.Observable
+import io.reactivex.Single
+import kotlinx.coroutines.runBlocking
 import timber.log.Timber
 
 /**
- * A worker that syncs local changes to the remote data store. Each instance handles mutations for a
- * specific map location of interest, whose id is provided in the [Data] object built by
- * [createInputData] and provided to the worker request while being enqueued.
+ * A worker that syncs local changes to the remote data store. Each run drains all pending mutations
+ * across all LOIs, packing them into remote write batches of at most [MAX_BATCH_SIZE] mutations
+ * which are committed with at most [MAX_CONCURRENT_COMMITS] in flight at once. The outcome of all
+ * batches is then recorded in the local db in a single transaction.
  */
 @HiltWorker
 class LocalMutationSyncWorker
@@ -51,82 +53,95 @@ constructor(
   private val mutationRepository: MutationRepository,
   private val localUserStore: LocalUserStore,
   private val remoteDataStore: RemoteDataStore,
-  private val photoSyncWorkManager: PhotoSyncWorkManager
+  private val photoSyncWorkManager: PhotoSyncWorkManager,
+  private val perfTracer: PerfTracer
 ) : Worker(context, params) {
 
-  private val locationOfInterestId: String =
-    params.inputData.getString(LOCATION_OF_INTEREST_ID_PARAM_KEY)!!
+  /** The mutations in a remote write batch, and the error committing it, if any. */
+  private data class BatchResult(val mutations: List<Mutation>, val error: Throwable? = null)
 
   override fun doWork(): Result {
-    Timber.d("Connected. Syncing changes to location of interest $locationOfInterestId")
-    val mutations: List<Mutation> =
-      mutationRepository.getPendingMutations(locationOfInterestId).blockingGet()
-    return try {
-      Timber.v("Mutations: $mutations")
-      processMutations(mutations).blockingAwait()
-      Result.success()
-    } catch (t: Throwable) {
-      FirebaseCrashlytics.getInstance()
-        .log("Error applying remote updates to location of interest $locationOfInterestId")
-      FirebaseCrashlytics.getInstance().recordException(t)
-      Timber.e(t, "Remote updates for location of interest $locationOfInterestId failed")
-      mutationRepository.updateMutations(incrementRetryCounts(mutations, t)).blockingAwait()
-      Result.retry()
-    }
+    val mutations = mutationRepository.getAllPendingMutations().blockingGet()
+    if (mutations.isEmpty()) return Result.success()
+    return perfTracer.trace(SYNC_TRACE) { trace -> syncMutations(mutations, trace) }
   }
 
-  /**
-   * Groups mutations by user id, loads each user, applies mutations, and removes processed
-   * mutations.
-   */
-  private fun processMutations(pendingMutations: List<Mutation>): Completable {
-    val mutationsByUserId: Map<String, List<Mutation>> = groupByUserId(pendingMutations)
-    val userIds = mutationsByUserId.keys
-    return Observable.fromIterable(userIds).flatMapCompletable { userId: String ->
-      val mutations = mutationsByUserId[userId] ?: listOf()
-      processMutations(mutations, userId)
-    }
+  private fun syncMutations(mutations: List<Mutation>, trace: PerfTrace): Result {
+    Timber.d("Connected. Syncing ${mutations.size} pending changes")
+    trace.putMetric(MUTATIONS_METRIC, mutations.size.toLong())
+    val results =
+      Observable.fromIterable(mutations.groupBy { it.userId }.entries)
+        .concatMapSingle { (userId, userMutations) -> processMutations(userMutations, userId) }
+        .toList()
+        .blockingGet()
+        .flatten()
+    val completed = results.filter { it.error == null }.flatMap { it.mutations }
+    val failed =
+      results.mapNotNull { result ->
+        result.error?.let { error -> result.mutations.map { incrementRetryCount(it, error) } }
+      }
+    trace.putMetric(BATCHES_METRIC, results.size.toLong())
+    trace.putMetric(FAILED_BATCHES_METRIC, failed.size.toLong())
+    // It's ok to block here since WorkManager calls doWork() on a background thread.
+    runBlocking { mutationRepository.finalizeSyncedMutations(completed, failed.flatten()) }
+    enqueuePhotoUploads(completed)
+    Timber.d("Synced ${completed.size} of ${mutations.size} changes")
+    // Mutations in batches not attempted after an earlier failure are also retried.
+    return if (failed.isEmpty()) Result.success() else Result.retry()
   }
 
-  /** Loads each user with specified id, applies mutations, and removes processed mutations. */
-  private fun processMutations(mutations: List<Mutation>, userId: String): Completable =
+  /**
+   * Loads the user with the specified id and commits their mutations. Mutations of users whose
+   * accounts were removed are left in the queue.
+   */
+  private fun processMutations(
+    mutations: List<Mutation>,
+    userId: String
+  ): Single<List<BatchResult>> =
     localUserStore
       .getUser(userId)
-      .flatMapCompletable { user: User -> processMutations(mutations, user) }
+      .flatMap { user: User -> commitAll(packBatches(mutations), user) }
       .doOnError { Timber.d("User account removed before mutation processed") }
-      .onErrorComplete()
-
-  /** Applies mutations to remote data store. Once successful, removes them from the local db. */
-  private fun processMutations(mutations: List<Mutation>, user: User): Completable =
-    remoteDataStore
-      .applyMutations(mutations, user)
-      .andThen(
-        processPhotoFieldMutations(mutations)
-      ) // TODO: If the remote sync fails, reset the state to DEFAULT.
-      .andThen(mutationRepository.finalizePendingMutations(mutations))
+      .onErrorReturnItem(listOf())
 
   /**
-   * Filters all mutations containing submission mutations with changes to photo fields and uploads
-   * to remote storage.
+   * Commits batches in parallel, except for consecutive batches containing changes to the same LOI,
+   * which are committed in order. Once a batch fails, later batches in the same sequence are not
+   * attempted, and their mutations remain pending until the next run.
    */
-  private fun processPhotoFieldMutations(mutations: List<Mutation>): Completable =
-    Observable.fromIterable(mutations)
-      .filter { mutation: Mutation -> mutation is SubmissionMutation }
-      .flatMapIterable { mutation: Mutation -> (mutation as SubmissionMutation).taskDataDeltas }
-      .filter { (_, taskType, newResponse): TaskDataDelta ->
-        taskType === Task.Type.PHOTO && newResponse.isPresent
-      }
-      // TODO: Instead of using toString(), add a method getSerializedValue() in TaskData.
-      .map { (_, _, newResponse): TaskDataDelta -> newResponse.get().toString() }
-      .flatMapCompletable { remotePath: String ->
-        Completable.fromRunnable { photoSyncWorkManager.enqueueSyncWorker(remotePath) }
-      }
+  private fun commitAll(
+    sequences: List<List<List<Mutation>>>,
+    user: User
+  ): Single<List<BatchResult>> =
+    Observable.fromIterable(sequences)
+      .flatMap(
+        { batches ->
+          Observable.fromIterable(batches)
+            .concatMapSingle { commit(it, user) }
+            .takeUntil { it.error != null }
+        },
+        MAX_CONCURRENT_COMMITS
+      )
+      .toList()
 
-  private fun groupByUserId(pendingMutations: List<Mutation>): Map<String, List<Mutation>> =
-    pendingMutations.groupBy { it.userId }
+  private fun commit(batch: List<Mutation>, user: User): Single<BatchResult> =
+    remoteDataStore
+      .applyMutations(batch, user)
+      .toSingleDefault(BatchResult(batch))
+      .onErrorReturn { error ->
+        FirebaseCrashlytics.getInstance().log("Error applying batch of ${batch.size} mutations")
+        FirebaseCrashlytics.getInstance().recordException(error)
+        Timber.e(error, "Remote updates for ${batch.size} mutations failed")
+        BatchResult(batch, error)
+      }
 
-  private fun incrementRetryCounts(mutations: List<Mutation>, error: Throwable): List<Mutation> =
-    mutations.map { m: Mutation -> incrementRetryCount(m, error) }
+  /** Uploads photos captured in synced submissions to remote storage. */
+  private fun enqueuePhotoUploads(mutations: List<Mutation>) =
+    SubmissionMutation.filter(mutations)
+      .flatMap { it.taskDataDeltas }
+      .filter { it.taskType === Task.Type.PHOTO && it.newTaskData.isPresent }
+      // TODO: Instead of using toString(), add a method getSerializedValue() in TaskData.
+      .forEach { photoSyncWorkManager.enqueueSyncWorker(it.newTaskData.get().toString()) }
 
   private fun incrementRetryCount(mutation: Mutation, error: Throwable): Mutation =
     when (mutation) {
@@ -137,11 +152,43 @@ constructor(
     }
 
   companion object {
-    private const val LOCATION_OF_INTEREST_ID_PARAM_KEY = "locationOfInterestId"
+    /** Maximum number of writes allowed in a single Firestore write batch. */
+    const val MAX_BATCH_SIZE = 500
 
-    /** Returns a new work [Data] object containing the specified location of interest id. */
-    @JvmStatic
-    fun createInputData(locationOfInterestId: String): Data =
-      Data.Builder().putString(LOCATION_OF_INTEREST_ID_PARAM_KEY, locationOfInterestId).build()
+    /** Maximum number of write batches committed at the same time. */
+    private const val MAX_CONCURRENT_COMMITS = 4
+
+    private const val SYNC_TRACE = "mutation_sync"
+    private const val MUTATIONS_METRIC = "mutations"
+    private const val BATCHES_METRIC = "batches"
+    private const val FAILED_BATCHES_METRIC = "failed_batches"
+
+    /**
+     * Packs the specified mutations into sequences of write batches of at most [maxBatchSize]
+     * mutations each. All mutations relating to the same LOI are kept in the same batch, in their
+     * original order, unless there are more than [maxBatchSize] of them, in which case they are
+     * split across consecutive batches in their own sequence. Every other sequence contains a
+     * single batch.
+     */
+    internal fun packBatches(
+      mutations: List<Mutation>,
+      maxBatchSize: Int = MAX_BATCH_SIZE
+    ): List<List<List<Mutation>>> {
+      val sequences = mutableListOf<List<List<Mutation>>>()
+      var batch = mutableListOf<Mutation>()
+      mutations.groupBy { it.locationOfInterestId }.values.forEach { loiMutations ->
+        if (loiMutations.size > maxBatchSize) {
+          sequences.add(loiMutations.chunked(maxBatchSize))
+          return@forEach
+        }
+        if (batch.size + loiMutations.size > maxBatchSize) {
+          sequences.add(listOf(batch))
+          batch = mutableListOf()
+        }
+        batch.addAll(loiMutations)
+      }
+      if (batch.isNotEmpty()) sequences.add(listOf(batch))
+      return sequences
+    }
   }
 }
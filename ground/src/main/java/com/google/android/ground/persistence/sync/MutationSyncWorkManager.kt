@@ -16,8 +16,8 @@
 package com.google.android.ground.persistence.sync
 
 import androidx.work.ExistingWorkPolicy
+import androidx.work.WorkInfo
 import androidx.work.WorkManager
-import com.google.android.ground.persistence.sync.LocalMutationSyncWorker.Companion.createInputData
 import io.reactivex.Completable
 import javax.inject.Inject
 
@@ -32,20 +32,22 @@ class MutationSyncWorkManager @Inject constructor(private val workManager: WorkM
    * connection is available. The returned `Completable` completes immediately as soon as the worker
    * is added to the work queue (not once the sync job completes).
    */
-  fun enqueueSyncWorker(locationOfInterestId: String): Completable =
-    Completable.fromRunnable { enqueueSyncWorkerInternal(locationOfInterestId) }
+  fun enqueueSyncWorker(): Completable = Completable.fromRunnable { enqueueSyncWorkerInternal() }
 
-  private fun enqueueSyncWorkerInternal(locationOfInterestId: String) {
-    // Rather than having running workers monitor the queue for new mutations for their respective
-    // locationOfInterestId, we instead queue a new worker on each new mutation. This simplifies the
-    // worker
-    // implementation and avoids race conditions in the rare event the worker finishes just when new
-    // mutations are added to the db.
-    val inputData = createInputData(locationOfInterestId)
+  private fun enqueueSyncWorkerInternal() {
+    // Each worker syncs all pending mutations, so if a worker is already queued but not yet
+    // running, it will also pick up the mutation just added to the db. Otherwise, a new worker is
+    // appended so that mutations added while the current worker is running aren't missed.
+    if (isWorkerPending()) return
     workManager.enqueueUniqueWork(
       LocalMutationSyncWorker::class.java.name,
-      ExistingWorkPolicy.APPEND,
-      buildWorkerRequest(inputData)
+      ExistingWorkPolicy.APPEND_OR_REPLACE,
+      buildWorkerRequest()
     )
   }
+
+  private fun isWorkerPending(): Boolean =
+    workManager.getWorkInfosForUniqueWork(LocalMutationSyncWorker::class.java.name).get().any {
+      it.state == WorkInfo.State.ENQUEUED || it.state == WorkInfo.State.BLOCKED
+    }
 }
@@ -16,10 +16,12 @@
 package com.google.android.ground.persistence.sync
 
 import android.content.Context
+import android.net.Uri
 import androidx.hilt.work.HiltWorker
 import androidx.work.Data
 import androidx.work.Worker
 import androidx.work.WorkerParameters
+import com.google.android.ground.persistence.local.LocalValueStore
 import com.google.android.ground.persistence.remote.RemoteStorageManager
 import com.google.firebase.crashlytics.FirebaseCrashlytics
 import dagger.assisted.Assisted
@@ -30,8 +32,9 @@ import timber.log.Timber
 
 /**
  * A worker that uploads photos from submissions to the FirestoreStorage in the background. The
- * source file and remote destination path are provided in a [Data] object. This worker should only
- * run when the device has a network connection.
+ * source file and remote destination path are provided in a [Data] object. Uploads are resumable;
+ * the upload session is persisted so that retries continue from where the last attempt left off.
+ * This worker should only run when the device has a network connection.
  */
 @HiltWorker
 class PhotoSyncWorker
@@ -39,7 +42,8 @@ class PhotoSyncWorker
 constructor(
   @Assisted context: Context,
   @Assisted workerParams: WorkerParameters,
-  private val remoteStorageManager: RemoteStorageManager
+  private val remoteStorageManager: RemoteStorageManager,
+  private val localValueStore: LocalValueStore
 ) : Worker(context, workerParams) {
 
   private val localSourcePath: String =
@@ -53,7 +57,14 @@ constructor(
     return if (file.exists()) {
       Timber.d("Starting photo upload: $localSourcePath, $remoteDestinationPath")
       try {
-        remoteStorageManager.uploadMediaFromFile(file, remoteDestinationPath).blockingAwait()
+        // Resume the upload session persisted by a previous attempt, if any.
+        val sessionUri = localValueStore.getUploadSessionUri(remoteDestinationPath)?.let(Uri::parse)
+        remoteStorageManager
+          .uploadMediaFromFile(file, remoteDestinationPath, sessionUri) {
+            localValueStore.setUploadSessionUri(remoteDestinationPath, it.toString())
+          }
+          .blockingAwait()
+        localValueStore.setUploadSessionUri(remoteDestinationPath, null)
         Result.success()
       } catch (e: Exception) {
         FirebaseCrashlytics.getInstance().log("Photo sync failed")
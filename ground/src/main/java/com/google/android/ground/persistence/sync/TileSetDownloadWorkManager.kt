@@ -15,8 +15,10 @@
  */
 package com.google.android.ground.persistence.sync
 
+import androidx.work.ExistingWorkPolicy
 import androidx.work.NetworkType
 import androidx.work.WorkManager
+import com.google.android.ground.Config
 import com.google.android.ground.persistence.local.LocalValueStore
 import io.reactivex.Completable
 import javax.inject.Inject
@@ -42,6 +44,13 @@ constructor(private val workManager: WorkManager, private val localValueStore: L
     Completable.fromRunnable { enqueueTileSetDownloadWorkerInternal() }
 
   private fun enqueueTileSetDownloadWorkerInternal() {
-    workManager.enqueue(buildWorkerRequest())
+    // Workers are chained so that no two workers write to the same partially downloaded file.
+    workManager.enqueueUniqueWork(
+      TileSetDownloadWorker::class.java.name,
+      ExistingWorkPolicy.APPEND_OR_REPLACE,
+      buildWorkerRequest(
+        TileSetDownloadWorker.createInputData(Config.MAX_PARALLEL_TILE_SET_DOWNLOADS)
+      )
+    )
   }
 }
@@ -16,27 +16,40 @@
 package com.google.android.ground.persistence.sync
 
 import android.content.Context
+import android.os.SystemClock
 import androidx.hilt.work.HiltWorker
+import androidx.work.Data
 import androidx.work.Worker
 import androidx.work.WorkerParameters
+import com.google.android.ground.Config
 import com.google.android.ground.model.basemap.tile.TileSet
 import com.google.android.ground.persistence.local.stores.LocalTileSetStore
 import com.google.android.ground.persistence.sync.SyncService.Companion.DEFAULT_MAX_RETRY_ATTEMPTS
+import com.google.android.ground.rx.Schedulers
+import com.google.android.ground.system.perf.PerfTrace
+import com.google.android.ground.system.perf.PerfTracer
+import com.google.android.ground.system.perf.trace
 import dagger.assisted.Assisted
 import dagger.assisted.AssistedInject
 import io.reactivex.Completable
 import io.reactivex.Observable
+import io.reactivex.exceptions.CompositeException
 import java.io.File
 import java.io.IOException
+import java.io.InputStream
 import java.net.HttpURLConnection
 import java.net.MalformedURLException
 import java.net.URL
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
 import timber.log.Timber
 
 /**
- * A worker that downloads files to the device in the background. The target URL and file name are
- * provided in a [Data] object. This worker should only run when the device has a network
- * connection.
+ * A worker that downloads tile set source files to the device in the background. Up to
+ * [DEFAULT_MAX_PARALLEL_DOWNLOADS] files are downloaded at once, unless otherwise specified in the
+ * [Data] object built by [createInputData]. Progress is checkpointed to the local db every
+ * [CHECKPOINT_INTERVAL_BYTES], so that interrupted downloads resume from the last checkpoint. This
+ * worker should only run when the device has a network connection.
  */
 @HiltWorker
 class TileSetDownloadWorker
@@ -44,37 +57,50 @@ class TileSetDownloadWorker
 constructor(
   @param:Assisted private val context: Context,
   @Assisted params: WorkerParameters,
-  private val localTileSetStore: LocalTileSetStore
+  private val localTileSetStore: LocalTileSetStore,
+  private val schedulers: Schedulers,
+  private val perfTracer: PerfTracer
 ) : Worker(context, params) {
 
+  private val maxParallelDownloads =
+    params.inputData.getInt(MAX_PARALLEL_DOWNLOADS_KEY, DEFAULT_MAX_PARALLEL_DOWNLOADS)
+
   /**
-   * Given a tile, downloads the given {@param tile}'s source file and saves it to the device's app
-   * storage. Optional HTTP request header {@param requestProperties} may be provided.
+   * Downloads the given tile set's source file and saves it to the device's app storage, resuming
+   * from [TileSet.downloadedBytes] if a previous download was interrupted and the server supports
+   * range requests. Returns the total number of bytes in the local file.
    */
   @Throws(TileSetDownloadException::class)
-  private fun downloadTileFile(tileSet: TileSet, requestProperties: Map<String, String>) {
-    var mode = Context.MODE_PRIVATE
+  private fun downloadTileFile(tileSet: TileSet): Long =
+    perfTracer.trace(DOWNLOAD_TRACE) { trace -> downloadTileFile(tileSet, trace) }
 
+  private fun downloadTileFile(tileSet: TileSet, trace: PerfTrace): Long {
+    // Only resume from the last checkpoint if the partially downloaded file still exists.
+    val existingBytes = File(context.filesDir, tileSet.path).length()
+    val resumeOffset = minOf(tileSet.downloadedBytes, existingBytes)
     try {
-      val url = URL(tileSet.url)
-      val connection = url.openConnection() as HttpURLConnection
-
-      if (requestProperties.isNotEmpty()) {
-        for ((key, value) in requestProperties) {
-          connection.setRequestProperty(key, value)
-        }
-        mode = Context.MODE_APPEND
+      val connection = URL(tileSet.url).openConnection() as HttpURLConnection
+      connection.connectTimeout = TIMEOUT_MILLIS
+      connection.readTimeout = TIMEOUT_MILLIS
+      if (resumeOffset > 0) {
+        // Request only the remaining bytes, from the checkpointed offset to the end of the file.
+        // For more info see: https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Range
+        connection.setRequestProperty("Range", "bytes=$resumeOffset-")
       }
-
       connection.connect()
+      // Servers which don't support range requests return the entire file instead.
+      val offset =
+        if (connection.responseCode == HttpURLConnection.HTTP_PARTIAL) resumeOffset else 0
+      val mode = if (offset > 0) Context.MODE_APPEND else Context.MODE_PRIVATE
+      trace.putAttribute(RESUMED_ATTRIBUTE, (offset > 0).toString())
       connection.inputStream.use { inputStream ->
         context.openFileOutput(tileSet.path, mode).use { fos ->
-          val byteChunk = ByteArray(BUFFER_SIZE)
-          var n: Int
-
-          while (inputStream.read(byteChunk).also { n = it } > 0) {
-            fos.write(byteChunk, 0, n)
-          }
+          val channel = fos.channel
+          // Discard any bytes written after the last checkpoint, since they may be incomplete.
+          if (channel.size() > offset) channel.truncate(offset)
+          val size = copyToChannel(tileSet, inputStream, channel, offset)
+          trace.putMetric(BYTES_METRIC, size - offset)
+          return size
         }
       }
     } catch (e: MalformedURLException) {
@@ -85,105 +111,137 @@ constructor(
     }
   }
 
-  /** Update a tile's state in the database and initiate a download of the tile source file. */
-  private fun downloadTileSet(tileSet: TileSet): Completable {
-    val requestProperties: MutableMap<String, String> = HashMap()
-
-    // To resume a download for an in progress tile, we use the HTTP Range request property.
-    // The range property takes a range of bytes, the server returns the content of the resource
-    // that corresponds to the given byte range.
-    //
-    // To resume a download, we get the current length, in bytes, of the file on disk.
-    // appending '-' to the byte value tells the server to return the range of bytes from the given
-    // byte value to the end of the file, e.g. '500-' returns contents starting at byte 500 to EOF.
-    //
-    // Note that length returns 0 when the file does not exist, so this correctly handles an edge
-    // case whereby the local DB has a tile state of IN_PROGRESS but none of the file has been
-    // downloaded yet (since then we'll fetch the range '0-', the entire file).
-    //
-    // For more info see: https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Range
-    if (tileSet.state === TileSet.State.IN_PROGRESS) {
-      val existingTileFile = File(context.filesDir, tileSet.path)
-      requestProperties["Range"] = "bytes=" + existingTileFile.length() + "-"
-    }
-    return localTileSetStore
-      .insertOrUpdateTileSet(
-        tileSet.copy(
-          state = TileSet.State.IN_PROGRESS,
-        )
-      )
-      .andThen(Completable.fromRunnable { downloadTileFile(tileSet, requestProperties) })
-      .doOnError { e ->
-        Timber.d(e, "Failed to download tile: $tileSet")
-        localTileSetStore.insertOrUpdateTileSet(
-          tileSet.copy(
-            state = TileSet.State.FAILED,
+  /**
+   * Copies [inputStream] to the end of [channel] through a reused buffer, persisting progress every
+   * [CHECKPOINT_INTERVAL_BYTES]. Returns the size of the file once the stream is exhausted.
+   */
+  private fun copyToChannel(
+    tileSet: TileSet,
+    inputStream: InputStream,
+    channel: FileChannel,
+    offset: Long
+  ): Long {
+    val startTime = SystemClock.elapsedRealtime()
+    val bytes = ByteArray(BUFFER_SIZE)
+    val buffer = ByteBuffer.wrap(bytes)
+    var position = offset
+    var lastCheckpoint = offset
+    while (true) {
+      val n = inputStream.read(bytes)
+      if (n < 0) break
+      buffer.position(0)
+      buffer.limit(n)
+      while (buffer.hasRemaining()) position += channel.write(buffer)
+      if (position - lastCheckpoint >= CHECKPOINT_INTERVAL_BYTES) {
+        // Flush to storage before recording progress so checkpoints never point past saved data.
+        channel.force(false)
+        localTileSetStore
+          .updateDownloadProgress(
+            tileSet.copy(state = TileSet.State.IN_PROGRESS, downloadedBytes = position)
           )
-        )
+          .blockingAwait()
+        lastCheckpoint = position
       }
-      .andThen(
-        localTileSetStore.insertOrUpdateTileSet(
-          tileSet.copy(
-            state = TileSet.State.DOWNLOADED,
-          )
-        )
-      )
+    }
+    channel.force(false)
+    logThroughput(tileSet, position - offset, SystemClock.elapsedRealtime() - startTime)
+    return position
   }
 
-  /**
-   * Verifies that {@param tile} marked as `Tile.State.DOWNLOADED` in the local database still
-   * exists in the app's storage. If the tile's source file isn't present, initiates a download of
-   * source file.
-   */
-  private fun downloadIfNotFound(tileSet: TileSet): Completable {
-    val file = File(context.filesDir, tileSet.path)
-    return if (file.exists()) {
-      Completable.complete()
-    } else downloadTileSet(tileSet)
+  private fun logThroughput(tileSet: TileSet, bytes: Long, elapsedMillis: Long) {
+    val bytesPerSecond = if (elapsedMillis > 0) bytes * 1000 / elapsedMillis else bytes
+    Timber.d("Downloaded $bytes bytes of ${tileSet.path} in $elapsedMillis ms, $bytesPerSecond B/s")
   }
 
-  private fun processTileSets(pendingTileSets: List<TileSet>): Completable =
-    Observable.fromIterable(pendingTileSets).flatMapCompletable { tileSet ->
-      when (tileSet.state) {
-        TileSet.State.DOWNLOADED -> downloadIfNotFound(tileSet)
-        TileSet.State.PENDING,
-        TileSet.State.IN_PROGRESS,
-        TileSet.State.FAILED -> downloadTileSet(tileSet)
+  /** Update a tile's state in the database and initiate a download of the tile source file. */
+  private fun downloadTileSet(tileSet: TileSet): Completable =
+    localTileSetStore
+      .updateDownloadProgress(tileSet.copy(state = TileSet.State.IN_PROGRESS))
+      .andThen(Completable.defer { markDownloaded(tileSet, downloadTileFile(tileSet)) })
+      .onErrorResumeNext { e ->
+        Timber.d(e, "Failed to download tile: $tileSet")
+        // Keep the checkpointed offset so that the next attempt can resume the download.
+        Completable.defer {
+            localTileSetStore.getTileSet(tileSet.url).flatMapCompletable {
+              localTileSetStore.updateDownloadProgress(it.copy(state = TileSet.State.FAILED))
+            }
+          }
+          .onErrorComplete()
+          .andThen(Completable.error(e))
       }
-    }
+
+  private fun markDownloaded(tileSet: TileSet, size: Long): Completable =
+    localTileSetStore.updateDownloadProgress(
+      tileSet.copy(state = TileSet.State.DOWNLOADED, downloadedBytes = size)
+    )
+
+  private fun processTileSets(incompleteTileSets: List<TileSet>): Completable =
+    Observable.fromIterable(incompleteTileSets)
+      .flatMapCompletable(
+        { tileSet -> downloadTileSet(tileSet).subscribeOn(schedulers.io()) },
+        // Let other downloads finish when one fails.
+        true,
+        maxParallelDownloads
+      )
 
   /**
-   * Given a tile identifier, downloads a tile source file and saves it to the app's file storage.
-   * If the tile source file already exists on the device, this method returns `Result.success()`
-   * and does not re-download the file.
+   * Downloads all tile sets which haven't yet been fully downloaded and saves them to the app's
+   * file storage.
    */
   override fun doWork(): Result {
-    val pendingTileSets = localTileSetStore.pendingTileSets().blockingGet()
+    val incompleteTileSets = localTileSetStore.incompleteTileSets().blockingGet()
 
-    // When there are no tiles in the db, the blockingGet returns null.
-    // If that isn't the case, another worker may have already taken care of the work.
-    // In this case, we return a result immediately to stop the worker.
-    Timber.d("Downloading tiles: $pendingTileSets")
+    // If there are no tile sets left to download, another worker may have already taken care of
+    // the work. In this case, we return a result immediately to stop the worker.
+    Timber.d("Downloading tiles: $incompleteTileSets")
     return try {
-      processTileSets(pendingTileSets).blockingAwait()
+      processTileSets(incompleteTileSets).blockingAwait()
       Result.success()
-    } catch (e: MalformedURLException) {
-      Timber.e(e, "can't download tileset from malformed URL ${e.message}")
-      Result.failure()
-    } catch (e: TileSetDownloadException) {
-      Timber.e(e, "Downloads for tiles failed: $pendingTileSets")
-      if (this.runAttemptCount > DEFAULT_MAX_RETRY_ATTEMPTS) {
-        return Result.failure()
-      }
-      Result.retry()
     } catch (e: Exception) {
-      Timber.e(e, "Unexpected error ${e.message}")
-      Result.failure()
+      val errors = if (e is CompositeException) e.exceptions else listOf(e)
+      when {
+        errors.any { it is MalformedURLException } -> {
+          Timber.e(e, "can't download tileset from malformed URL ${e.message}")
+          Result.failure()
+        }
+        errors.all { it is TileSetDownloadException } -> {
+          Timber.e(e, "Downloads for tiles failed: $incompleteTileSets")
+          if (this.runAttemptCount > DEFAULT_MAX_RETRY_ATTEMPTS) Result.failure()
+          else Result.retry()
+        }
+        else -> {
+          Timber.e(e, "Unexpected error ${e.message}")
+          Result.failure()
+        }
+      }
     }
   }
 
   internal class TileSetDownloadException(msg: String?, e: Throwable?) : RuntimeException(msg, e)
+
   companion object {
-    private const val BUFFER_SIZE = 4096
+    private const val MAX_PARALLEL_DOWNLOADS_KEY = "maxParallelDownloads"
+
+    /**
+     * Maximum number of files downloaded at the same time by work enqueued without input data, such
+     * as work persisted by earlier versions of the app.
+     */
+    const val DEFAULT_MAX_PARALLEL_DOWNLOADS = Config.MAX_PARALLEL_TILE_SET_DOWNLOADS
+
+    /** Size of the buffer used to copy downloaded data to disk. */
+    private const val BUFFER_SIZE = 256 * 1024
+
+    /** Number of bytes downloaded between persisted progress checkpoints. */
+    private const val CHECKPOINT_INTERVAL_BYTES = 8L * 1024 * 1024
+
+    private const val TIMEOUT_MILLIS = 30_000
+
+    private const val DOWNLOAD_TRACE = "tile_set_download"
+    private const val BYTES_METRIC = "bytes"
+    private const val RESUMED_ATTRIBUTE = "resumed"
+
+    /** Returns a new work [Data] object containing the maximum number of parallel downloads. */
+    fun createInputData(maxParallelDownloads: Int): Data =
+      Data.Builder().putInt(MAX_PARALLEL_DOWNLOADS_KEY, maxParallelDownloads).build()
   }
 }
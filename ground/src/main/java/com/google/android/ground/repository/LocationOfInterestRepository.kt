@@ -22,6 +22,7 @@ import com.google.android.ground.model.job.Job
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation.SyncStatus
+import com.google.android.ground.persistence.local.LocalValueStore
 import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
 import com.google.android.ground.persistence.local.stores.LocalLocationOfInterestStore
 import com.google.android.ground.persistence.local.stores.LocalSurveyStore
@@ -31,13 +32,17 @@ import com.google.android.ground.persistence.sync.MutationSyncWorkManager
 import com.google.android.ground.persistence.uuid.OfflineUuidGenerator
 import com.google.android.ground.rx.annotations.Cold
 import com.google.android.ground.system.auth.AuthenticationManager
+import com.google.android.ground.system.perf.PerfTracer
+import com.google.android.ground.system.perf.trace
 import com.google.android.ground.ui.map.Bounds
 import com.google.android.ground.ui.map.gms.GmsExt.contains
 import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Single
+import java.util.Date
 import javax.inject.Inject
 import javax.inject.Singleton
+import timber.log.Timber
 
 /**
  * Coordinates persistence and retrieval of [LocationOfInterest] instances from remote, local, and
@@ -50,23 +55,53 @@ class LocationOfInterestRepository
 constructor(
   private val localSurveyStore: LocalSurveyStore,
   private val localLoiStore: LocalLocationOfInterestStore,
+  private val localValueStore: LocalValueStore,
   private val remoteDataStore: RemoteDataStore,
   private val mutationSyncWorkManager: MutationSyncWorkManager,
   private val authManager: AuthenticationManager,
   private val uuidGenerator: OfflineUuidGenerator,
+  private val perfTracer: PerfTracer,
 ) {
-  /** Mirrors locations of interest in the specified survey from the remote db into the local db. */
-  suspend fun syncLocationsOfInterest(survey: Survey) {
-    val lois = remoteDataStore.loadLocationsOfInterest(survey)
-    mergeAll(survey.id, lois)
+  /**
+   * Mirrors locations of interest in the specified survey from the remote db into the local db.
+   * Only LOIs modified on the server since the last sync are downloaded, except on first sync and
+   * every [FULL_SYNC_INTERVAL_MILLIS], when all LOIs are downloaded so that LOIs deleted remotely
+   * are also removed from the local db.
+   */
+  suspend fun syncLocationsOfInterest(survey: Survey): Unit =
+    perfTracer.trace(LOI_SYNC_TRACE) { trace ->
+      val watermark = localValueStore.getLoiSyncWatermark(survey.id)
+      val now = System.currentTimeMillis()
+      if (watermark == null || isFullSyncDue(survey.id, now)) {
+        trace.putAttribute(SYNC_TYPE_ATTRIBUTE, FULL_SYNC)
+        val lois = remoteDataStore.loadLocationsOfInterest(survey)
+        trace.putMetric(LOIS_METRIC, lois.size.toLong())
+        mergeAll(survey.id, lois)
+        localValueStore.setLastFullLoiSyncTime(survey.id, now)
+        localValueStore.setLoiSyncWatermark(survey.id, latestServerTimestamp(lois) ?: 0)
+      } else {
+        trace.putAttribute(SYNC_TYPE_ATTRIBUTE, INCREMENTAL_SYNC)
+        val lois = remoteDataStore.loadLocationsOfInterestModifiedSince(survey, Date(watermark))
+        Timber.d("${lois.size} LOIs modified in survey ${survey.id} since $watermark")
+        trace.putMetric(LOIS_METRIC, lois.size.toLong())
+        localLoiStore.insertOrUpdateAll(lois)
+        latestServerTimestamp(lois)?.let { localValueStore.setLoiSyncWatermark(survey.id, it) }
+      }
+    }
+
+  private fun isFullSyncDue(surveyId: String, now: Long): Boolean {
+    val lastFullSyncTime = localValueStore.getLastFullLoiSyncTime(surveyId) ?: return true
+    // Also treat times in the future as stale in case the device clock was changed.
+    return now - lastFullSyncTime !in 0L until FULL_SYNC_INTERVAL_MILLIS
   }
 
-  private suspend fun mergeAll(surveyId: String, lois: List<LocationOfInterest>) {
-    // Insert new or update existing LOIs in local db.
-    lois.forEach { localLoiStore.insertOrUpdate(it) }
+  private fun latestServerTimestamp(lois: List<LocationOfInterest>): Long? =
+    lois.mapNotNull { it.lastModified.serverTimestamp.orElse(null)?.time }.maxOrNull()
 
-    // Delete LOIs in local db not returned in latest list from server.
-    localLoiStore.deleteNotIn(surveyId, lois.map { it.id })
+  private suspend fun mergeAll(surveyId: String, lois: List<LocationOfInterest>) {
+    // Insert new or update existing LOIs in local db, and delete LOIs in local db not returned in
+    // latest list from server.
+    localLoiStore.replaceAll(surveyId, lois)
   }
 
   /** This only works if the survey and location of interests are already cached to local db. */
@@ -102,7 +137,7 @@ constructor(
    */
   fun applyAndEnqueue(mutation: LocationOfInterestMutation): @Cold Completable {
     val localTransaction = localLoiStore.applyAndEnqueue(mutation)
-    val remoteSync = mutationSyncWorkManager.enqueueSyncWorker(mutation.locationOfInterestId)
+    val remoteSync = mutationSyncWorkManager.enqueueSyncWorker()
     return localTransaction.andThen(remoteSync)
   }
 
@@ -125,16 +160,30 @@ constructor(
   fun getLocationsOfInterestOnceAndStream(survey: Survey): Flowable<Set<LocationOfInterest>> =
     localLoiStore.getLocationsOfInterestOnceAndStream(survey)
 
-  /** Returns a flowable of all [LocationOfInterest] within the map bounds (viewport). */
+  /**
+   * Returns a flowable of all [LocationOfInterest] within the map bounds (viewport). Only LOIs whose
+   * bounding boxes intersect the viewport are loaded from the local db.
+   */
   fun getWithinBoundsOnceAndStream(
     survey: Survey,
     cameraBoundUpdates: Flowable<Bounds>
   ): Flowable<List<LocationOfInterest>> =
     cameraBoundUpdates
       .switchMap { bounds ->
-        getLocationsOfInterestOnceAndStream(survey).map { lois ->
+        localLoiStore.getWithinBoundsOnceAndStream(survey, bounds).map { lois ->
           lois.filter { bounds.contains(it.geometry) }
         }
       }
       .distinctUntilChanged()
+
+  companion object {
+    /** Maximum time between downloads of all LOIs in a survey. */
+    private const val FULL_SYNC_INTERVAL_MILLIS = 24 * 60 * 60 * 1000L
+
+    private const val LOI_SYNC_TRACE = "loi_sync"
+    private const val LOIS_METRIC = "lois"
+    private const val SYNC_TYPE_ATTRIBUTE = "sync_type"
+    private const val FULL_SYNC = "full"
+    private const val INCREMENTAL_SYNC = "incremental"
+  }
 }
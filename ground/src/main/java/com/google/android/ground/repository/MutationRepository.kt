@@ -16,24 +16,25 @@
 
 package com.google.android.ground.repository
 
-import com.google.android.ground.model.Survey
+import androidx.paging.PagingData
 import com.google.android.ground.model.mutation.LocationOfInterestMutation
 import com.google.android.ground.model.mutation.Mutation
+import com.google.android.ground.model.mutation.MutationSummary
 import com.google.android.ground.model.mutation.SubmissionMutation
 import com.google.android.ground.persistence.local.room.converter.toModelObject
 import com.google.android.ground.persistence.local.room.entity.SubmissionMutationEntity
 import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
 import com.google.android.ground.persistence.local.stores.LocalLocationOfInterestStore
+import com.google.android.ground.persistence.local.stores.LocalMutationSyncStore
 import com.google.android.ground.persistence.local.stores.LocalSubmissionStore
 import com.google.android.ground.persistence.local.stores.LocalSurveyStore
 import com.google.android.ground.rx.Schedulers
 import com.google.android.ground.rx.annotations.Cold
-import io.reactivex.Completable
-import io.reactivex.Flowable
 import io.reactivex.Observable
 import io.reactivex.Single
 import javax.inject.Inject
 import javax.inject.Singleton
+import kotlinx.coroutines.flow.Flow
 import timber.log.Timber
 
 /**
@@ -47,116 +48,60 @@ constructor(
   private val localSurveyStore: LocalSurveyStore,
   private val localLocationOfInterestStore: LocalLocationOfInterestStore,
   private val localSubmissionStore: LocalSubmissionStore,
+  private val localMutationSyncStore: LocalMutationSyncStore,
   private val schedulers: Schedulers
 ) {
   /**
-   * Returns a long-lived stream that emits the full list of mutations for specified survey on
-   * subscribe and a new list on each subsequent change.
+   * Returns pages of summaries of the LOI and submission mutations in the specified survey, most
+   * recent first. Pages are loaded from the local db on demand, so this is suitable for displaying
+   * arbitrarily long mutation queues.
    */
-  fun getMutationsOnceAndStream(
-    survey: Survey
-  ): @Cold(terminates = false) Flowable<List<Mutation>> {
-    // TODO: Show mutations for all surveys, not just current one.
-    val locationOfInterestMutations =
-      localLocationOfInterestStore
-        .getAllMutationsAndStream()
-        .map { it.filter { it.surveyId == survey.id }.map { it.toModelObject() } }
-        .subscribeOn(schedulers.io())
-    val submissionMutations =
-      localSubmissionStore
-        .getAllMutationsAndStream()
-        .map { list: List<SubmissionMutationEntity> ->
-          list.filter { it.surveyId == survey.id }.map { it.toModelObject(survey) }
-        }
-        .subscribeOn(schedulers.io())
-    return Flowable.combineLatest(
-      locationOfInterestMutations,
-      submissionMutations,
-      this::combineAndSortMutations
-    )
-  }
+  fun getMutationSummaries(surveyId: String): Flow<PagingData<MutationSummary>> =
+    localMutationSyncStore.getMutationSummaries(surveyId)
 
   /**
-   * Returns all LOI and submission mutations in the local mutation queue relating to LOI with the
-   * specified id.
+   * Returns all pending LOI and submission mutations in the local mutation queue, across all LOIs.
+   * LOI mutations are returned before submission mutations, each in the order they were enqueued.
    */
-  fun getPendingMutations(locationOfInterestId: String): Single<List<Mutation>> =
+  fun getAllPendingMutations(): @Cold Single<List<Mutation>> =
     localLocationOfInterestStore
-      .findByLocationOfInterestId(locationOfInterestId, MutationEntitySyncStatus.PENDING)
+      .findByState(MutationEntitySyncStatus.PENDING)
       .flattenAsObservable { it }
       .map { it.toModelObject() }
       .cast(Mutation::class.java)
-      .mergeWith(
+      .concatWith(
         localSubmissionStore
-          .findByLocationOfInterestId(locationOfInterestId, MutationEntitySyncStatus.PENDING)
+          .findByState(MutationEntitySyncStatus.PENDING)
           .flattenAsObservable { it }
-          .flatMap { ome ->
-            localSurveyStore
-              .getSurveyById(ome.surveyId)
-              .toSingle()
-              .map { ome.toModelObject(it) }
-              .toObservable()
-              .doOnError { Timber.e(it, "Submission mutation skipped") }
-              .onErrorResumeNext(Observable.empty())
-          }
-          .cast(Mutation::class.java)
+          .concatMap { toSubmissionMutation(it) }
       )
       .toList()
       .subscribeOn(schedulers.io())
 
-  /** Updates the provided list of mutations. */
-  fun updateMutations(mutations: List<Mutation>): Completable {
-    val loiMutations = mutations.filterIsInstance<LocationOfInterestMutation>()
-    val submissionMutations = mutations.filterIsInstance<SubmissionMutation>()
-
-    return localLocationOfInterestStore
-      .updateAll(loiMutations)
-      .andThen(localSubmissionStore.updateAll(submissionMutations))
-      .subscribeOn(schedulers.io())
-  }
+  private fun toSubmissionMutation(entity: SubmissionMutationEntity): Observable<Mutation> =
+    localSurveyStore
+      .getSurveyById(entity.surveyId)
+      .toSingle()
+      .map<Mutation> { entity.toModelObject(it) }
+      .toObservable()
+      .doOnError { Timber.e(it, "Submission mutation skipped") }
+      .onErrorResumeNext(Observable.empty())
 
   /**
-   * Mark pending mutations as complete. If the mutation is of type DELETE, also removes the
-   * corresponding submission or LOI.
+   * Marks [completed] mutations as such, removing LOIs and submissions deleted by them, and saves
+   * the updated retry state of [failed] mutations, all in a single local transaction. Completed
+   * mutations beyond the most recent [MAX_COMPLETED_MUTATIONS] of each kind are then discarded, so
+   * that the mutation tables don't grow with the lifetime history of the app. Main-safe.
    */
-  fun finalizePendingMutations(mutations: List<Mutation>): Completable =
-    finalizeDeletions(mutations).andThen(markComplete(mutations))
-
-  private fun finalizeDeletions(mutations: List<Mutation>): Completable =
-    Observable.fromIterable(mutations)
-      .filter { it.type === Mutation.Type.DELETE }
-      .flatMapCompletable { mutation ->
-        when (mutation) {
-          is SubmissionMutation -> {
-            localSubmissionStore.deleteSubmission(mutation.submissionId)
-          }
-          is LocationOfInterestMutation -> {
-            localLocationOfInterestStore.deleteLocationOfInterest(mutation.locationOfInterestId)
-          }
-        }
-      }
-
-  private fun markComplete(mutations: List<Mutation>): Completable {
-    val locationOfInterestMutations =
-      LocationOfInterestMutation.filter(mutations).map {
-        it.copy(syncStatus = Mutation.SyncStatus.COMPLETED)
-      }
-    val submissionMutations =
-      SubmissionMutation.filter(mutations).map {
-        it.copy(syncStatus = Mutation.SyncStatus.COMPLETED)
-      }
-
-    return localLocationOfInterestStore
-      .updateAll(locationOfInterestMutations)
-      .andThen(localSubmissionStore.updateAll(submissionMutations).subscribeOn(schedulers.io()))
-      .subscribeOn(schedulers.io())
+  suspend fun finalizeSyncedMutations(completed: List<Mutation>, failed: List<Mutation>) {
+    localMutationSyncStore.finalizeAll(completed, failed)
+    if (completed.isNotEmpty()) {
+      localMutationSyncStore.deleteCompletedMutations(MAX_COMPLETED_MUTATIONS)
+    }
   }
 
-  private fun combineAndSortMutations(
-    locationOfInterestMutations: List<LocationOfInterestMutation>,
-    submissionMutations: List<SubmissionMutation>
-  ): List<Mutation> =
-    (locationOfInterestMutations + submissionMutations).sortedWith(
-      Mutation.byDescendingClientTimestamp()
-    )
+  companion object {
+    /** Number of completed mutations of each kind to keep for display after sync. */
+    const val MAX_COMPLETED_MUTATIONS = 1000
+  }
 }
@@ -38,6 +38,7 @@ import io.reactivex.Single
 import java.util.concurrent.TimeUnit
 import javax.inject.Inject
 import javax.inject.Singleton
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.rx2.await
 import timber.log.Timber
 
@@ -101,6 +102,14 @@ constructor(
     return remoteSync.andThen(localSubmissionStore.getSubmissions(locationOfInterest, jobId))
   }
 
+  /**
+   * Returns the number of locally stored submissions for the specified location of interest,
+   * followed by the new count each time it changes. Reads only from the local data store, so it is
+   * cheap enough to be observed from list items.
+   */
+  fun getSubmissionCountOnceAndStream(loi: LocationOfInterest): Flow<Int> =
+    localSubmissionStore.getSubmissionCountOnceAndStream(loi, loi.job.id)
+
   private fun mergeRemoteSubmissions(submissions: List<Result<Submission>>): @Cold Completable =
     Observable.fromIterable(submissions)
       .doOnNext { result: Result<Submission> ->
@@ -185,7 +194,7 @@ constructor(
   private fun applyAndEnqueue(mutation: SubmissionMutation): @Cold Completable =
     localSubmissionStore
       .applyAndEnqueue(mutation)
-      .andThen(mutationSyncWorkManager.enqueueSyncWorker(mutation.locationOfInterestId))
+      .andThen(mutationSyncWorkManager.enqueueSyncWorker())
 
   /**
    * Returns all [SubmissionMutation] instances for a given location of interest which have not yet
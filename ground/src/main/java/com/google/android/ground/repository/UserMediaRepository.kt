@@ -17,10 +17,14 @@ package com.google.android.ground.repository
 
 import android.content.Context
 import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Matrix
+import android.media.ExifInterface
 import android.net.Uri
 import android.os.Environment
 import android.provider.MediaStore
 import com.google.android.ground.Config
+import com.google.android.ground.coroutines.IoDispatcher
 import com.google.android.ground.persistence.remote.RemoteStorageManager
 import com.google.android.ground.persistence.uuid.OfflineUuidGenerator
 import com.google.android.ground.rx.annotations.Cold
@@ -32,6 +36,9 @@ import java.io.FileOutputStream
 import java.io.IOException
 import javax.inject.Inject
 import javax.inject.Singleton
+import kotlin.math.roundToInt
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.withContext
 import timber.log.Timber
 
 /**
@@ -44,7 +51,8 @@ class UserMediaRepository
 constructor(
   @param:ApplicationContext private val context: Context,
   private val remoteStorageManager: RemoteStorageManager,
-  private val uuidGenerator: OfflineUuidGenerator
+  private val uuidGenerator: OfflineUuidGenerator,
+  @IoDispatcher private val ioDispatcher: CoroutineDispatcher
 ) {
 
   private var strFilePattern = Regex("^[a-zA-Z0-9._ -]+\\.(png|jpg)$")
@@ -58,17 +66,77 @@ constructor(
   fun createImageFile(fieldId: String): File = File(rootDir, createImageFilename(fieldId))
 
   /**
-   * Creates a new file from bitmap and saves under external app directory.
+   * Creates a new file from bitmap and saves under external app directory, downscaled to at most
+   * [Config.PHOTO_MAX_DIMENSION_PX] and encoded at [Config.PHOTO_JPEG_QUALITY]. Main-safe.
    *
    * @throws IOException If path is not accessible or error occurs while saving file
    */
   @Throws(IOException::class)
-  fun savePhoto(bitmap: Bitmap, fieldId: String): File =
-    createImageFile(fieldId).apply {
-      FileOutputStream(this).use { fos -> bitmap.compress(Bitmap.CompressFormat.JPEG, 100, fos) }
-      Timber.d("Photo saved %s : %b", path, exists())
+  suspend fun savePhoto(bitmap: Bitmap, fieldId: String): File =
+    withContext(ioDispatcher) {
+      createImageFile(fieldId).apply {
+        writeJpeg(scaleToFit(bitmap), this)
+        Timber.d("Photo saved %s : %b", path, exists())
+      }
     }
 
+  /**
+   * Replaces the full resolution photo in the specified file with a copy downscaled to at most
+   * [Config.PHOTO_MAX_DIMENSION_PX] and encoded at [Config.PHOTO_JPEG_QUALITY], rotated upright
+   * according to its EXIF orientation. Photos which are already small enough are left as-is.
+   * Main-safe.
+   *
+   * @throws IOException If the file can't be read or written
+   */
+  @Throws(IOException::class)
+  suspend fun downscalePhoto(file: File): File =
+    withContext(ioDispatcher) {
+      val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+      BitmapFactory.decodeFile(file.path, bounds)
+      if (bounds.outWidth <= 0 || bounds.outHeight <= 0) throw IOException("Can't decode $file")
+      if (maxOf(bounds.outWidth, bounds.outHeight) <= Config.PHOTO_MAX_DIMENSION_PX) {
+        return@withContext file
+      }
+      val options =
+        BitmapFactory.Options().apply {
+          inSampleSize =
+            calculateInSampleSize(bounds.outWidth, bounds.outHeight, Config.PHOTO_MAX_DIMENSION_PX)
+        }
+      val sampled =
+        BitmapFactory.decodeFile(file.path, options) ?: throw IOException("Can't decode $file")
+      val bitmap = rotateUpright(scaleToFit(sampled), ExifInterface(file.path))
+      // Write to a temporary file first so that the original isn't lost if writing fails.
+      val tempFile = File(file.parentFile, file.name + ".tmp")
+      writeJpeg(bitmap, tempFile)
+      if (!tempFile.renameTo(file)) throw IOException("Couldn't replace $file")
+      Timber.d("Photo downscaled from %dx%d: %s", bounds.outWidth, bounds.outHeight, file.path)
+      file
+    }
+
+  private fun writeJpeg(bitmap: Bitmap, file: File) =
+    FileOutputStream(file).use { fos ->
+      bitmap.compress(Bitmap.CompressFormat.JPEG, Config.PHOTO_JPEG_QUALITY, fos)
+    }
+
+  /** Returns [bitmap] scaled down to fit within [Config.PHOTO_MAX_DIMENSION_PX], if needed. */
+  private fun scaleToFit(bitmap: Bitmap): Bitmap {
+    val (width, height) = scaledSize(bitmap.width, bitmap.height, Config.PHOTO_MAX_DIMENSION_PX)
+    return if (width == bitmap.width && height == bitmap.height) bitmap
+    else Bitmap.createScaledBitmap(bitmap, width, height, true)
+  }
+
+  private fun rotateUpright(bitmap: Bitmap, exif: ExifInterface): Bitmap {
+    val degrees =
+      when (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+        ExifInterface.ORIENTATION_ROTATE_90 -> 90f
+        ExifInterface.ORIENTATION_ROTATE_180 -> 180f
+        ExifInterface.ORIENTATION_ROTATE_270 -> 270f
+        else -> return bitmap
+      }
+    val matrix = Matrix().apply { postRotate(degrees) }
+    return Bitmap.createBitmap(bitmap, 0, 0, bitmap.width, bitmap.height, matrix, true)
+  }
+
   @Throws(FileNotFoundException::class)
   fun addImageToGallery(filePath: String, title: String): String =
     MediaStore.Images.Media.insertImage(context.contentResolver, filePath, title, "")
@@ -105,4 +173,27 @@ constructor(
     }
     return file
   }
+
+  companion object {
+    /**
+     * Returns the largest power of two by which an image of the specified size can be subsampled
+     * on decode while remaining at least [maxDimension] pixels in its larger dimension.
+     */
+    internal fun calculateInSampleSize(width: Int, height: Int, maxDimension: Int): Int {
+      var sampleSize = 1
+      while (maxOf(width, height) / (sampleSize * 2) >= maxDimension) sampleSize *= 2
+      return sampleSize
+    }
+
+    /**
+     * Returns the size of an image of the specified size scaled proportionally so that neither
+     * dimension exceeds [maxDimension]. Images which already fit are returned at their own size.
+     */
+    internal fun scaledSize(width: Int, height: Int, maxDimension: Int): Pair<Int, Int> {
+      val largest = maxOf(width, height)
+      if (largest <= maxDimension) return width to height
+      val scale = maxDimension.toDouble() / largest
+      return maxOf(1, (width * scale).roundToInt()) to maxOf(1, (height * scale).roundToInt())
+    }
+  }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.rx
+
+import io.reactivex.Completable
+import io.reactivex.CompletableObserver
+import io.reactivex.CompletableSource
+import io.reactivex.Flowable
+import io.reactivex.FlowableSubscriber
+import io.reactivex.Maybe
+import io.reactivex.MaybeObserver
+import io.reactivex.MaybeSource
+import io.reactivex.Observable
+import io.reactivex.ObservableSource
+import io.reactivex.Observer
+import io.reactivex.Single
+import io.reactivex.SingleObserver
+import io.reactivex.SingleSource
+import io.reactivex.disposables.Disposable
+import io.reactivex.plugins.RxJavaPlugins
+import java.util.concurrent.Callable
+import java.util.concurrent.ThreadLocalRandom
+import org.reactivestreams.Publisher
+import org.reactivestreams.Subscriber
+import org.reactivestreams.Subscription
+import timber.log.Timber
+
+/**
+ * Captures the stack traces at which a sample of Rx streams are assembled, so that errors emitted
+ * asynchronously can be traced back to the code which built the failing stream. Capturing a stack
+ * trace is expensive, so only a fraction of assemblies are traced, and errors emitted by streams
+ * which weren't sampled are left unchanged.
+ *
+ * When an error passes through a traced stream, an [AssemblyTrace] is attached to it as a
+ * suppressed exception, and the app frame at which the stream was assembled is logged, which in
+ * release builds also adds it to Crashlytics logs.
+ */
+object RxAssemblyTracking {
+
+  /**
+   * Starts tracing the assembly of the specified fraction of Rx streams, from 0 (none) to 1 (all),
+   * replacing any previously installed assembly hooks. [appPackage] identifies the frames reported
+   * as the assembly site.
+   */
+  fun enable(sampleRate: Double, appPackage: String) {
+    require(sampleRate in 0.0..1.0) { "Sample rate must be between 0 and 1: $sampleRate" }
+    disable()
+    if (sampleRate == 0.0) return
+    val sampler = Sampler(sampleRate, appPackage)
+    RxJavaPlugins.setOnObservableAssembly { sampler.trace(it) }
+    RxJavaPlugins.setOnFlowableAssembly { sampler.trace(it) }
+    RxJavaPlugins.setOnSingleAssembly { sampler.trace(it) }
+    RxJavaPlugins.setOnMaybeAssembly { sampler.trace(it) }
+    RxJavaPlugins.setOnCompletableAssembly { sampler.trace(it) }
+  }
+
+  /** Stops tracing the assembly of new streams. Streams already traced are left unchanged. */
+  fun disable() {
+    RxJavaPlugins.setOnObservableAssembly(null)
+    RxJavaPlugins.setOnFlowableAssembly(null)
+    RxJavaPlugins.setOnSingleAssembly(null)
+    RxJavaPlugins.setOnMaybeAssembly(null)
+    RxJavaPlugins.setOnCompletableAssembly(null)
+  }
+
+  /** The stack trace at which a traced Rx stream was assembled. */
+  class AssemblyTrace internal constructor(private val appPackage: String) :
+    RuntimeException("Rx stream assembly") {
+
+    /** The innermost app frame at which the stream was assembled, if any. */
+    val assemblySite: StackTraceElement? by lazy {
+      stackTrace.firstOrNull { it.className.startsWith(appPackage) && !isTrackingFrame(it) }
+    }
+
+    override val message: String
+      get() = "Rx stream assembled at ${assemblySite ?: "unknown site"}"
+
+    /** Attaches this trace to [error], unless it already carries an assembly trace. */
+    internal fun attachTo(error: Throwable): Throwable {
+      if (error.suppressed.none { it is AssemblyTrace }) {
+        error.addSuppressed(this)
+        Timber.w("$error in $message")
+      }
+      return error
+    }
+  }
+
+  private class Sampler(private val sampleRate: Double, private val appPackage: String) {
+    private fun shouldTrace(source: Any): Boolean =
+      // Sources such as just() and fromCallable() are left unwrapped since some operators
+      // special-case them, and since they're typically not where async errors originate.
+      source !is Callable<*> && ThreadLocalRandom.current().nextDouble() < sampleRate
+
+    fun <T> trace(source: Observable<T>): Observable<T> =
+      if (shouldTrace(source)) TracedObservable(source, AssemblyTrace(appPackage)) else source
+
+    fun <T> trace(source: Flowable<T>): Flowable<T> =
+      if (shouldTrace(source)) TracedFlowable(source, AssemblyTrace(appPackage)) else source
+
+    fun <T> trace(source: Single<T>): Single<T> =
+      if (shouldTrace(source)) TracedSingle(source, AssemblyTrace(appPackage)) else source
+
+    fun <T> trace(source: Maybe<T>): Maybe<T> =
+      if (shouldTrace(source)) TracedMaybe(source, AssemblyTrace(appPackage)) else source
+
+    fun trace(source: Completable): Completable =
+      if (shouldTrace(source)) TracedCompletable(source, AssemblyTrace(appPackage)) else source
+  }
+
+  private class TracedObservable<T>(
+    private val source: ObservableSource<T>,
+    private val trace: AssemblyTrace
+  ) : Observable<T>() {
+    override fun subscribeActual(observer: Observer<in T>) =
+      source.subscribe(
+        object : Observer<T> {
+          override fun onSubscribe(d: Disposable) = observer.onSubscribe(d)
+
+          override fun onNext(t: T) = observer.onNext(t)
+
+          override fun onError(e: Throwable) = observer.onError(trace.attachTo(e))
+
+          override fun onComplete() = observer.onComplete()
+        }
+      )
+  }
+
+  private class TracedFlowable<T>(
+    private val source: Publisher<T>,
+    private val trace: AssemblyTrace
+  ) : Flowable<T>() {
+    override fun subscribeActual(subscriber: Subscriber<in T>) =
+      source.subscribe(
+        object : FlowableSubscriber<T> {
+          override fun onSubscribe(s: Subscription) = subscriber.onSubscribe(s)
+
+          override fun onNext(t: T) = subscriber.onNext(t)
+
+          override fun onError(t: Throwable) = subscriber.onError(trace.attachTo(t))
+
+          override fun onComplete() = subscriber.onComplete()
+        }
+      )
+  }
+
+  private class TracedSingle<T>(
+    private val source: SingleSource<T>,
+    private val trace: AssemblyTrace
+  ) : Single<T>() {
+    override fun subscribeActual(observer: SingleObserver<in T>) =
+      source.subscribe(
+        object : SingleObserver<T> {
+          override fun onSubscribe(d: Disposable) = observer.onSubscribe(d)
+
+          override fun onSuccess(t: T) = observer.onSuccess(t)
+
+          override fun onError(e: Throwable) = observer.onError(trace.attachTo(e))
+        }
+      )
+  }
+
+  private class TracedMaybe<T>(
+    private val source: MaybeSource<T>,
+    private val trace: AssemblyTrace
+  ) : Maybe<T>() {
+    override fun subscribeActual(observer: MaybeObserver<in T>) =
+      source.subscribe(
+        object : MaybeObserver<T> {
+          override fun onSubscribe(d: Disposable) = observer.onSubscribe(d)
+
+          override fun onSuccess(t: T) = observer.onSuccess(t)
+
+          override fun onError(e: Throwable) = observer.onError(trace.attachTo(e))
+
+          override fun onComplete() = observer.onComplete()
+        }
+      )
+  }
+
+  private class TracedCompletable(
+    private val source: CompletableSource,
+    private val trace: AssemblyTrace
+  ) : Completable() {
+    override fun subscribeActual(observer: CompletableObserver) =
+      source.subscribe(
+        object : CompletableObserver {
+          override fun onSubscribe(d: Disposable) = observer.onSubscribe(d)
+
+          override fun onError(e: Throwable) = observer.onError(trace.attachTo(e))
+
+          override fun onComplete() = observer.onComplete()
+        }
+      )
+  }
+
+  private val TRACKING_CLASS_NAME = RxAssemblyTracking::class.java.name
+
+  private fun isTrackingFrame(frame: StackTraceElement) =
+    frame.className == TRACKING_CLASS_NAME || frame.className.startsWith("$TRACKING_CLASS_NAME$")
+}
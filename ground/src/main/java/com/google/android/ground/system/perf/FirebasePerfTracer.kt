@@ -0,0 +1,38 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.system.perf
+
+import com.google.firebase.perf.FirebasePerformance
+import com.google.firebase.perf.metrics.Trace
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/** Reports traces to Firebase Performance Monitoring. */
+@Singleton
+class FirebasePerfTracer @Inject constructor() : PerfTracer {
+  override fun startTrace(name: String): PerfTrace =
+    FirebasePerfTrace(FirebasePerformance.getInstance().newTrace(name).apply { start() })
+
+  private class FirebasePerfTrace(private val trace: Trace) : PerfTrace {
+    override fun putAttribute(name: String, value: String) = trace.putAttribute(name, value)
+
+    override fun incrementMetric(name: String, by: Long) = trace.incrementMetric(name, by)
+
+    override fun putMetric(name: String, value: Long) = trace.putMetric(name, value)
+
+    override fun stop() = trace.stop()
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.system.perf
+
+/**
+ * Records custom performance traces, such as the duration of a sync or the time taken to render
+ * features on the map, along with metrics and attributes describing the work done.
+ */
+interface PerfTracer {
+  /** Starts and returns a new trace with the specified name. */
+  fun startTrace(name: String): PerfTrace
+}
+
+/** A single timed span of work. Traces are reported once [stop] is called. */
+interface PerfTrace {
+  /** Sets an attribute used to filter and segment results, such as the type of sync. */
+  fun putAttribute(name: String, value: String)
+
+  /** Increments the specified counter by [by]. */
+  fun incrementMetric(name: String, by: Long = 1)
+
+  /** Sets the specified counter to [value], replacing any previous value. */
+  fun putMetric(name: String, value: Long)
+
+  /** Stops the trace. Calls to a stopped trace are ignored. */
+  fun stop()
+}
+
+/** Runs [block] within a trace with the specified name, stopping it once [block] returns. */
+inline fun <T> PerfTracer.trace(name: String, block: (PerfTrace) -> T): T {
+  val trace = startTrace(name)
+  try {
+    return block(trace)
+  } finally {
+    trace.stop()
+  }
+}
@@ -18,6 +18,7 @@ package com.google.android.ground.ui
 import android.content.Context
 import android.graphics.*
 import android.graphics.drawable.Drawable
+import android.util.LruCache
 import androidx.annotation.ColorInt
 import androidx.appcompat.content.res.AppCompatResources
 import androidx.core.content.res.ResourcesCompat
@@ -31,6 +32,26 @@ import javax.inject.Singleton
 
 @Singleton
 class MarkerIconFactory @Inject constructor(@ApplicationContext private val context: Context) {
+  /**
+   * Uniquely identifies a rendered icon. Only whether the zoom level is past the threshold affects
+   * the icon's scale, so zoom levels are bucketed accordingly.
+   */
+  private data class IconKey(
+    val color: Int,
+    val zoomedIn: Boolean,
+    val isSelected: Boolean,
+    val clusterLabel: String? = null
+  )
+
+  /** Recently rendered marker bitmaps, bounded by their total size in bytes. */
+  private val bitmapCache =
+    object : LruCache<IconKey, Bitmap>(BITMAP_CACHE_SIZE_BYTES) {
+      override fun sizeOf(key: IconKey, value: Bitmap): Int = value.byteCount
+    }
+
+  /** Recently created icons, bounded by number of entries. */
+  private val iconCache = LruCache<IconKey, BitmapDescriptor>(ICON_CACHE_SIZE)
+
   /** Create a scaled bitmap based on the dimensions of a given [Drawable]. */
   private fun createBitmap(
     drawable: Drawable,
@@ -40,7 +61,7 @@ class MarkerIconFactory @Inject constructor(@ApplicationContext private val cont
     // TODO: Adjust size based on selection state.
     var scale = ResourcesCompat.getFloat(context.resources, R.dimen.marker_bitmap_default_scale)
 
-    if (zoomLevel >= Config.ZOOM_LEVEL_THRESHOLD) {
+    if (isZoomedIn(zoomLevel)) {
       // Scale the drawable when we cross the app's zoom level threshold.
       scale = ResourcesCompat.getFloat(context.resources, R.dimen.marker_bitmap_zoomed_scale)
     }
@@ -56,8 +77,19 @@ class MarkerIconFactory @Inject constructor(@ApplicationContext private val cont
     return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
   }
 
-  /** Returns a [Bitmap] representing an individual marker on the map. */
+  private fun isZoomedIn(zoomLevel: Float) = zoomLevel >= Config.ZOOM_LEVEL_THRESHOLD
+
+  /**
+   * Returns a [Bitmap] representing an individual marker on the map. The returned bitmap may be
+   * shared and must not be modified.
+   */
   fun getMarkerBitmap(color: Int, currentZoomLevel: Float, isSelected: Boolean = false): Bitmap {
+    val key = IconKey(color, isZoomedIn(currentZoomLevel), isSelected)
+    return bitmapCache.get(key)
+      ?: renderMarkerBitmap(color, currentZoomLevel, isSelected).also { bitmapCache.put(key, it) }
+  }
+
+  private fun renderMarkerBitmap(color: Int, currentZoomLevel: Float, isSelected: Boolean): Bitmap {
     val outline = AppCompatResources.getDrawable(context, R.drawable.ic_marker_outline)
     val fill = AppCompatResources.getDrawable(context, R.drawable.ic_marker_fill)
     val overlay = AppCompatResources.getDrawable(context, R.drawable.ic_marker_overlay)
@@ -80,9 +112,10 @@ class MarkerIconFactory @Inject constructor(@ApplicationContext private val cont
     currentZoomLevel: Float,
     isSelected: Boolean = false
   ): BitmapDescriptor {
-    val bitmap = getMarkerBitmap(color, currentZoomLevel, isSelected)
-    // TODO: Cache rendered bitmaps.
-    return BitmapDescriptorFactory.fromBitmap(bitmap)
+    val key = IconKey(color, isZoomedIn(currentZoomLevel), isSelected)
+    return iconCache.get(key)
+      ?: BitmapDescriptorFactory.fromBitmap(getMarkerBitmap(color, currentZoomLevel, isSelected))
+        .also { iconCache.put(key, it) }
   }
 
   /** Returns a [BitmapDescriptor] for representing a marker cluster on the map. */
@@ -91,6 +124,13 @@ class MarkerIconFactory @Inject constructor(@ApplicationContext private val cont
     currentZoomLevel: Float,
     text: String,
   ): BitmapDescriptor {
+    val key = IconKey(color, isZoomedIn(currentZoomLevel), false, text)
+    return iconCache.get(key)
+      ?: BitmapDescriptorFactory.fromBitmap(renderClusterBitmap(color, currentZoomLevel, text))
+        .also { iconCache.put(key, it) }
+  }
+
+  private fun renderClusterBitmap(color: Int, currentZoomLevel: Float, text: String): Bitmap {
     val fill = AppCompatResources.getDrawable(context, R.drawable.cluster_marker)
     val bitmap = createBitmap(fill!!, currentZoomLevel, false)
     val canvas = Canvas(bitmap)
@@ -110,6 +150,11 @@ class MarkerIconFactory @Inject constructor(@ApplicationContext private val cont
 
     canvas.drawText(text, x.toFloat(), y.toFloat(), style)
 
-    return BitmapDescriptorFactory.fromBitmap(bitmap)
+    return bitmap
+  }
+
+  companion object {
+    private const val BITMAP_CACHE_SIZE_BYTES = 4 * 1024 * 1024
+    private const val ICON_CACHE_SIZE = 256
   }
 }
@@ -33,13 +33,16 @@ class LocationOfInterestHelper @Inject internal constructor(private val resource
   fun getLabel(locationOfInterest: Optional<LocationOfInterest>): String =
     locationOfInterest.map(::getLabel).orElse("")
 
-  fun getLabel(loi: LocationOfInterest): String {
-    val caption = loi.caption?.trim { it <= ' ' } ?: ""
-    return caption.ifEmpty { getLocationOfInterestType(loi) }
+  fun getLabel(loi: LocationOfInterest): String = getLabel(loi.caption, loi.geometry)
+
+  /** Returns the label of an LOI with the given caption and geometry, if known. */
+  fun getLabel(caption: String?, geometry: Geometry?): String {
+    val trimmedCaption = caption?.trim { it <= ' ' } ?: ""
+    return trimmedCaption.ifEmpty { geometry?.let(::getGeometryType) ?: "" }
   }
 
-  private fun getLocationOfInterestType(locationOfInterest: LocationOfInterest): String =
-    when (locationOfInterest.geometry) {
+  private fun getGeometryType(geometry: Geometry): String =
+    when (geometry) {
       is Polygon -> "Polygon"
       is Point -> "Point"
       is LineString -> "LineString"
@@ -48,9 +51,11 @@ class LocationOfInterestHelper @Inject internal constructor(private val resource
     }
 
   fun getSubtitle(locationOfInterest: Optional<LocationOfInterest>): String =
-    locationOfInterest
-      .map { resources.getString(R.string.layer_label_format, it.job.name) }
-      .orElse("")
+    locationOfInterest.map { getSubtitle(it.job.name) }.orElse("")
+
+  /** Returns the subtitle of an LOI in the job with the given name, or "" if it has no name. */
+  fun getSubtitle(jobName: String?): String =
+    jobName?.let { resources.getString(R.string.layer_label_format, it) } ?: ""
 
   private fun getUserName(locationOfInterest: Optional<LocationOfInterest>): Optional<String> =
     locationOfInterest.map(LocationOfInterest::created).map(AuditInfo::user).map(User::displayName)
@@ -20,6 +20,8 @@ import android.net.Uri
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.toLiveData
+import androidx.lifecycle.viewModelScope
+import com.google.android.ground.coroutines.IoDispatcher
 import com.google.android.ground.model.submission.TextTaskData.Companion.fromString
 import com.google.android.ground.model.task.Task
 import com.google.android.ground.persistence.remote.firebase.FirebaseStorageManager.Companion.getRemoteMediaPath
@@ -34,6 +36,9 @@ import io.reactivex.subjects.Subject
 import java.io.File
 import java.io.IOException
 import javax.inject.Inject
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import timber.log.Timber
 
 class PhotoTaskViewModel
@@ -41,6 +46,7 @@ class PhotoTaskViewModel
 constructor(
   private val userMediaRepository: UserMediaRepository,
   private val bitmapUtil: BitmapUtil,
+  @IoDispatcher private val ioDispatcher: CoroutineDispatcher,
   resources: Resources
 ) : AbstractTaskViewModel(resources) {
 
@@ -112,20 +118,25 @@ constructor(
       Timber.v("Photo cleared")
       return
     }
-    try {
-      val imageFile = getFileFromResult(photoResult.copy(isHandled = true))
-      val filename = imageFile.name
-      val path = imageFile.absolutePath
-
-      // Add image to gallery.
-      userMediaRepository.addImageToGallery(path, filename)
-
-      // Update taskData.
-      val remoteDestinationPath = getRemoteMediaPath(surveyId!!, filename)
-      updateResponse(remoteDestinationPath)
-    } catch (e: IOException) {
-      // TODO: Report error.
-      Timber.e(e, "Failed to save photo")
+    val currentSurveyId = surveyId!!
+    // Photos are downscaled and re-encoded before being saved, which is too slow for the main
+    // thread.
+    viewModelScope.launch {
+      try {
+        val imageFile = getFileFromResult(photoResult.copy(isHandled = true))
+        val filename = imageFile.name
+        val path = imageFile.absolutePath
+
+        // Add image to gallery.
+        withContext(ioDispatcher) { userMediaRepository.addImageToGallery(path, filename) }
+
+        // Update taskData.
+        val remoteDestinationPath = getRemoteMediaPath(currentSurveyId, filename)
+        updateResponse(remoteDestinationPath)
+      } catch (e: IOException) {
+        // TODO: Report error.
+        Timber.e(e, "Failed to save photo")
+      }
     }
   }
 
@@ -191,13 +202,13 @@ constructor(
   }
 
   @Throws(IOException::class)
-  private fun getFileFromResult(result: PhotoResult): File {
+  private suspend fun getFileFromResult(result: PhotoResult): File {
     if (result.bitmap != null) {
       return userMediaRepository.savePhoto(result.bitmap, result.taskId)
     }
     if (result.path != null) {
       Timber.d("Photo saved %s : %b", result.path, File(result.path).exists())
-      return File(result.path)
+      return userMediaRepository.downscalePhoto(File(result.path))
     }
 
     error("PhotoResult is empty")
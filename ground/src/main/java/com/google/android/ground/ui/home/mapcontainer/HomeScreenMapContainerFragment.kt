@@ -65,9 +65,6 @@ class HomeScreenMapContainerFragment : Hilt_HomeScreenMapContainerFragment() {
     mapFragment.locationOfInterestInteractions
       .`as`(RxAutoDispose.disposeOnDestroy(this))
       .subscribe { mapContainerViewModel.onFeatureClick(it) }
-    mapFragment.tileProviders.`as`(RxAutoDispose.disposeOnDestroy(this)).subscribe {
-      mapContainerViewModel.queueTileProvider(it)
-    }
 
     mapContainerViewModel
       .getZoomThresholdCrossed()
@@ -205,9 +202,4 @@ class HomeScreenMapContainerFragment : Hilt_HomeScreenMapContainerFragment() {
     Timber.v("Refresh markers after zoom threshold crossed")
     mapFragment.refresh()
   }
-
-  override fun onDestroy() {
-    mapContainerViewModel.closeProviders()
-    super.onDestroy()
-  }
 }
@@ -28,6 +28,7 @@ import com.google.android.ground.model.job.Job
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.repository.SubmissionRepository
 import com.google.android.material.card.MaterialCardView
+import kotlinx.coroutines.Job as CoroutineJob
 import kotlinx.coroutines.launch
 
 /**
@@ -127,6 +128,9 @@ class MapCardAdapter(
   class LoiViewHolder(internal val binding: LoiCardItemBinding) :
     CardViewHolder(binding.root, binding.loiCard) {
 
+    /** Observes the submission count of the currently bound LOI, if any. */
+    private var submissionCountJob: CoroutineJob? = null
+
     fun bind(
       submissionRepository: SubmissionRepository,
       lifecycleScope: LifecycleCoroutineScope,
@@ -136,10 +140,14 @@ class MapCardAdapter(
         loiName.text = LoiCardUtil.getDisplayLoiName(loi)
         jobName.text = LoiCardUtil.getJobName(loi)
 
-        lifecycleScope.launch {
-          val count = submissionRepository.getSubmissions(loi).size
-          submissions.text = LoiCardUtil.getSubmissionsText(count)
-        }
+        submissions.text = ""
+        submissionCountJob?.cancel()
+        submissionCountJob =
+          lifecycleScope.launch {
+            submissionRepository.getSubmissionCountOnceAndStream(loi).collect { count ->
+              submissions.text = LoiCardUtil.getSubmissionsText(count)
+            }
+          }
       }
     }
   }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map
+
+/**
+ * The changes required to go from one set of rendered [Feature]s to another. Features are matched
+ * by [Feature.Tag.id], so that a feature whose geometry or tag changed is reported as [changed]
+ * rather than being removed and re-added.
+ */
+data class FeatureDiff(
+  /** Features present only in the new set. */
+  val added: List<Feature>,
+  /** Features present only in the old set. */
+  val removed: List<Feature>,
+  /** Pairs of old and new features with the same id which are not equal. */
+  val changed: List<Pair<Feature, Feature>>
+) {
+  fun isEmpty() = added.isEmpty() && removed.isEmpty() && changed.isEmpty()
+
+  override fun toString() = "${added.size} added, ${removed.size} removed, ${changed.size} changed"
+
+  companion object {
+    /** Returns the diff between the currently rendered features, keyed by id, and [newFeatures]. */
+    fun between(oldFeatures: Map<String, Feature>, newFeatures: Collection<Feature>): FeatureDiff {
+      val added = mutableListOf<Feature>()
+      val changed = mutableListOf<Pair<Feature, Feature>>()
+      val newIds = HashSet<String>(newFeatures.size)
+      newFeatures.forEach { feature ->
+        newIds.add(feature.tag.id)
+        val oldFeature = oldFeatures[feature.tag.id]
+        if (oldFeature == null) {
+          added.add(feature)
+        } else if (oldFeature != feature) {
+          changed.add(oldFeature to feature)
+        }
+      }
+      val removed = oldFeatures.values.filterNot { newIds.contains(it.tag.id) }
+      return FeatureDiff(added, removed, changed)
+    }
+  }
+}
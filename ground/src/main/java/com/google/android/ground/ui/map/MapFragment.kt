@@ -17,7 +17,6 @@ package com.google.android.ground.ui.map
 
 import android.annotation.SuppressLint
 import androidx.annotation.IdRes
-import com.cocoahero.android.gmaps.addons.mapbox.MapBoxOfflineTileProvider
 import com.google.android.ground.model.geometry.Coordinate
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.rx.Nil
@@ -56,10 +55,6 @@ interface MapFragment {
    */
   val cameraMovedEvents: @Hot Flowable<CameraPosition>
 
-  // TODO(#691): Create interface and impl to encapsulate MapBoxOfflineTileProvider impl.
-  /** Returns TileProviders associated with this map adapter. */
-  val tileProviders: @Hot Observable<MapBoxOfflineTileProvider>
-
   /** Adds the [MapFragment] to a fragment. */
   fun attachToFragment(
     containerFragment: AbstractFragment,
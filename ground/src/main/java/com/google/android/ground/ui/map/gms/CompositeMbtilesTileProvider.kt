@@ -0,0 +1,154 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map.gms
+
+import android.database.sqlite.SQLiteException
+import android.util.LruCache
+import com.google.android.gms.maps.model.Tile
+import com.google.android.gms.maps.model.TileProvider
+import com.google.android.ground.model.geometry.Envelope
+import com.google.android.ground.ui.map.gms.MbtilesTileProvider.Companion.openReadOnly
+import com.google.android.ground.ui.map.gms.MbtilesTileProvider.Companion.readMetadata
+import com.google.android.ground.util.StrTree
+import java.io.Closeable
+import java.io.File
+import kotlin.math.PI
+import kotlin.math.atan
+import kotlin.math.sinh
+import timber.log.Timber
+
+/**
+ * Serves tiles from any number of MBTiles files through a single overlay.
+ *
+ * The bounds and zoom range of each file are read from its metadata and indexed, so that each tile
+ * request is only routed to files which may contain it. Where files overlap, the tile from the
+ * first file listed is returned. Files are opened when first needed, and at most [maxOpenFiles]
+ * are kept open at once, least recently used first to be closed. The tile cache budget of a single
+ * [MbtilesTileProvider] is split between the open files, so that the memory used by cached tiles
+ * doesn't grow with the number of files.
+ *
+ * [close] must be called once the provider is no longer needed to release open files.
+ */
+class CompositeMbtilesTileProvider
+internal constructor(
+  private val files: Collection<File>,
+  private val maxOpenFiles: Int,
+  /**
+   * Creates the provider serving tiles from a file, given the maximum size of its tile cache.
+   * Replaced in tests.
+   */
+  private val createProvider: (File, Int) -> MbtilesTileProvider
+) : TileProvider, Closeable {
+  constructor(
+    files: Collection<File>,
+    maxOpenFiles: Int = DEFAULT_MAX_OPEN_FILES
+  ) : this(files, maxOpenFiles, { file, cacheSize -> MbtilesTileProvider(file, cacheSize) })
+
+  private class Source(val order: Int, val file: File, val minZoom: Int, val maxZoom: Int)
+
+  /** Built on first request, since reading metadata from every file is too slow for the UI. */
+  private val index: StrTree<Source> by lazy {
+    StrTree(files.mapIndexed { i, file -> readSource(i, file) }.filterNotNull())
+  }
+
+  private val tileCacheSizeBytes = MbtilesTileProvider.TILE_CACHE_SIZE_BYTES / maxOpenFiles
+
+  private val openProviders =
+    object : LruCache<File, MbtilesTileProvider>(maxOpenFiles) {
+      override fun create(key: File): MbtilesTileProvider? =
+        if (closed) null else createProvider(key, tileCacheSizeBytes)
+
+      override fun entryRemoved(
+        evicted: Boolean,
+        key: File,
+        oldValue: MbtilesTileProvider,
+        newValue: MbtilesTileProvider?
+      ) = oldValue.close()
+    }
+
+  @Volatile private var closed = false
+
+  override fun getTile(x: Int, y: Int, z: Int): Tile? {
+    if (closed) return TileProvider.NO_TILE
+    val sources =
+      index
+        .query(tileEnvelope(x, y, z))
+        .filter { z in it.minZoom..it.maxZoom }
+        .sortedBy { it.order }
+    for (source in sources) {
+      val tile = getTile(source.file, x, y, z)
+      if (tile != null && tile != TileProvider.NO_TILE) return tile
+    }
+    return TileProvider.NO_TILE
+  }
+
+  private fun getTile(file: File, x: Int, y: Int, z: Int): Tile? {
+    val provider = openProviders[file] ?: return TileProvider.NO_TILE
+    val tile = provider.getTile(x, y, z)
+    // Retry once if the file was evicted and closed by another thread during the lookup.
+    if (tile == TileProvider.NO_TILE && provider.isClosed && !closed) {
+      return openProviders[file]?.getTile(x, y, z)
+    }
+    return tile
+  }
+
+  override fun close() {
+    closed = true
+    openProviders.evictAll()
+  }
+
+  companion object {
+    private const val DEFAULT_MAX_OPEN_FILES = 16
+
+    private val WORLD = Envelope(-90.0, -180.0, 90.0, 180.0)
+
+    /** Returns the area covered by the specified tile in the Web Mercator XYZ tiling scheme. */
+    internal fun tileEnvelope(x: Int, y: Int, z: Int): Envelope {
+      val tileCount = (1 shl z).toDouble()
+      fun lng(x: Int) = x / tileCount * 360.0 - 180.0
+      fun lat(y: Int) = Math.toDegrees(atan(sinh(PI * (1 - 2 * y / tileCount))))
+      return Envelope(lat(y + 1), lng(x), lat(y), lng(x + 1))
+    }
+
+    /**
+     * Reads the bounds and zoom range of the specified file from its metadata. Missing values
+     * default to the whole world and all zoom levels. Returns `null` if the file can't be read.
+     */
+    private fun readSource(order: Int, file: File): Pair<Envelope, Source>? =
+      try {
+        val metadata = openReadOnly(file).use { it.readMetadata() }
+        val source =
+          Source(
+            order,
+            file,
+            metadata["minzoom"]?.toIntOrNull() ?: Int.MIN_VALUE,
+            metadata["maxzoom"]?.toIntOrNull() ?: Int.MAX_VALUE
+          )
+        (metadata["bounds"]?.let { parseBounds(it) } ?: WORLD) to source
+      } catch (e: SQLiteException) {
+        Timber.e(e, "Couldn't read metadata from mbtiles file $file")
+        null
+      }
+
+    /** Parses MBTiles bounds in the form "left,bottom,right,top", or returns `null` if invalid. */
+    private fun parseBounds(bounds: String): Envelope? {
+      val parts = bounds.split(",").map { it.trim().toDoubleOrNull() ?: return null }
+      if (parts.size != 4) return null
+      val (west, south, east, north) = parts
+      return Envelope(south, west, north, east)
+    }
+  }
+}
@@ -19,6 +19,7 @@ import android.location.Location
 import com.google.android.gms.maps.model.LatLng
 import com.google.android.gms.maps.model.LatLngBounds
 import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.CoordinateSequence
 import com.google.android.ground.model.geometry.Point
 import com.google.android.ground.ui.map.Bounds
 
@@ -36,4 +37,7 @@ fun LatLng.toCoordinate(): Coordinate = Coordinate(latitude, longitude)
 
 fun Point.toLatLng(): LatLng = LatLng(coordinate.lat, coordinate.lng)
 
+/** Returns a view of these coordinates as [LatLng]s, each allocated when accessed. */
+fun CoordinateSequence.toLatLngs(): List<LatLng> = view { lat, lng -> LatLng(lat, lng) }
+
 fun Location.toCoordinate(): Coordinate = Coordinate(latitude, longitude)
@@ -29,7 +29,7 @@ data class FeatureClusterItem(val feature: Feature) : ClusterItem {
       is Polygon -> feature.geometry.vertices[0].toLatLng()
       is LineString -> feature.geometry.coordinates[0].toGoogleMapsObject()
       is LinearRing -> feature.geometry.vertices[0].toLatLng()
-      is MultiPolygon -> feature.geometry.vertices[0].toLatLng()
+      is MultiPolygon -> feature.geometry.polygons[0].vertices[0].toLatLng()
     }
 
   override fun getTitle(): String? = null
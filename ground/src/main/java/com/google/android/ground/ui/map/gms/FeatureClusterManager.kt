@@ -24,51 +24,79 @@ import com.google.maps.android.clustering.ClusterManager
 import kotlinx.collections.immutable.toPersistentSet
 import timber.log.Timber
 
-/** Manages clusters of map [Feature]s. */
+/**
+ * Manages clusters of map [Feature]s.
+ *
+ * Cluster items are indexed by feature id alongside the clustering algorithm, so that adding,
+ * updating and removing features takes time proportional to the number of features changed rather
+ * than to the number of items already managed.
+ */
 class FeatureClusterManager(context: Context?, map: GoogleMap) :
   ClusterManager<FeatureClusterItem>(context, map) {
   var activeLocationOfInterest: String? = null
 
+  /** Items currently managed by the clustering algorithm, keyed by feature id. */
+  private val itemsById: MutableMap<String, FeatureClusterItem> = HashMap()
+
   /** Manage a given map feature and add it to an appropriate cluster. */
-  fun addOrUpdateLocationOfInterestFeature(feature: Feature) {
-    // TODO(#1152): Add support for polygons.
-    if (feature.geometry !is Point) {
-      Timber.d("can't manage a non-point")
-      return
-    }
+  fun addOrUpdateLocationOfInterestFeature(feature: Feature) =
+    addOrUpdateLocationOfInterestFeatures(listOf(feature))
+
+  /** Manage the given map features, adding or updating them in a single batch. */
+  fun addOrUpdateLocationOfInterestFeatures(features: Collection<Feature>) {
+    val newItems = mutableListOf<FeatureClusterItem>()
+    val staleItems = mutableListOf<FeatureClusterItem>()
+    features.forEach { feature ->
+      // TODO(#1152): Add support for polygons.
+      if (feature.geometry !is Point) {
+        Timber.d("can't manage a non-point")
+        return@forEach
+      }
 
-    // TODO(#1352): Re-evaluate the rendering of points for non LOI tag types.
-    if (
-      feature.tag.type == FeatureType.LOCATION_OF_INTEREST.ordinal ||
-        feature.tag.type == FeatureType.USER_POINT.ordinal
-    ) {
-      val clusterItem = algorithm.items.find { it.feature.tag.id == feature.tag.id }
-      if (clusterItem != null) {
-        updateItem(clusterItem)
-      } else {
-        Timber.d("adding loi to cluster manager: $feature")
-        addItem(FeatureClusterItem(feature))
+      // TODO(#1352): Re-evaluate the rendering of points for non LOI tag types.
+      if (
+        feature.tag.type == FeatureType.LOCATION_OF_INTEREST.ordinal ||
+          feature.tag.type == FeatureType.USER_POINT.ordinal
+      ) {
+        val item = FeatureClusterItem(feature)
+        val existingItem = itemsById.put(feature.tag.id, item)
+        if (existingItem == item) {
+          // Unchanged; mark for re-render only.
+          updateItem(item)
+        } else {
+          existingItem?.let { staleItems.add(it) }
+          newItems.add(item)
+        }
       }
     }
+    if (staleItems.isNotEmpty()) removeItems(staleItems)
+    if (newItems.isNotEmpty()) {
+      Timber.d("adding ${newItems.size} lois to cluster manager")
+      addItems(newItems)
+    }
   }
 
   /** Removes stale features from this manager's clusters. */
   fun removeStaleFeatures(features: Set<Feature>) {
-    val deletedIds = algorithm.items.map { it.feature.tag.id } - features.map { it.tag.id }.toSet()
-    val deletedFeatures = algorithm.items.filter { deletedIds.contains(it.feature.tag.id) }
+    val ids = features.mapTo(HashSet()) { it.tag.id }
+    removeFeatures(itemsById.keys.filterNot { ids.contains(it) }.toSet())
+  }
 
-    Timber.d("removing points: $deletedFeatures")
-    removeItems(deletedFeatures)
+  /** Removes the features with the specified ids from this manager's clusters. */
+  fun removeFeatures(ids: Set<String>) {
+    val deletedFeatures = ids.mapNotNull { itemsById.remove(it) }
+
+    Timber.d("removing ${deletedFeatures.size} points")
+    if (deletedFeatures.isNotEmpty()) removeItems(deletedFeatures)
   }
 
   /** Removes all features from this manager's clusters. */
   fun removeAllFeatures() {
-    val deletedFeatures = algorithm.items
-
-    Timber.d("removing points: $deletedFeatures")
-    removeItems(deletedFeatures)
+    Timber.d("removing ${itemsById.size} points")
+    itemsById.clear()
+    clearItems()
   }
 
   /** Returns all of the map [Feature]s currently managed by this cluster manager. */
-  fun getManagedFeatures() = algorithm.items.map { it.feature }.toPersistentSet()
+  fun getManagedFeatures() = itemsById.values.map { it.feature }.toPersistentSet()
 }
@@ -26,7 +26,6 @@ import android.widget.RelativeLayout
 import androidx.annotation.IdRes
 import androidx.core.view.ViewCompat
 import androidx.core.view.WindowInsetsCompat
-import com.cocoahero.android.gmaps.addons.mapbox.MapBoxOfflineTileProvider
 import com.google.android.gms.maps.CameraUpdateFactory
 import com.google.android.gms.maps.GoogleMap
 import com.google.android.gms.maps.GoogleMap.OnCameraMoveStartedListener
@@ -39,9 +38,12 @@ import com.google.android.ground.model.geometry.Polygon
 import com.google.android.ground.model.job.Style
 import com.google.android.ground.rx.Nil
 import com.google.android.ground.rx.annotations.Hot
+import com.google.android.ground.system.perf.PerfTracer
+import com.google.android.ground.system.perf.trace
 import com.google.android.ground.ui.common.AbstractFragment
 import com.google.android.ground.ui.map.*
 import com.google.android.ground.ui.map.CameraPosition
+import com.google.android.ground.ui.map.gms.renderer.FeatureRenderer
 import com.google.android.ground.ui.map.gms.renderer.PolygonRenderer
 import com.google.android.ground.ui.map.gms.renderer.PolylineRenderer
 import com.google.android.ground.ui.util.BitmapUtil
@@ -79,24 +81,29 @@ class GoogleMapsFragment : Hilt_GoogleMapsFragment(), MapFragment {
 
   override val cameraMovedEvents: @Hot Flowable<CameraPosition> = cameraMovedEventsProcessor
 
-  // TODO(#693): Simplify impl of tile providers.
-  // TODO(#691): This is a limitation of the MapBox tile provider we're using;
-  // since one need to call `close` explicitly, we cannot generically expose these as TileProviders;
-  // instead we must retain explicit reference to the concrete type.
-  private val tileProvidersSubject: @Hot PublishSubject<MapBoxOfflineTileProvider> =
-    PublishSubject.create()
+  /** The overlay showing tiles from downloaded MBTiles files, if any. */
+  private var localTileOverlay: TileOverlay? = null
 
-  override val tileProviders: @Hot Observable<MapBoxOfflineTileProvider> = tileProvidersSubject
+  /** The provider of [localTileOverlay], closed when it's replaced or the map is destroyed. */
+  private var localTileProvider: CompositeMbtilesTileProvider? = null
 
   private lateinit var polylineRenderer: PolylineRenderer
   private lateinit var polygonRenderer: PolygonRenderer
 
   @Inject lateinit var bitmapUtil: BitmapUtil
+  @Inject lateinit var webTileCache: WebTileCache
+  @Inject lateinit var perfTracer: PerfTracer
+
+  /** Providers of remote tile overlays, which prefetch tiles around the viewport when idle. */
+  private val webTileProviders = mutableListOf<WebTileProvider>()
 
   private lateinit var map: GoogleMap
 
   private lateinit var clusterManager: FeatureClusterManager
 
+  /** Features currently rendered on the map, keyed by [Feature.Tag.id]. */
+  private val renderedFeatures: MutableMap<String, Feature> = HashMap()
+
   /**
    * References to Google Maps SDK CustomCap present on the map. Used to set the custom drawable to
    * start and end of polygon.
@@ -166,6 +173,14 @@ class GoogleMapsFragment : Hilt_GoogleMapsFragment(), MapFragment {
       }
     }
 
+  override fun onDestroy() {
+    webTileProviders.forEach { it.close() }
+    webTileProviders.clear()
+    localTileProvider?.close()
+    localTileProvider = null
+    super.onDestroy()
+  }
+
   override fun attachToFragment(
     containerFragment: AbstractFragment,
     @IdRes containerId: Int,
@@ -288,23 +303,24 @@ class GoogleMapsFragment : Hilt_GoogleMapsFragment(), MapFragment {
     }
   }
 
-  private fun removeStaleFeatures(features: Set<Feature>) {
-    removeStalePoints(features)
-    polylineRenderer.removeStaleFeatures(features)
-    polygonRenderer.removeStaleFeatures(features)
-  }
-
-  private fun removeStalePoints(features: Set<Feature>) {
-    clusterManager.removeStaleFeatures(features)
-  }
-
   private fun removeAllFeatures() {
     clusterManager.removeAllFeatures()
     polylineRenderer.removeAllFeatures()
     polygonRenderer.removeAllFeatures()
+    renderedFeatures.clear()
   }
 
-  private fun addOrUpdateLocationOfInterest(feature: Feature) {
+  /** Returns the renderer for non-point geometries, or null for points, which are clustered. */
+  private fun rendererFor(geometry: Geometry): FeatureRenderer? =
+    when (geometry) {
+      is Point -> null
+      is LineString,
+      is LinearRing -> polylineRenderer
+      is Polygon,
+      is MultiPolygon -> polygonRenderer
+    }
+
+  private fun addFeature(feature: Feature) {
     when (feature.geometry) {
       is Point -> clusterManager.addOrUpdateLocationOfInterestFeature(feature)
       is LineString,
@@ -313,22 +329,60 @@ class GoogleMapsFragment : Hilt_GoogleMapsFragment(), MapFragment {
       is MultiPolygon ->
         feature.geometry.polygons.forEach { polygonRenderer.addFeature(feature, it) }
     }
+    renderedFeatures[feature.tag.id] = feature
+  }
+
+  private fun updateFeature(oldFeature: Feature, newFeature: Feature) {
+    val renderer = rendererFor(newFeature.geometry)
+    if (renderer != null && renderer == rendererFor(oldFeature.geometry)) {
+      if (renderer.updateFeature(newFeature)) {
+        renderedFeatures[newFeature.tag.id] = newFeature
+        return
+      }
+    }
+    removeFeatures(listOf(oldFeature))
+    addFeature(newFeature)
+  }
+
+  private fun removeFeatures(features: List<Feature>) {
+    val (points, shapes) = features.partition { it.geometry is Point }
+    if (points.isNotEmpty()) {
+      clusterManager.removeFeatures(points.map { it.tag.id }.toSet())
+    }
+    shapes.forEach { rendererFor(it.geometry)?.removeFeature(it.tag.id) }
+    features.forEach { renderedFeatures.remove(it.tag.id) }
   }
 
   override fun renderFeatures(features: Set<Feature>) {
-    // Re-cluster and re-render
-    if (features.isNotEmpty()) {
-      Timber.v("renderFeatures() called with ${features.size} locations of interest")
-      removeStaleFeatures(features)
-      Timber.v("Updating ${features.size} features")
-      features.forEach(this::addOrUpdateLocationOfInterest)
-    } else {
-      removeAllFeatures()
+    perfTracer.trace(RENDER_FEATURES_TRACE) { trace ->
+      trace.putMetric(FEATURES_METRIC, features.size.toLong())
+      if (features.isEmpty()) {
+        trace.putMetric(REMOVED_METRIC, renderedFeatures.size.toLong())
+        removeAllFeatures()
+      } else {
+        // Only add, update and remove features which differ from those already on the map.
+        val diff = FeatureDiff.between(renderedFeatures, features)
+        Timber.v("renderFeatures() called with ${features.size} features: $diff")
+        trace.putMetric(ADDED_METRIC, diff.added.size.toLong())
+        trace.putMetric(REMOVED_METRIC, diff.removed.size.toLong())
+        trace.putMetric(CHANGED_METRIC, diff.changed.size.toLong())
+        removeFeatures(diff.removed)
+        diff.changed.forEach { (oldFeature, newFeature) -> updateFeature(oldFeature, newFeature) }
+        // Add points to the cluster manager in a single batch.
+        val (points, shapes) = diff.added.partition { it.geometry is Point }
+        clusterManager.addOrUpdateLocationOfInterestFeatures(points)
+        points.forEach { renderedFeatures[it.tag.id] = it }
+        shapes.forEach(this::addFeature)
+      }
+      clusterManager.cluster()
     }
-    clusterManager.cluster()
   }
 
-  override fun refresh() = renderFeatures(clusterManager.getManagedFeatures())
+  override fun refresh() {
+    // Re-render markers to reflect changes in selection state and zoom level.
+    clusterManager.addOrUpdateLocationOfInterestFeatures(clusterManager.getManagedFeatures())
+    clusterManager.cluster()
+  }
 
   private fun parseColor(colorHexCode: String?): Int =
     try {
@@ -341,14 +395,12 @@ class GoogleMapsFragment : Hilt_GoogleMapsFragment(), MapFragment {
   private fun onCameraIdle() {
     clusterRenderer.zoom = map.cameraPosition.zoom
     clusterManager.onCameraIdle()
+    val zoom = map.cameraPosition.zoom
+    val bounds = map.projection.visibleRegion.latLngBounds.toModelObject()
     cameraMovedEventsProcessor.onNext(
-      CameraPosition(
-        map.cameraPosition.target.toCoordinate(),
-        map.cameraPosition.zoom,
-        false,
-        map.projection.visibleRegion.latLngBounds.toModelObject()
-      )
+      CameraPosition(map.cameraPosition.target.toCoordinate(), zoom, false, bounds)
     )
+    webTileProviders.forEach { it.prefetch(bounds, zoom.toInt()) }
   }
 
   private fun onCameraMoveStarted(reason: Int) {
@@ -357,28 +409,23 @@ class GoogleMapsFragment : Hilt_GoogleMapsFragment(), MapFragment {
     }
   }
 
-  private fun addTileOverlay(filePath: String) {
-    val mbtilesFile = File(requireContext().filesDir, filePath)
-
-    if (!mbtilesFile.exists()) {
-      Timber.i("mbtiles file ${mbtilesFile.absolutePath} does not exist")
-      return
-    }
-
-    try {
-      val tileProvider = MapBoxOfflineTileProvider(mbtilesFile)
-      tileProvidersSubject.onNext(tileProvider)
-      map.addTileOverlay(TileOverlayOptions().tileProvider(tileProvider))
-    } catch (e: Exception) {
-      Timber.e(e, "Couldn't initialize tile provider for mbtiles file $mbtilesFile")
-    }
+  override fun addLocalTileOverlays(mbtilesFiles: Set<String>) {
+    val (files, missingFiles) =
+      mbtilesFiles.map { File(requireContext().filesDir, it) }.partition { it.exists() }
+    missingFiles.forEach { Timber.i("mbtiles file ${it.absolutePath} does not exist") }
+    localTileOverlay?.remove()
+    localTileOverlay = null
+    localTileProvider?.close()
+    localTileProvider = null
+    if (files.isEmpty()) return
+    val tileProvider = CompositeMbtilesTileProvider(files)
+    localTileProvider = tileProvider
+    localTileOverlay = map.addTileOverlay(TileOverlayOptions().tileProvider(tileProvider))
   }
 
-  override fun addLocalTileOverlays(mbtilesFiles: Set<String>) =
-    mbtilesFiles.forEach { filePath -> addTileOverlay(filePath) }
-
   private fun addRemoteTileOverlay(url: String) {
-    val webTileProvider = WebTileProvider(url)
+    val webTileProvider = WebTileProvider(url, webTileCache)
+    webTileProviders.add(webTileProvider)
     map.addTileOverlay(TileOverlayOptions().tileProvider(webTileProvider))
   }
 
@@ -399,5 +446,11 @@ class GoogleMapsFragment : Hilt_GoogleMapsFragment(), MapFragment {
         MapType(GoogleMap.MAP_TYPE_TERRAIN, R.string.terrain, R.drawable.ic_type_terrain),
         MapType(GoogleMap.MAP_TYPE_HYBRID, R.string.satellite, R.drawable.ic_type_satellite)
       )
+
+    private const val RENDER_FEATURES_TRACE = "render_features"
+    private const val FEATURES_METRIC = "features"
+    private const val ADDED_METRIC = "added"
+    private const val REMOVED_METRIC = "removed"
+    private const val CHANGED_METRIC = "changed"
   }
 }
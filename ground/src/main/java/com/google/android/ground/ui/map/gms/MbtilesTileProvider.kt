@@ -0,0 +1,200 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map.gms
+
+import android.database.sqlite.SQLiteDatabase
+import android.database.sqlite.SQLiteDoneException
+import android.database.sqlite.SQLiteException
+import android.database.sqlite.SQLiteStatement
+import android.os.ParcelFileDescriptor
+import android.util.LruCache
+import com.google.android.gms.maps.model.Tile
+import com.google.android.gms.maps.model.TileProvider
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentLinkedQueue
+import timber.log.Timber
+
+/**
+ * Serves tiles from an MBTiles file.
+ *
+ * The Maps SDK requests tiles from several threads at once, so each thread gets its own read-only
+ * connection and compiled tile query, allowing lookups to run in parallel. Recently served tiles
+ * are kept in an LRU cache bounded by [tileCacheSizeBytes], and coordinates known to have no tile
+ * are remembered so that they aren't looked up again.
+ *
+ * The file isn't opened until the first tile request, since the provider may be created on the main
+ * thread. [close] must be called once the provider is no longer needed to release its connections.
+ */
+class MbtilesTileProvider
+internal constructor(
+  private val file: File,
+  /** Maximum total size of the tile images cached by this provider. */
+  tileCacheSizeBytes: Int,
+  /** Reads the tile data selected by the bound tile query. Replaced in tests. */
+  private val readTileData: (SQLiteStatement) -> ByteArray?
+) : TileProvider, Closeable {
+  constructor(
+    file: File,
+    tileCacheSizeBytes: Int = TILE_CACHE_SIZE_BYTES
+  ) : this(file, tileCacheSizeBytes, { readBlob(it) })
+
+  private class Connection(val db: SQLiteDatabase, val tileQuery: SQLiteStatement)
+
+  private val connections = ConcurrentLinkedQueue<Connection>()
+
+  private val threadConnection =
+    object : ThreadLocal<Connection>() {
+      override fun initialValue(): Connection {
+        val connection = openConnection()
+        connections.add(connection)
+        // Release the connection if the provider was closed while it was being opened.
+        if (closed) close()
+        return connection
+      }
+    }
+
+  @Volatile private var closed = false
+
+  /** Whether [close] has been called. A closed provider returns [TileProvider.NO_TILE]. */
+  val isClosed: Boolean
+    get() = closed
+
+  private val tileCache =
+    object : LruCache<Long, Tile>(tileCacheSizeBytes) {
+      override fun sizeOf(key: Long, value: Tile): Int = value.data?.size ?: 0
+    }
+
+  private val missingTiles = LruCache<Long, Unit>(MISSING_TILE_CACHE_SIZE)
+
+  /**
+   * The zoom levels in the file. Levels not specified in its metadata default to unbounded. Read
+   * on the first tile request, on the requesting thread.
+   */
+  private val zoomRange: IntRange by lazy {
+    val metadata = threadConnection.get()!!.db.readMetadata()
+    val minZoom = metadata["minzoom"]?.toIntOrNull() ?: Int.MIN_VALUE
+    val maxZoom = metadata["maxzoom"]?.toIntOrNull() ?: Int.MAX_VALUE
+    minZoom..maxZoom
+  }
+
+  override fun getTile(x: Int, y: Int, z: Int): Tile? {
+    if (closed) return TileProvider.NO_TILE
+    val key = tileKey(x, y, z)
+    tileCache[key]?.let {
+      return it
+    }
+    if (missingTiles[key] != null) return TileProvider.NO_TILE
+    val data =
+      try {
+        if (z !in zoomRange) return TileProvider.NO_TILE
+        queryTile(x, y, z)
+      } catch (e: SQLiteException) {
+        Timber.e(e, "Failed to read tile ($x, $y, $z) from $file")
+        return TileProvider.NO_TILE
+      } catch (e: IOException) {
+        Timber.e(e, "Failed to read tile ($x, $y, $z) from $file")
+        return TileProvider.NO_TILE
+      } catch (e: IllegalStateException) {
+        // Thrown when the provider is closed while the tile is being read.
+        return TileProvider.NO_TILE
+      }
+    if (data == null) {
+      missingTiles.put(key, Unit)
+      return TileProvider.NO_TILE
+    }
+    return Tile(TILE_SIZE, TILE_SIZE, data).also { tileCache.put(key, it) }
+  }
+
+  /** Returns the contents of the specified tile, or `null` if the file contains no such tile. */
+  private fun queryTile(x: Int, y: Int, z: Int): ByteArray? {
+    val statement = threadConnection.get()!!.tileQuery
+    statement.bindLong(1, z.toLong())
+    statement.bindLong(2, x.toLong())
+    // MBTiles rows are numbered from the bottom (TMS), while the Maps SDK numbers from the top.
+    statement.bindLong(3, ((1 shl z) - 1 - y).toLong())
+    return try {
+      readTileData(statement)
+    } catch (e: SQLiteDoneException) {
+      null
+    } finally {
+      statement.clearBindings()
+    }
+  }
+
+  private fun openConnection(): Connection {
+    check(!closed) { "Tile provider already closed" }
+    val db = openReadOnly(file)
+    return Connection(db, db.compileStatement(TILE_QUERY))
+  }
+
+  override fun close() {
+    closed = true
+    while (true) {
+      val connection = connections.poll() ?: break
+      connection.tileQuery.close()
+      connection.db.close()
+    }
+    tileCache.evictAll()
+    missingTiles.evictAll()
+  }
+
+  companion object {
+    private const val TILE_SIZE = 256
+
+    /** Default maximum total size of cached tile images. */
+    internal const val TILE_CACHE_SIZE_BYTES = 8 * 1024 * 1024
+
+    /** Maximum number of coordinates remembered as having no tile. */
+    private const val MISSING_TILE_CACHE_SIZE = 4096
+
+    private const val TILE_QUERY =
+      "SELECT tile_data FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?"
+
+    /** Packs tile coordinates into a single key. Valid for zoom levels up to 29. */
+    private fun tileKey(x: Int, y: Int, z: Int): Long =
+      (z.toLong() shl 58) or (x.toLong() shl 29) or y.toLong()
+
+    /** Reads the blob selected by [statement] without copying it into a cursor window. */
+    private fun readBlob(statement: SQLiteStatement): ByteArray? =
+      statement.simpleQueryForBlobFileDescriptor()?.let {
+        ParcelFileDescriptor.AutoCloseInputStream(it).use { stream -> stream.readBytes() }
+      }
+
+    internal fun openReadOnly(file: File): SQLiteDatabase =
+      SQLiteDatabase.openDatabase(
+        file.absolutePath,
+        null,
+        SQLiteDatabase.OPEN_READONLY or SQLiteDatabase.NO_LOCALIZED_COLLATORS
+      )
+
+    /** Returns the name-value pairs in the "metadata" table, or none if it can't be read. */
+    internal fun SQLiteDatabase.readMetadata(): Map<String, String> =
+      try {
+        rawQuery("SELECT name, value FROM metadata", null).use { cursor ->
+          val metadata = mutableMapOf<String, String>()
+          while (cursor.moveToNext()) {
+            cursor.getString(1)?.let { metadata[cursor.getString(0)] = it }
+          }
+          metadata
+        }
+      } catch (e: SQLiteException) {
+        Timber.e(e, "Failed to read MBTiles metadata")
+        mapOf()
+      }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map.gms
+
+import android.content.Context
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+import javax.inject.Inject
+import javax.inject.Singleton
+import timber.log.Timber
+
+/**
+ * A size-bounded on-disk store of remote tile images, shared by all [WebTileProvider]s. Each tile
+ * is stored in its own file along with the validators needed to revalidate it with the server.
+ * When the total size of stored tiles exceeds [maxBytes], the least recently used tiles are
+ * deleted.
+ */
+@Singleton
+class WebTileCache(private val dir: File, private val maxBytes: Long) {
+  @Inject
+  constructor(
+    @ApplicationContext context: Context
+  ) : this(File(context.cacheDir, CACHE_DIR_NAME), DEFAULT_MAX_BYTES)
+
+  /** A tile image and the information needed to revalidate it. */
+  class Entry(
+    val data: ByteArray,
+    val etag: String?,
+    val lastModified: String?,
+    /** Time at which the server last confirmed this entry was current, in ms since the epoch. */
+    val validatedAtMillis: Long
+  )
+
+  /** Sizes of stored files keyed by file name, in order of least to most recently used. */
+  private val fileSizes: LinkedHashMap<String, Long> by lazy { loadFileSizes() }
+
+  private var totalBytes = 0L
+
+  /** Returns the stored entry for the specified URL, or `null` if not present or unreadable. */
+  fun get(url: String): Entry? {
+    val file = fileFor(url)
+    synchronized(this) {
+      if (fileSizes[file.name] == null) return null
+    }
+    // Persist recency so that the order of use survives restarts.
+    file.setLastModified(System.currentTimeMillis())
+    return try {
+      DataInputStream(file.inputStream().buffered()).use { input ->
+        if (input.readInt() != FORMAT_VERSION) return null
+        val validatedAtMillis = input.readLong()
+        val etag = input.readUTF().ifEmpty { null }
+        val lastModified = input.readUTF().ifEmpty { null }
+        val data = ByteArray(input.readInt())
+        input.readFully(data)
+        Entry(data, etag, lastModified, validatedAtMillis)
+      }
+    } catch (e: IOException) {
+      Timber.w(e, "Discarding unreadable cached tile for $url")
+      remove(file)
+      null
+    }
+  }
+
+  /** Stores [entry] as the current value for the specified URL. */
+  fun put(url: String, entry: Entry) {
+    val file = fileFor(url)
+    val tempFile = File(dir, "${file.name}.tmp")
+    try {
+      dir.mkdirs()
+      DataOutputStream(tempFile.outputStream().buffered()).use { output ->
+        output.writeInt(FORMAT_VERSION)
+        output.writeLong(entry.validatedAtMillis)
+        output.writeUTF(entry.etag ?: "")
+        output.writeUTF(entry.lastModified ?: "")
+        output.writeInt(entry.data.size)
+        output.write(entry.data)
+      }
+      synchronized(this) {
+        if (!tempFile.renameTo(file)) throw IOException("Couldn't rename $tempFile")
+        totalBytes += file.length() - (fileSizes.remove(file.name) ?: 0)
+        fileSizes[file.name] = file.length()
+        trimToSize()
+      }
+    } catch (e: IOException) {
+      Timber.w(e, "Failed to cache tile for $url")
+      tempFile.delete()
+    }
+  }
+
+  @Synchronized
+  private fun remove(file: File) {
+    totalBytes -= fileSizes.remove(file.name) ?: 0
+    file.delete()
+  }
+
+  private fun trimToSize() {
+    val iterator = fileSizes.entries.iterator()
+    while (totalBytes > maxBytes && iterator.hasNext()) {
+      val (name, size) = iterator.next()
+      File(dir, name).delete()
+      totalBytes -= size
+      iterator.remove()
+    }
+  }
+
+  /**
+   * Indexes files left by previous sessions, treating those modified least recently as least
+   * recently used, and deletes any leftover temporary files.
+   */
+  private fun loadFileSizes(): LinkedHashMap<String, Long> {
+    val files = dir.listFiles()?.toList() ?: listOf()
+    files.filter { it.name.endsWith(".tmp") }.forEach { it.delete() }
+    val sizes = LinkedHashMap<String, Long>(INITIAL_CAPACITY, LOAD_FACTOR, true)
+    files
+      .filter { it.name.endsWith(FILE_SUFFIX) }
+      .sortedBy { it.lastModified() }
+      .forEach {
+        sizes[it.name] = it.length()
+        totalBytes += it.length()
+      }
+    return sizes
+  }
+
+  private fun fileFor(url: String): File {
+    val digest = MessageDigest.getInstance("SHA-1").digest(url.toByteArray())
+    return File(dir, digest.joinToString("") { "%02x".format(it) } + FILE_SUFFIX)
+  }
+
+  companion object {
+    private const val CACHE_DIR_NAME = "web_tiles"
+    private const val DEFAULT_MAX_BYTES = 64L * 1024 * 1024
+    private const val FILE_SUFFIX = ".tile"
+    private const val FORMAT_VERSION = 1
+    private const val INITIAL_CAPACITY = 256
+    private const val LOAD_FACTOR = 0.75f
+  }
+}
@@ -15,18 +15,164 @@
  */
 package com.google.android.ground.ui.map.gms
 
-import com.google.android.gms.maps.model.UrlTileProvider
+import com.google.android.gms.maps.model.Tile
+import com.google.android.gms.maps.model.TileProvider
+import com.google.android.ground.ui.map.Bounds
+import java.io.Closeable
+import java.io.IOException
+import java.net.HttpURLConnection
 import java.net.MalformedURLException
 import java.net.URL
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.ln
+import kotlin.math.tan
 import timber.log.Timber
 
 /**
- * Fetches tile imagery from a server according to a formatted URL.
+ * Fetches tile imagery from a server according to a formatted URL, keeping fetched tiles in a
+ * [WebTileCache] so that they're available across sessions and while offline.
+ *
+ * Cached tiles older than [maxAgeMillis] are revalidated with the server using their `ETag` and
+ * `Last-Modified` validators, and are served as-is if the server can't be reached. Concurrent
+ * requests for the same tile share a single fetch.
  *
  * Tile URLs should have the format: host/z/x/y
  */
-class WebTileProvider(private val formatUrl: String) : UrlTileProvider(256, 256) {
-  override fun getTileUrl(x: Int, y: Int, z: Int): URL? {
+class WebTileProvider(
+  private val formatUrl: String,
+  private val cache: WebTileCache,
+  private val maxAgeMillis: Long = DEFAULT_MAX_AGE_MILLIS
+) : TileProvider, Closeable {
+  /** Fetches in progress, keyed by tile URL. */
+  private val inFlight = ConcurrentHashMap<String, FutureTask<Tile?>>()
+
+  private val prefetchExecutor: ExecutorService by lazy {
+    Executors.newFixedThreadPool(PREFETCH_THREADS)
+  }
+
+  private var prefetchTasks: List<Future<*>> = listOf()
+
+  private var closed = false
+
+  override fun getTile(x: Int, y: Int, z: Int): Tile? {
+    val url = getTileUrl(x, y, z) ?: return TileProvider.NO_TILE
+    val task = FutureTask { loadTile(url) }
+    val existingTask = inFlight.putIfAbsent(url, task)
+    if (existingTask == null) {
+      try {
+        task.run()
+      } finally {
+        inFlight.remove(url, task)
+      }
+    }
+    return try {
+      (existingTask ?: task).get()
+    } catch (e: ExecutionException) {
+      Timber.e(e.cause, "Failed to load tile from %s", url)
+      null
+    } catch (e: InterruptedException) {
+      Thread.currentThread().interrupt()
+      null
+    }
+  }
+
+  /**
+   * Fetches tiles in a ring of [PREFETCH_RING_SIZE] tiles around the specified viewport in the
+   * background, so that they're already cached when the map is panned. Cancels prefetches
+   * requested for the previous viewport.
+   */
+  @Synchronized
+  fun prefetch(bounds: Bounds, zoom: Int) {
+    prefetchTasks.forEach { it.cancel(false) }
+    if (closed) return
+    val maxTile = (1 shl zoom) - 1
+    val minX = tileX(bounds.west, zoom)
+    val maxX = tileX(bounds.east, zoom)
+    val minY = tileY(bounds.north, zoom)
+    val maxY = tileY(bounds.south, zoom)
+    val ringX = expand(minX, maxX, maxTile)
+    val ringY = expand(minY, maxY, maxTile)
+    prefetchTasks =
+      ringX.flatMap { x ->
+        ringY
+          .filter { y -> x !in minX..maxX || y !in minY..maxY }
+          .map { y -> prefetchExecutor.submit { getTile(x, y, zoom) } }
+      }
+  }
+
+  @Synchronized
+  override fun close() {
+    closed = true
+    prefetchExecutor.shutdownNow()
+  }
+
+  /** Returns the range [min] to [max] widened by the prefetch ring, clipped to valid tiles. */
+  private fun expand(min: Int, max: Int, maxTile: Int): IntRange =
+    (min - PREFETCH_RING_SIZE).coerceAtLeast(0)..(max + PREFETCH_RING_SIZE).coerceAtMost(maxTile)
+
+  /**
+   * Returns the cached tile for [url] if it's fresh or can't be revalidated, or the tile fetched
+   * from the server otherwise.
+   */
+  private fun loadTile(url: String): Tile? {
+    val cached = cache.get(url)
+    if (cached != null && System.currentTimeMillis() - cached.validatedAtMillis < maxAgeMillis) {
+      return cached.toTile()
+    }
+    return try {
+      fetchTile(url, cached)
+    } catch (e: IOException) {
+      Timber.d(e, "Failed to fetch tile from %s", url)
+      // Serve the stale tile while offline, or try again later if there's none.
+      cached?.toTile()
+    }
+  }
+
+  private fun fetchTile(url: String, cached: WebTileCache.Entry?): Tile {
+    val connection = URL(url).openConnection() as HttpURLConnection
+    try {
+      connection.connectTimeout = TIMEOUT_MILLIS
+      connection.readTimeout = TIMEOUT_MILLIS
+      cached?.etag?.let { connection.setRequestProperty("If-None-Match", it) }
+      cached?.lastModified?.let { connection.setRequestProperty("If-Modified-Since", it) }
+      val now = System.currentTimeMillis()
+      return when (connection.responseCode) {
+        HttpURLConnection.HTTP_OK -> {
+          val entry =
+            WebTileCache.Entry(
+              connection.inputStream.use { it.readBytes() },
+              connection.getHeaderField("ETag"),
+              connection.getHeaderField("Last-Modified"),
+              now
+            )
+          cache.put(url, entry)
+          entry.toTile()
+        }
+        HttpURLConnection.HTTP_NOT_MODIFIED ->
+          if (cached == null) TileProvider.NO_TILE
+          else revalidated(cached, now).also { cache.put(url, it) }.toTile()
+        HttpURLConnection.HTTP_NOT_FOUND,
+        HttpURLConnection.HTTP_NO_CONTENT -> TileProvider.NO_TILE
+        else -> throw IOException("Unexpected response ${connection.responseCode} from $url")
+      }
+    } finally {
+      connection.disconnect()
+    }
+  }
+
+  /** Returns a copy of [entry] which the server confirmed to be current at [now]. */
+  private fun revalidated(entry: WebTileCache.Entry, now: Long) =
+    WebTileCache.Entry(entry.data, entry.etag, entry.lastModified, now)
+
+  internal fun getTileUrl(x: Int, y: Int, z: Int): String? {
     val url =
       formatUrl
         .replace("\${z}", z.toString())
@@ -34,9 +180,34 @@ class WebTileProvider(private val formatUrl: String) : UrlTileProvider(256, 256)
         .replace("\${y}", y.toString())
     return try {
       URL(url)
+      url
     } catch (e: MalformedURLException) {
       Timber.e(e, "Tile URL malformed: %s", url)
       null
     }
   }
+
+  private fun WebTileCache.Entry.toTile() = Tile(TILE_SIZE, TILE_SIZE, data)
+
+  companion object {
+    private const val TILE_SIZE = 256
+    private const val TIMEOUT_MILLIS = 15 * 1000
+    private const val DEFAULT_MAX_AGE_MILLIS = 24L * 60 * 60 * 1000
+    private const val PREFETCH_RING_SIZE = 1
+    private const val PREFETCH_THREADS = 2
+
+    /** Returns the column of the XYZ tile containing the specified longitude. */
+    internal fun tileX(lng: Double, zoom: Int): Int {
+      val tileCount = 1 shl zoom
+      return floor((lng + 180.0) / 360.0 * tileCount).toInt().coerceIn(0, tileCount - 1)
+    }
+
+    /** Returns the row of the XYZ tile containing the specified latitude. */
+    internal fun tileY(lat: Double, zoom: Int): Int {
+      val tileCount = 1 shl zoom
+      val latRad = Math.toRadians(lat)
+      val y = (1 - ln(tan(latRad) + 1 / cos(latRad)) / PI) / 2 * tileCount
+      return floor(y).toInt().coerceIn(0, tileCount - 1)
+    }
+  }
 }
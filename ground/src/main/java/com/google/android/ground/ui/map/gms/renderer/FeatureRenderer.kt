@@ -21,6 +21,15 @@ import com.google.android.ground.ui.map.Feature
 
 sealed class FeatureRenderer(val map: GoogleMap) {
   abstract fun addFeature(feature: Feature, geometry: Geometry)
-  abstract fun removeStaleFeatures(features: Set<Feature>)
+
+  /**
+   * Updates the map objects already rendered for a feature with the same id in place. Returns false
+   * if the feature isn't rendered or can't be updated in place, in which case callers should remove
+   * and re-add it instead.
+   */
+  abstract fun updateFeature(feature: Feature): Boolean
+
+  abstract fun removeFeature(id: String)
+
   abstract fun removeAllFeatures()
 }
@@ -20,11 +20,12 @@ import com.google.android.gms.maps.model.JointType
 import com.google.android.gms.maps.model.Polygon as MapsPolygon
 import com.google.android.gms.maps.model.PolygonOptions
 import com.google.android.ground.model.geometry.Geometry
+import com.google.android.ground.model.geometry.MultiPolygon
 import com.google.android.ground.model.geometry.Polygon
 import com.google.android.ground.model.locationofinterest.LocationOfInterest
 import com.google.android.ground.ui.map.Feature
 import com.google.android.ground.ui.map.FeatureType
-import com.google.android.ground.ui.map.gms.toLatLng
+import com.google.android.ground.ui.map.gms.toLatLngs
 
 class PolygonRenderer(
   map: GoogleMap,
@@ -33,18 +34,16 @@ class PolygonRenderer(
   private val strokeColor: Int
 ) : FeatureRenderer(map) {
 
-  private val polygons: MutableMap<Feature, MutableList<MapsPolygon>> = HashMap()
+  private val features: MutableMap<String, Feature> = HashMap()
+  private val polygons: MutableMap<String, MutableList<MapsPolygon>> = HashMap()
 
   override fun addFeature(feature: Feature, geometry: Geometry) {
     val polygon = geometry as Polygon
     val options = PolygonOptions()
     options.clickable(false)
 
-    val shellVertices = polygon.shell.vertices.map { it.toLatLng() }
-    options.addAll(shellVertices)
-
-    val holes = polygon.holes.map { hole -> hole.vertices.map { point -> point.toLatLng() } }
-    holes.forEach { options.addHole(it) }
+    options.addAll(polygon.shell.coordinates.toLatLngs())
+    polygon.holes.forEach { options.addHole(it.coordinates.toLatLngs()) }
 
     val mapsPolygon = map.addPolygon(options)
     mapsPolygon.tag = Pair(feature.tag.id, LocationOfInterest::javaClass)
@@ -53,21 +52,42 @@ class PolygonRenderer(
     mapsPolygon.strokeColor = strokeColor
     mapsPolygon.strokeJointType = JointType.ROUND
 
-    polygons.getOrPut(feature) { mutableListOf() }.add(mapsPolygon)
+    features[feature.tag.id] = feature
+    polygons.getOrPut(feature.tag.id) { mutableListOf() }.add(mapsPolygon)
+  }
+
+  override fun updateFeature(feature: Feature): Boolean {
+    val mapsPolygons = polygons[feature.tag.id] ?: return false
+    if (features[feature.tag.id]?.geometry != feature.geometry) {
+      val geometries =
+        when (feature.geometry) {
+          is Polygon -> listOf(feature.geometry)
+          is MultiPolygon -> feature.geometry.polygons
+          else -> return false
+        }
+      if (geometries.size != mapsPolygons.size) return false
+      mapsPolygons.zip(geometries).forEach { (mapsPolygon, polygon) ->
+        mapsPolygon.points = polygon.shell.coordinates.toLatLngs()
+        mapsPolygon.holes = polygon.holes.map { it.coordinates.toLatLngs() }
+      }
+    }
+    features[feature.tag.id] = feature
+    return true
   }
 
   fun getPolygonsWithLoi(): Map<Feature, MutableList<MapsPolygon>> =
-    polygons.filter { it.key.tag.type == FeatureType.LOCATION_OF_INTEREST.ordinal }
+    polygons
+      .mapKeys { features.getValue(it.key) }
+      .filter { it.key.tag.type == FeatureType.LOCATION_OF_INTEREST.ordinal }
 
-  override fun removeStaleFeatures(features: Set<Feature>) {
-    val deletedIds = polygons.keys.map { it.tag.id } - features.map { it.tag.id }.toSet()
-    val deletedPolygons = polygons.filter { deletedIds.contains(it.key.tag.id) }
-    deletedPolygons.values.forEach { it.forEach(MapsPolygon::remove) }
-    polygons.minusAssign(deletedPolygons.keys)
+  override fun removeFeature(id: String) {
+    polygons.remove(id)?.forEach(MapsPolygon::remove)
+    features.remove(id)
   }
 
   override fun removeAllFeatures() {
     polygons.values.forEach { it.forEach(MapsPolygon::remove) }
     polygons.clear()
+    features.clear()
   }
 }
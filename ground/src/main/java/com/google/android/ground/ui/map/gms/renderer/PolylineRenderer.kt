@@ -31,7 +31,8 @@ class PolylineRenderer(
   private val strokeColor: Int
 ) : FeatureRenderer(map) {
 
-  private val polylines: MutableMap<Feature, MutableList<Polyline>> = HashMap()
+  private val features: MutableMap<String, Feature> = HashMap()
+  private val polylines: MutableMap<String, MutableList<Polyline>> = HashMap()
 
   override fun addFeature(feature: Feature, geometry: Geometry) {
     val points = geometry.vertices
@@ -49,18 +50,31 @@ class PolylineRenderer(
     polyline.color = strokeColor
     polyline.jointType = JointType.ROUND
 
-    polylines.getOrPut(feature) { mutableListOf() }.add(polyline)
+    features[feature.tag.id] = feature
+    polylines.getOrPut(feature.tag.id) { mutableListOf() }.add(polyline)
   }
 
-  override fun removeStaleFeatures(features: Set<Feature>) {
-    val deletedIds = polylines.keys.map { it.tag.id } - features.map { it.tag.id }.toSet()
-    val deletedPolylines = polylines.filter { deletedIds.contains(it.key.tag.id) }
-    deletedPolylines.values.forEach { it.forEach(Polyline::remove) }
-    polylines.minusAssign(deletedPolylines.keys)
+  override fun updateFeature(feature: Feature): Boolean {
+    val featurePolylines = polylines[feature.tag.id] ?: return false
+    if (features[feature.tag.id]?.geometry != feature.geometry) {
+      if (featurePolylines.size != 1) return false
+      val points = feature.geometry.vertices
+      val polyline = featurePolylines.single()
+      polyline.points = points.map { it.toLatLng() }
+      polyline.tag = points
+    }
+    features[feature.tag.id] = feature
+    return true
+  }
+
+  override fun removeFeature(id: String) {
+    polylines.remove(id)?.forEach(Polyline::remove)
+    features.remove(id)
   }
 
   override fun removeAllFeatures() {
     polylines.values.forEach { it.forEach(Polyline::remove) }
     polylines.clear()
+    features.clear()
   }
 }
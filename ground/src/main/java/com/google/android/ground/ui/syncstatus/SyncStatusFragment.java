@@ -63,7 +63,13 @@ public class SyncStatusFragment extends Hilt_SyncStatusFragment {
     recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
     recyclerView.setAdapter(syncStatusListAdapter);
 
-    viewModel.getMutations().observe(getViewLifecycleOwner(), syncStatusListAdapter::update);
+    viewModel
+        .getMutations()
+        .observe(
+            getViewLifecycleOwner(),
+            mutations ->
+                syncStatusListAdapter.submitData(
+                    getViewLifecycleOwner().getLifecycle(), mutations));
 
     return binding.getRoot();
   }
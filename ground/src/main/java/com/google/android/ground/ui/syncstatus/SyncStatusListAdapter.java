@@ -17,31 +17,42 @@
 package com.google.android.ground.ui.syncstatus;
 
 import android.content.Context;
-import android.util.Pair;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.recyclerview.widget.RecyclerView;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import com.google.android.ground.databinding.SyncStatusListItemBinding;
-import com.google.android.ground.model.locationofinterest.LocationOfInterest;
-import com.google.android.ground.model.mutation.LocationOfInterestMutation;
-import com.google.android.ground.model.mutation.Mutation;
+import com.google.android.ground.model.mutation.MutationSummary;
 import com.google.android.ground.ui.common.LocationOfInterestHelper;
 import java.text.DateFormat;
-import java.util.List;
-import java8.util.Optional;
 
-class SyncStatusListAdapter extends RecyclerView.Adapter<SyncStatusViewHolder> {
+class SyncStatusListAdapter extends PagingDataAdapter<MutationSummary, SyncStatusViewHolder> {
+
+  private static final DiffUtil.ItemCallback<MutationSummary> DIFF_CALLBACK =
+      new DiffUtil.ItemCallback<MutationSummary>() {
+        @Override
+        public boolean areItemsTheSame(
+            @NonNull MutationSummary oldItem, @NonNull MutationSummary newItem) {
+          return oldItem.isSubmission() == newItem.isSubmission()
+              && oldItem.getMutationId() == newItem.getMutationId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(
+            @NonNull MutationSummary oldItem, @NonNull MutationSummary newItem) {
+          return oldItem.equals(newItem);
+        }
+      };
 
   private final LocationOfInterestHelper locationOfInterestHelper;
-  private List<Pair<LocationOfInterest, Mutation>> mutations;
   private final DateFormat dateFormat;
   private final DateFormat timeFormat;
 
   SyncStatusListAdapter(
       @Nullable Context context, LocationOfInterestHelper locationOfInterestHelper) {
-    this.mutations = List.of();
+    super(DIFF_CALLBACK);
     this.dateFormat = android.text.format.DateFormat.getDateFormat(context);
     this.timeFormat = android.text.format.DateFormat.getTimeFormat(context);
     this.locationOfInterestHelper = locationOfInterestHelper;
@@ -60,39 +71,30 @@ class SyncStatusListAdapter extends RecyclerView.Adapter<SyncStatusViewHolder> {
     // TODO: Use data binding.
     // TODO(#876): Improve L&F and layout.
 
-    Pair<LocationOfInterest, Mutation> pair = mutations.get(position);
-    LocationOfInterest locationOfInterest = pair.first;
-    Mutation mutation = pair.second;
+    MutationSummary mutation = getItem(position);
+    if (mutation == null) {
+      viewHolder.binding.syncStatusText.setText("");
+      return;
+    }
     String text =
         new StringBuilder()
             .append(mutation.getType())
             .append(' ')
-            .append(
-                mutation instanceof LocationOfInterestMutation
-                    ? "LocationOfInterest"
-                    : "Submission")
+            .append(mutation.isSubmission() ? "Submission" : "LocationOfInterest")
             .append(' ')
             .append(dateFormat.format(mutation.getClientTimestamp()))
             .append(' ')
             .append(timeFormat.format(mutation.getClientTimestamp()))
             .append('\n')
-            .append(locationOfInterestHelper.getLabel(Optional.of(locationOfInterest)))
+            .append(
+                locationOfInterestHelper.getLabel(
+                    mutation.getLoiCaption(), mutation.getLoiGeometry()))
             .append('\n')
-            .append(locationOfInterestHelper.getSubtitle(Optional.of(locationOfInterest)))
+            .append(locationOfInterestHelper.getSubtitle(mutation.getJobName()))
             .append('\n')
             .append("Sync ")
             .append(mutation.getSyncStatus())
             .toString();
     viewHolder.binding.syncStatusText.setText(text);
   }
-
-  @Override
-  public int getItemCount() {
-    return mutations.size();
-  }
-
-  void update(List<Pair<LocationOfInterest, Mutation>> mutations) {
-    this.mutations = mutations;
-    notifyDataSetChanged();
-  }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.syncstatus
+
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.asLiveData
+import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.google.android.ground.model.mutation.MutationSummary
+import com.google.android.ground.repository.MutationRepository
+import com.google.android.ground.repository.SurveyRepository
+import com.google.android.ground.rx.annotations.Cold
+import com.google.android.ground.ui.common.AbstractViewModel
+import com.google.android.ground.ui.common.Navigator
+import com.google.android.ground.ui.offlinebasemap.OfflineAreasFragmentDirections
+import javax.inject.Inject
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.map
+
+/** View model for the sync status fragment. Pages through the active survey's mutations. */
+@OptIn(ExperimentalCoroutinesApi::class)
+class SyncStatusViewModel
+@Inject
+internal constructor(
+  mutationRepository: MutationRepository,
+  surveyRepository: SurveyRepository,
+  private val navigator: Navigator
+) : AbstractViewModel() {
+
+  /** Pages of summaries of the active survey's mutations, most recent first. */
+  val mutations: @Cold(replays = true, terminates = false) LiveData<PagingData<MutationSummary>> =
+    surveyRepository.activeSurveyFlow
+      .map { it?.id }
+      .distinctUntilChanged()
+      .flatMapLatest { surveyId ->
+        if (surveyId == null) flowOf(PagingData.empty())
+        else mutationRepository.getMutationSummaries(surveyId)
+      }
+      .cachedIn(viewModelScope)
+      .asLiveData()
+
+  fun showOfflineAreaSelector() {
+    navigator.navigate(OfflineAreasFragmentDirections.showOfflineAreaSelector())
+  }
+}
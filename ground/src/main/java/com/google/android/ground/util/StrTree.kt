@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.util
+
+import com.google.android.ground.model.geometry.Envelope
+import kotlin.math.ceil
+import kotlin.math.sqrt
+
+/**
+ * An immutable R-tree bulk loaded using the Sort-Tile-Recursive (STR) algorithm. Queries visit only
+ * the nodes whose envelopes intersect the search area, so their cost is proportional to the number
+ * of matches rather than to the total number of items.
+ *
+ * See Leutenegger et al., "STR: A Simple and Efficient Algorithm for R-Tree Packing".
+ */
+class StrTree<T>(items: Collection<Pair<Envelope, T>>, private val nodeCapacity: Int = 16) {
+  private sealed class Node<T>(val envelope: Envelope)
+
+  private class Leaf<T>(envelope: Envelope, val items: List<Pair<Envelope, T>>) :
+    Node<T>(envelope)
+
+  private class Branch<T>(envelope: Envelope, val children: List<Node<T>>) : Node<T>(envelope)
+
+  init {
+    require(nodeCapacity > 1) { "Node capacity must be at least 2" }
+  }
+
+  private val root: Node<T>? = build(items)
+
+  val size: Int = items.size
+
+  /** Returns all items whose envelopes intersect the specified [envelope], in no defined order. */
+  fun query(envelope: Envelope): List<T> {
+    val results = mutableListOf<T>()
+    val stack = ArrayDeque<Node<T>>()
+    root?.let { stack.addLast(it) }
+    while (stack.isNotEmpty()) {
+      when (val node = stack.removeLast()) {
+        is Branch ->
+          node.children.forEach { if (it.envelope.intersects(envelope)) stack.addLast(it) }
+        is Leaf -> node.items.forEach { if (it.first.intersects(envelope)) results.add(it.second) }
+      }
+    }
+    return results
+  }
+
+  private fun build(items: Collection<Pair<Envelope, T>>): Node<T>? {
+    if (items.isEmpty()) return null
+    var level: List<Node<T>> =
+      pack(items.toList(), { it.first }) { Leaf(unionOf(it.map { item -> item.first }), it) }
+    while (level.size > 1) {
+      level = pack(level, { it.envelope }) { Branch(unionOf(it.map { node -> node.envelope }), it) }
+    }
+    return level.single()
+  }
+
+  /**
+   * Groups [entries] into nodes of at most [nodeCapacity] entries by sorting them into vertical
+   * slices by longitude, then tiling each slice by latitude.
+   */
+  private fun <E> pack(
+    entries: List<E>,
+    envelope: (E) -> Envelope,
+    createNode: (List<E>) -> Node<T>
+  ): List<Node<T>> {
+    val nodeCount = ceil(entries.size.toDouble() / nodeCapacity)
+    val sliceCount = ceil(sqrt(nodeCount)).toInt()
+    val sliceSize = nodeCapacity * ceil(nodeCount / sliceCount).toInt()
+    return entries
+      .sortedBy { envelope(it).centerLng }
+      .chunked(sliceSize)
+      .flatMap { slice -> slice.sortedBy { envelope(it).centerLat }.chunked(nodeCapacity) }
+      .map(createNode)
+  }
+
+  private fun unionOf(envelopes: List<Envelope>): Envelope = envelopes.reduce(Envelope::union)
+}
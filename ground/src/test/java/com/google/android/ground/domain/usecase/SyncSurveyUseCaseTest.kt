@@ -20,7 +20,9 @@ import com.google.android.ground.BaseHiltTest
 import com.google.android.ground.domain.usecases.survey.SyncSurveyUseCase
 import com.google.android.ground.repository.LocationOfInterestRepository
 import com.google.android.ground.repository.SurveyRepository
+import com.google.common.truth.Truth.assertThat
 import com.sharedtest.FakeData.SURVEY
+import com.sharedtest.system.perf.FakePerfTracer
 import dagger.hilt.android.testing.BindValue
 import dagger.hilt.android.testing.HiltAndroidTest
 import io.reactivex.Single
@@ -37,6 +39,7 @@ import org.robolectric.RobolectricTestRunner
 @RunWith(RobolectricTestRunner::class)
 class SyncSurveyUseCaseTest : BaseHiltTest() {
   @Inject lateinit var syncSurvey: SyncSurveyUseCase
+  @Inject lateinit var perfTracer: FakePerfTracer
   @BindValue @Mock lateinit var surveyRepository: SurveyRepository
   @BindValue @Mock lateinit var loiRepository: LocationOfInterestRepository
 
@@ -49,4 +52,14 @@ class SyncSurveyUseCaseTest : BaseHiltTest() {
     verify(surveyRepository).syncSurveyWithRemote(SURVEY.id)
     verify(loiRepository).syncLocationsOfInterest(SURVEY)
   }
+
+  @Test
+  fun tracesSurveySync() = runBlocking {
+    `when`(surveyRepository.syncSurveyWithRemote(SURVEY.id)).thenReturn(Single.just(SURVEY))
+
+    syncSurvey(SURVEY.id)
+
+    val trace = perfTracer.completedTraces("survey_sync").single()
+    assertThat(trace.metrics).containsEntry("jobs", SURVEY.jobs.size.toLong())
+  }
 }
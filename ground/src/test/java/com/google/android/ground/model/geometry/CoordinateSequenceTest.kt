@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.model.geometry
+
+import com.google.common.truth.Truth.assertThat
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.decodeFromByteArray
+import kotlinx.serialization.encodeToByteArray
+import kotlinx.serialization.protobuf.ProtoBuf
+import org.junit.Test
+
+class CoordinateSequenceTest {
+
+  @Test
+  fun of_preservesCoordinates() {
+    val sequence = CoordinateSequence.of(COORDINATES)
+
+    assertThat(sequence).containsExactlyElementsIn(COORDINATES).inOrder()
+    assertThat(sequence.lat(1)).isEqualTo(COORDINATES[1].lat)
+    assertThat(sequence.lng(1)).isEqualTo(COORDINATES[1].lng)
+  }
+
+  @Test
+  fun of_whenAlreadyPacked_returnsSameInstance() {
+    val sequence = CoordinateSequence.of(COORDINATES)
+
+    assertThat(CoordinateSequence.of(sequence)).isSameInstanceAs(sequence)
+  }
+
+  @Test
+  fun equalsAndHashCode_consistentWithList() {
+    val sequence = CoordinateSequence.of(COORDINATES)
+
+    assertThat(sequence).isEqualTo(COORDINATES)
+    assertThat(COORDINATES).isEqualTo(sequence)
+    assertThat(sequence).isEqualTo(CoordinateSequence.of(COORDINATES.toList()))
+    assertThat(sequence.hashCode()).isEqualTo(COORDINATES.hashCode())
+  }
+
+  @Test
+  fun view_transformsEachCoordinate() {
+    val sequence = CoordinateSequence.of(COORDINATES)
+
+    assertThat(sequence.view { lat, lng -> lat + lng }).containsExactly(30.0, 50.0, 70.0).inOrder()
+    assertThat(sequence.points).containsExactlyElementsIn(COORDINATES.map { Point(it) }).inOrder()
+  }
+
+  @Test
+  fun serialization_matchesCoordinateList() {
+    val bytes = ProtoBuf.encodeToByteArray(LineString(COORDINATES))
+
+    assertThat(bytes).isEqualTo(ProtoBuf.encodeToByteArray(UnpackedLineString(COORDINATES)))
+    assertThat(ProtoBuf.decodeFromByteArray<LineString>(bytes))
+      .isEqualTo(LineString(COORDINATES))
+  }
+
+  /** The encoding of [LineString] before its coordinates were packed. */
+  @Serializable private data class UnpackedLineString(val coordinates: List<Coordinate>)
+
+  companion object {
+    private val COORDINATES =
+      listOf(Coordinate(10.0, 20.0), Coordinate(20.0, 30.0), Coordinate(30.0, 40.0))
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.google.android.ground.persistence.local
 
+import androidx.paging.PagingSource
 import com.google.android.ground.BaseHiltTest
 import com.google.android.ground.model.Survey
 import com.google.android.ground.model.User
@@ -33,10 +34,13 @@ import com.google.android.ground.model.submission.Submission
 import com.google.android.ground.model.submission.TaskDataDelta
 import com.google.android.ground.model.submission.TaskDataMap
 import com.google.android.ground.model.submission.TextTaskData
+import com.google.android.ground.model.task.MultipleChoice
+import com.google.android.ground.model.task.Option
 import com.google.android.ground.model.task.Task
 import com.google.android.ground.persistence.local.room.converter.formatVertices
 import com.google.android.ground.persistence.local.room.converter.parseVertices
 import com.google.android.ground.persistence.local.room.dao.LocationOfInterestDao
+import com.google.android.ground.persistence.local.room.dao.MutationDao
 import com.google.android.ground.persistence.local.room.dao.SubmissionDao
 import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
 import com.google.android.ground.persistence.local.room.entity.SubmissionEntity
@@ -48,6 +52,7 @@ import com.google.common.truth.Truth.assertThat
 import dagger.hilt.android.testing.HiltAndroidTest
 import java.util.*
 import javax.inject.Inject
+import kotlinx.collections.immutable.persistentListOf
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.test.advanceUntilIdle
@@ -69,9 +74,11 @@ class LocalDataStoreTests : BaseHiltTest() {
   @Inject lateinit var localOfflineAreaStore: LocalOfflineAreaStore
   @Inject lateinit var localTileSetStore: LocalTileSetStore
   @Inject lateinit var localValueStore: LocalValueStore
+  @Inject lateinit var localMutationSyncStore: LocalMutationSyncStore
   // TODO(#1470): Use public interface of data stores instead of inspecting state of impl (DAOs).
   @Inject lateinit var submissionDao: SubmissionDao
   @Inject lateinit var locationOfInterestDao: LocationOfInterestDao
+  @Inject lateinit var mutationDao: MutationDao
 
   @Test
   fun testInsertAndGetSurveys() = runWithTestDispatcher {
@@ -106,6 +113,50 @@ class LocalDataStoreTests : BaseHiltTest() {
     }
   }
 
+  @Test
+  fun testInsertOrUpdateSurvey_appliesChangedTasksAndOptions() = runWithTestDispatcher {
+    val option1 = Option("option 1", "code 1", "label 1")
+    val option2 = Option("option 2", "code 2", "label 2")
+    val task =
+      Task(
+        "task id",
+        0,
+        Task.Type.MULTIPLE_CHOICE,
+        "task label",
+        false,
+        MultipleChoice(persistentListOf(option1, option2), MultipleChoice.Cardinality.SELECT_ONE)
+      )
+    val job1 = Job("job 1", "job 1 name", mapOf(task.id to task))
+    val survey = Survey("foo id", "foo survey", "foo survey description", mapOf(job1.id to job1))
+    localSurveyStore.insertOrUpdateSurvey(survey).blockingAwait()
+
+    val movedTask =
+      task.copy(
+        label = "new label",
+        multipleChoice = task.multipleChoice!!.copy(options = persistentListOf(option2))
+      )
+    val job2 = Job("job 2", "job 2 name", mapOf(movedTask.id to movedTask))
+    localSurveyStore
+      .insertOrUpdateSurvey(survey.copy(jobMap = mapOf(job2.id to job2)))
+      .blockingAwait()
+
+    assertThat(localSurveyStore.getSurveyByIdSuspend("foo id")!!.jobs).containsExactly(job2)
+  }
+
+  @Test
+  fun testGetSurveyById_returnsCachedSurveyUntilUpdated() = runWithTestDispatcher {
+    localSurveyStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    val survey = localSurveyStore.getSurveyByIdSuspend(TEST_SURVEY.id)
+
+    assertThat(localSurveyStore.getSurveyById(TEST_SURVEY.id).blockingGet())
+      .isSameInstanceAs(survey)
+
+    val updatedSurvey = TEST_SURVEY.copy(title = "updated title")
+    localSurveyStore.insertOrUpdateSurvey(updatedSurvey).blockingAwait()
+
+    assertThat(localSurveyStore.getSurveyByIdSuspend(TEST_SURVEY.id)).isEqualTo(updatedSurvey)
+  }
+
   @Test
   fun testInsertAndGetUser() {
     localUserStore.insertOrUpdateUser(TEST_USER).test().assertComplete()
@@ -309,6 +360,71 @@ class LocalDataStoreTests : BaseHiltTest() {
     localSubmissionStore.getSubmission(loi, "submission id").test().assertNoValues()
   }
 
+  @Test
+  fun testGetSubmissionCountOnceAndStream() = runWithTestDispatcher {
+    localUserStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localSurveyStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localLoiStore.applyAndEnqueue(TEST_LOI_MUTATION).blockingAwait()
+    val loi = localLoiStore.getLocationOfInterest(TEST_SURVEY, "loi id").blockingGet()
+    assertThat(localSubmissionStore.getSubmissionCountOnceAndStream(loi, "job id").first())
+      .isEqualTo(0)
+
+    localSubmissionStore.applyAndEnqueue(TEST_SUBMISSION_MUTATION).blockingAwait()
+    assertThat(localSubmissionStore.getSubmissionCountOnceAndStream(loi, "job id").first())
+      .isEqualTo(1)
+
+    // Submissions marked for deletion are not counted.
+    localSubmissionStore
+      .applyAndEnqueue(TEST_SUBMISSION_MUTATION.copy(id = null, type = Mutation.Type.DELETE))
+      .blockingAwait()
+    assertThat(localSubmissionStore.getSubmissionCountOnceAndStream(loi, "job id").first())
+      .isEqualTo(0)
+  }
+
+  @Test
+  fun testGetMutationsAndLocationsOfInterest() = runWithTestDispatcher {
+    localUserStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localSurveyStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    localLoiStore
+      .applyAndEnqueue(TEST_LOI_MUTATION.copy(clientTimestamp = Date(1000)))
+      .blockingAwait()
+    localSubmissionStore
+      .applyAndEnqueue(TEST_SUBMISSION_MUTATION.copy(clientTimestamp = Date(2000)))
+      .blockingAwait()
+
+    val params =
+      PagingSource.LoadParams.Refresh<Int>(key = null, loadSize = 10, placeholdersEnabled = false)
+    val page =
+      mutationDao.getMutationsAndLocationsOfInterest("survey id").load(params)
+        as PagingSource.LoadResult.Page
+
+    // Most recent mutation first, each joined with its LOI and job.
+    assertThat(page.data.map { it.isSubmission }).containsExactly(true, false).inOrder()
+    assertThat(page.data.map { it.loiGeometry?.getGeometry() })
+      .containsExactly(TEST_POINT, TEST_POINT)
+    assertThat(page.data.map { it.jobName }).containsExactly("heading title", "heading title")
+  }
+
+  @Test
+  fun testDeleteCompletedMutations() = runWithTestDispatcher {
+    localUserStore.insertOrUpdateUser(TEST_USER).blockingAwait()
+    localSurveyStore.insertOrUpdateSurvey(TEST_SURVEY).blockingAwait()
+    val mutations =
+      listOf(
+        TEST_LOI_MUTATION,
+        TEST_LOI_MUTATION.copy(id = 2L, type = Mutation.Type.UPDATE),
+        TEST_LOI_MUTATION.copy(id = 3L, type = Mutation.Type.UPDATE)
+      )
+    mutations.forEach { localLoiStore.applyAndEnqueue(it).blockingAwait() }
+    localMutationSyncStore.finalizeAll(completed = mutations, failed = listOf())
+
+    localMutationSyncStore.deleteCompletedMutations(retainCount = 1)
+
+    localLoiStore.findByState(MutationEntitySyncStatus.COMPLETED).test().assertValue {
+      it.map { entity -> entity.id } == listOf(3L)
+    }
+  }
+
   @Test
   fun testDeleteLoi() {
     localUserStore.insertOrUpdateUser(TEST_USER).blockingAwait()
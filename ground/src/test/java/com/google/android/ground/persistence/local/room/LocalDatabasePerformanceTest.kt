@@ -0,0 +1,329 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room
+
+import androidx.paging.PagingSource
+import androidx.room.withTransaction
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.AuditInfo
+import com.google.android.ground.model.User
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.LinearRing
+import com.google.android.ground.model.geometry.Polygon
+import com.google.android.ground.model.job.Job
+import com.google.android.ground.model.locationofinterest.LocationOfInterest
+import com.google.android.ground.model.submission.TaskDataMap
+import com.google.android.ground.model.submission.TextTaskData
+import com.google.android.ground.model.task.Task
+import com.google.android.ground.persistence.local.room.converter.ResponseMapConverter
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.dao.LocationOfInterestDao
+import com.google.android.ground.persistence.local.room.dao.LocationOfInterestMutationDao
+import com.google.android.ground.persistence.local.room.dao.MutationDao
+import com.google.android.ground.persistence.local.room.dao.SubmissionDao
+import com.google.android.ground.persistence.local.room.dao.SubmissionMutationDao
+import com.google.android.ground.persistence.local.room.entity.LocationOfInterestMutationEntity
+import com.google.android.ground.persistence.local.room.entity.SubmissionEntity
+import com.google.android.ground.persistence.local.room.entity.SubmissionMutationEntity
+import com.google.android.ground.persistence.local.room.fields.EntityState
+import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
+import com.google.android.ground.persistence.local.room.fields.MutationEntityType
+import com.google.android.ground.persistence.local.stores.LocalLocationOfInterestStore
+import com.google.android.ground.persistence.local.stores.LocalMutationSyncStore
+import com.google.android.ground.persistence.local.stores.LocalSubmissionStore
+import com.google.common.truth.Truth.assertThat
+import com.google.common.truth.Truth.assertWithMessage
+import dagger.hilt.android.testing.HiltAndroidTest
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.first
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Regression suite for the performance of the local db at the scale of large surveys. Synthetic
+ * data is written through the real [LocalDatabase] schema, and DAO and store operations are timed
+ * against generous budgets. Seeding takes minutes, so the suite only runs when Gradle is invoked
+ * with `-PperformanceTests`. Query plans are checked on every build by
+ * [LocalDatabaseQueryPlanTest].
+ */
+@HiltAndroidTest
+@RunWith(RobolectricTestRunner::class)
+@OptIn(ExperimentalCoroutinesApi::class)
+class LocalDatabasePerformanceTest : BaseHiltTest() {
+  @Inject lateinit var localDatabase: LocalDatabase
+  @Inject lateinit var localLoiStore: LocalLocationOfInterestStore
+  @Inject lateinit var localSubmissionStore: LocalSubmissionStore
+  @Inject lateinit var localMutationSyncStore: LocalMutationSyncStore
+  @Inject lateinit var locationOfInterestDao: LocationOfInterestDao
+  @Inject lateinit var locationOfInterestMutationDao: LocationOfInterestMutationDao
+  @Inject lateinit var mutationDao: MutationDao
+  @Inject lateinit var submissionDao: SubmissionDao
+  @Inject lateinit var submissionMutationDao: SubmissionMutationDao
+
+  @Test
+  fun locationOfInterestSync_withinBudget() = runWithTestDispatcher {
+    val lois = (0 until LOI_COUNT).map { newLoi(it) }
+
+    withinBudget("Full LOI sync", FULL_LOI_SYNC_BUDGET_MS) {
+      localLoiStore.replaceAll(SURVEY_ID, lois)
+    }
+    // Re-syncing the same survey with a few LOIs removed upserts everything and deletes the rest.
+    withinBudget("Repeat LOI sync", FULL_LOI_SYNC_BUDGET_MS) {
+      localLoiStore.replaceAll(SURVEY_ID, lois.drop(DELETED_LOI_COUNT))
+    }
+    val remaining =
+      withinBudget("Load all LOIs", LOAD_ALL_LOIS_BUDGET_MS) {
+        locationOfInterestDao.findByState(SURVEY_ID, EntityState.DEFAULT).first()
+      }
+    assertThat(remaining).hasSize(LOI_COUNT - DELETED_LOI_COUNT)
+
+    val inBounds =
+      withinBudget("Load LOIs in viewport", VIEWPORT_QUERY_BUDGET_MS) {
+        locationOfInterestDao
+          .findWithinBoundsOnceAndStream(SURVEY_ID, EntityState.DEFAULT, 1.0, 1.0, 1.095, 1.095)
+          .blockingFirst()
+      }
+    assertThat(inBounds).hasSize(100)
+  }
+
+  @Test
+  fun submissionQueries_withinBudget() = runWithTestDispatcher {
+    insertLois(LOI_COUNT)
+    withinBudget("Insert submissions", INSERT_SUBMISSIONS_BUDGET_MS) {
+      localDatabase.withTransaction {
+        (0 until SUBMISSION_COUNT).chunked(BATCH_SIZE).forEach { batch ->
+          submissionDao.upsertAllSuspend(batch.map { newSubmission(it) })
+        }
+      }
+    }
+
+    withinBudget("Find submissions by LOI", LOOKUPS_BUDGET_MS) {
+      sampleLoiIds().forEach {
+        assertThat(
+            submissionDao
+              .findByLocationOfInterestId(it, JOB.id, EntityState.DEFAULT)
+              .blockingGet()
+          )
+          .hasSize(SUBMISSIONS_PER_LOI)
+      }
+    }
+    withinBudget("Count submissions by LOI", LOOKUPS_BUDGET_MS) {
+      sampleLoiIds().forEach {
+        assertThat(
+            submissionDao.countByLocationOfInterestId(it, JOB.id, EntityState.DEFAULT).first()
+          )
+          .isEqualTo(SUBMISSIONS_PER_LOI)
+      }
+    }
+    // Deleting LOIs cascades to their submissions, which requires an index on the child key.
+    withinBudget("Delete LOIs and their submissions", LOOKUPS_BUDGET_MS) {
+      sampleLoiIds().chunked(BATCH_SIZE).forEach { locationOfInterestDao.deleteByIds(it) }
+    }
+    assertThat(submissionCount()).isEqualTo(SUBMISSION_COUNT - SAMPLE_SIZE * SUBMISSIONS_PER_LOI)
+  }
+
+  @Test
+  fun mutationBacklog_withinBudget() = runWithTestDispatcher {
+    insertLois(MUTATION_LOI_COUNT)
+    localDatabase.withTransaction {
+      (0 until MUTATION_LOI_COUNT * SUBMISSIONS_PER_LOI).chunked(BATCH_SIZE).forEach { batch ->
+        submissionDao.upsertAllSuspend(batch.map { newSubmission(it) })
+      }
+    }
+    withinBudget("Enqueue mutations", INSERT_MUTATIONS_BUDGET_MS) {
+      localDatabase.withTransaction {
+        (0 until MUTATION_COUNT).chunked(BATCH_SIZE).forEach { batch ->
+          locationOfInterestMutationDao.upsertAllSuspend(batch.map { newLoiMutation(it) })
+          submissionMutationDao.upsertAllSuspend(batch.map { newSubmissionMutation(it) })
+        }
+      }
+    }
+
+    val pending =
+      withinBudget("Load pending mutations", LOAD_MUTATIONS_BUDGET_MS) {
+        localLoiStore.findByState(MutationEntitySyncStatus.PENDING).blockingGet() +
+          localSubmissionStore.findByState(MutationEntitySyncStatus.PENDING).blockingGet()
+      }
+    assertThat(pending).hasSize(2 * MUTATION_COUNT)
+    withinBudget("Find mutations by LOI", LOOKUPS_BUDGET_MS) {
+      (0 until SAMPLE_SIZE).forEach {
+        val loiId = loiId(it * MUTATION_LOI_COUNT / SAMPLE_SIZE)
+        localLoiStore
+          .findByLocationOfInterestId(loiId, MutationEntitySyncStatus.PENDING)
+          .blockingGet()
+        localSubmissionStore
+          .findByLocationOfInterestId(loiId, MutationEntitySyncStatus.PENDING)
+          .blockingGet()
+      }
+    }
+    withinBudget("Load first page of mutations by survey", LOAD_MUTATIONS_BUDGET_MS) {
+      mutationDao
+        .getMutationsAndLocationsOfInterest(SURVEY_ID)
+        .load(PagingSource.LoadParams.Refresh(key = null, PAGE_SIZE, placeholdersEnabled = false))
+    }
+
+    localDatabase.openHelper.writableDatabase.execSQL(
+      "UPDATE submission_mutation SET state = ${MutationEntitySyncStatus.COMPLETED.intValue()}"
+    )
+    withinBudget("Prune completed mutations", PRUNE_MUTATIONS_BUDGET_MS) {
+      localMutationSyncStore.deleteCompletedMutations(RETAINED_MUTATION_COUNT)
+    }
+    assertThat(
+        submissionMutationDao.findByState(MutationEntitySyncStatus.COMPLETED).blockingGet()
+      )
+      .hasSize(RETAINED_MUTATION_COUNT)
+  }
+
+  /** Runs [block], failing if it takes longer than [budgetMs] milliseconds. */
+  private inline fun <T> withinBudget(operation: String, budgetMs: Long, block: () -> T): T {
+    val start = System.nanoTime()
+    val result = block()
+    val elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+    assertWithMessage("$operation took ${elapsedMs}ms, budget is ${budgetMs}ms")
+      .that(elapsedMs)
+      .isAtMost(budgetMs)
+    return result
+  }
+
+  private fun submissionCount(): Int =
+    localDatabase.openHelper.readableDatabase.query("SELECT COUNT(*) FROM submission").use {
+      it.moveToFirst()
+      it.getInt(0)
+    }
+
+  private suspend fun insertLois(count: Int) =
+    localDatabase.withTransaction {
+      (0 until count).chunked(BATCH_SIZE).forEach { batch ->
+        locationOfInterestDao.upsertAll(batch.map { newLoi(it).toLocalDataStoreObject() })
+      }
+    }
+
+  /** Returns ids of [SAMPLE_SIZE] LOIs spread evenly across the first [LOI_COUNT] LOIs. */
+  private fun sampleLoiIds(): List<String> =
+    (0 until SAMPLE_SIZE).map { loiId(it * (LOI_COUNT / SAMPLE_SIZE)) }
+
+  private fun loiId(index: Int) = "loi $index"
+
+  /** Returns a square LOI on a 0.01 degree grid with 1000 columns, starting at (0, 0). */
+  private fun newLoi(index: Int): LocationOfInterest {
+    val lat = (index / GRID_COLUMNS) * GRID_SPACING
+    val lng = (index % GRID_COLUMNS) * GRID_SPACING
+    val size = GRID_SPACING / 2
+    return LocationOfInterest(
+      id = loiId(index),
+      surveyId = SURVEY_ID,
+      job = JOB,
+      created = AUDIT_INFO,
+      lastModified = AUDIT_INFO,
+      geometry =
+        Polygon(
+          LinearRing(
+            listOf(
+              Coordinate(lat, lng),
+              Coordinate(lat, lng + size),
+              Coordinate(lat + size, lng + size),
+              Coordinate(lat + size, lng),
+              Coordinate(lat, lng)
+            )
+          )
+        )
+    )
+  }
+
+  private fun newSubmission(index: Int) =
+    SubmissionEntity(
+      id = "submission $index",
+      locationOfInterestId = loiId(index / SUBMISSIONS_PER_LOI),
+      jobId = JOB.id,
+      state = EntityState.DEFAULT,
+      responses = RESPONSES,
+      created = AUDIT_INFO.toLocalDataStoreObject(),
+      lastModified = AUDIT_INFO.toLocalDataStoreObject()
+    )
+
+  private fun newLoiMutation(index: Int) =
+    LocationOfInterestMutationEntity(
+      id = null,
+      surveyId = SURVEY_ID,
+      type = MutationEntityType.UPDATE,
+      syncStatus = MutationEntitySyncStatus.PENDING,
+      retryCount = 0,
+      lastError = "",
+      userId = USER.id,
+      clientTimestamp = index.toLong(),
+      locationOfInterestId = loiId(index % MUTATION_LOI_COUNT),
+      jobId = JOB.id,
+      caption = null,
+      newGeometry = null
+    )
+
+  private fun newSubmissionMutation(index: Int): SubmissionMutationEntity {
+    val submissionIndex = index % (MUTATION_LOI_COUNT * SUBMISSIONS_PER_LOI)
+    return SubmissionMutationEntity(
+      id = null,
+      surveyId = SURVEY_ID,
+      type = MutationEntityType.UPDATE,
+      syncStatus = MutationEntitySyncStatus.PENDING,
+      retryCount = 0,
+      lastError = "",
+      userId = USER.id,
+      clientTimestamp = index.toLong(),
+      locationOfInterestId = loiId(submissionIndex / SUBMISSIONS_PER_LOI),
+      jobId = JOB.id,
+      submissionId = "submission $submissionIndex",
+      responseDeltas = null
+    )
+  }
+
+  companion object {
+    private const val SURVEY_ID = "survey id"
+    private const val LOI_COUNT = 100_000
+    private const val SUBMISSIONS_PER_LOI = 5
+    private const val SUBMISSION_COUNT = LOI_COUNT * SUBMISSIONS_PER_LOI
+    private const val MUTATION_LOI_COUNT = 10_000
+    private const val MUTATION_COUNT = 100_000
+    private const val RETAINED_MUTATION_COUNT = 100
+    private const val DELETED_LOI_COUNT = 1_000
+    private const val SAMPLE_SIZE = 1_000
+    private const val BATCH_SIZE = 500
+    private const val PAGE_SIZE = 50
+    private const val GRID_COLUMNS = 1_000
+    private const val GRID_SPACING = 0.01
+
+    // Budgets are several times the time taken on CI, so that only regressions in complexity (e.g.
+    // a full table scan per lookup) exceed them.
+    private const val FULL_LOI_SYNC_BUDGET_MS = 60_000L
+    private const val LOAD_ALL_LOIS_BUDGET_MS = 20_000L
+    private const val VIEWPORT_QUERY_BUDGET_MS = 2_000L
+    private const val INSERT_SUBMISSIONS_BUDGET_MS = 120_000L
+    private const val INSERT_MUTATIONS_BUDGET_MS = 60_000L
+    private const val LOAD_MUTATIONS_BUDGET_MS = 20_000L
+    private const val PRUNE_MUTATIONS_BUDGET_MS = 10_000L
+    private const val LOOKUPS_BUDGET_MS = 10_000L
+
+    private val USER = User("user id", "user@gmail.com", "user 1")
+    private val AUDIT_INFO = AuditInfo(USER)
+    private val TASK = Task("task id", 1, Task.Type.TEXT, "task label", false)
+    private val JOB = Job("job id", "job name", mapOf(TASK.id to TASK))
+    private val RESPONSES =
+      ResponseMapConverter.toByteArray(
+        TaskDataMap(mapOf(TASK.id to TextTaskData.fromString("response").get()))
+      )
+  }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room
+
+import android.content.Context
+import androidx.paging.PagingSource
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import com.google.android.ground.persistence.local.room.entity.JobEntity
+import com.google.android.ground.persistence.local.room.entity.SurveyEntity
+import com.google.android.ground.persistence.local.room.entity.TaskEntity
+import com.google.android.ground.persistence.local.room.fields.EntityState
+import com.google.android.ground.persistence.local.room.fields.MutationEntitySyncStatus
+import com.google.android.ground.persistence.local.room.fields.TaskEntityType
+import com.google.common.truth.Truth.assertWithMessage
+import java.util.Collections
+import java.util.concurrent.Executor
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Checks that DAO queries search indices rather than scanning whole tables. Each DAO method is
+ * called against a real [LocalDatabase], the SQL Room issues is captured with a query callback, and
+ * its plan is checked with `EXPLAIN QUERY PLAN`, so that dropping or reordering an index fails the
+ * build even though the timings in [LocalDatabasePerformanceTest] only run on demand.
+ */
+@RunWith(RobolectricTestRunner::class)
+class LocalDatabaseQueryPlanTest {
+  private val statements = Collections.synchronizedList(mutableListOf<Statement>())
+  private lateinit var localDatabase: LocalDatabase
+
+  @Before
+  fun setUp() {
+    localDatabase =
+      Room.inMemoryDatabaseBuilder(
+          ApplicationProvider.getApplicationContext<Context>(),
+          LocalDatabase::class.java
+        )
+        .allowMainThreadQueries()
+        .setQueryCallback(
+          { sql, args -> statements.add(Statement(sql, args)) },
+          Executor { it.run() }
+        )
+        .build()
+    // Relations are only loaded for rows which exist, so seed one survey, job and task.
+    runBlocking {
+      localDatabase.surveyDao().insertSuspend(SurveyEntity(SURVEY_ID, "", "", null))
+      localDatabase.jobDao().insertSuspend(JobEntity(JOB_ID, "", SURVEY_ID, null))
+      localDatabase
+        .taskDao()
+        .insertSuspend(TaskEntity(TASK_ID, 0, TaskEntityType.TEXT, "", false, JOB_ID))
+    }
+  }
+
+  @After
+  fun tearDown() {
+    localDatabase.close()
+  }
+
+  @Test
+  fun locationOfInterestDao_usesIndices() {
+    val dao = localDatabase.locationOfInterestDao()
+    assertUsesIndices("findOnceAndStream") {
+      dao.findOnceAndStream(SURVEY_ID, EntityState.DEFAULT).blockingFirst()
+    }
+    assertUsesIndices("findByState") { dao.findByState(SURVEY_ID, EntityState.DEFAULT).first() }
+    assertUsesIndices("findWithinBoundsOnceAndStream") {
+      dao
+        .findWithinBoundsOnceAndStream(SURVEY_ID, EntityState.DEFAULT, 0.0, 0.0, 1.0, 1.0)
+        .blockingFirst()
+    }
+    assertUsesIndices("findById") { dao.findById(LOI_ID).blockingGet() }
+    assertUsesIndices("deleteByIds") { dao.deleteByIds(listOf(LOI_ID)) }
+  }
+
+  @Test
+  fun locationOfInterestMutationDao_usesIndices() {
+    val dao = localDatabase.locationOfInterestMutationDao()
+    assertUsesIndices("deleteByStateExceptMostRecent") {
+      dao.deleteByStateExceptMostRecent(MutationEntitySyncStatus.COMPLETED, RETAIN_COUNT)
+    }
+    assertUsesIndices("findByState") { dao.findByState(*SYNC_STATUSES).blockingGet() }
+    assertUsesIndices("findByLocationOfInterestId") {
+      dao.findByLocationOfInterestId(LOI_ID, *SYNC_STATUSES).blockingGet()
+    }
+    assertUsesIndices("findByLocationOfInterestIdOnceAndStream") {
+      dao.findByLocationOfInterestIdOnceAndStream(LOI_ID, *SYNC_STATUSES).blockingFirst()
+    }
+  }
+
+  @Test
+  fun submissionDao_usesIndices() {
+    val dao = localDatabase.submissionDao()
+    assertUsesIndices("findById") { dao.findById(SUBMISSION_ID).blockingGet() }
+    assertUsesIndices("deleteByIds") { dao.deleteByIds(listOf(SUBMISSION_ID)) }
+    assertUsesIndices("findByLocationOfInterestId") {
+      dao.findByLocationOfInterestId(LOI_ID, JOB_ID, EntityState.DEFAULT).blockingGet()
+    }
+    assertUsesIndices("countByLocationOfInterestId") {
+      dao.countByLocationOfInterestId(LOI_ID, JOB_ID, EntityState.DEFAULT).first()
+    }
+  }
+
+  @Test
+  fun submissionMutationDao_usesIndices() {
+    val dao = localDatabase.submissionMutationDao()
+    assertUsesIndices("deleteByStateExceptMostRecent") {
+      dao.deleteByStateExceptMostRecent(MutationEntitySyncStatus.COMPLETED, RETAIN_COUNT)
+    }
+    assertUsesIndices("findByState") { dao.findByState(*SYNC_STATUSES).blockingGet() }
+    assertUsesIndices("findByLocationOfInterestId") {
+      dao.findByLocationOfInterestId(LOI_ID, *SYNC_STATUSES).blockingGet()
+    }
+    assertUsesIndices("findBySubmissionId") {
+      dao.findBySubmissionId(SUBMISSION_ID, *SYNC_STATUSES).blockingGet()
+    }
+    assertUsesIndices("findByLocationOfInterestIdOnceAndStream") {
+      dao.findByLocationOfInterestIdOnceAndStream(LOI_ID, *SYNC_STATUSES).blockingFirst()
+    }
+  }
+
+  @Test
+  fun mutationDao_usesIndices() {
+    assertUsesIndices("getMutationsAndLocationsOfInterest") {
+      localDatabase
+        .mutationDao()
+        .getMutationsAndLocationsOfInterest(SURVEY_ID)
+        .load(PagingSource.LoadParams.Refresh(key = null, PAGE_SIZE, placeholdersEnabled = false))
+    }
+  }
+
+  @Test
+  fun surveyDao_usesIndices() {
+    val dao = localDatabase.surveyDao()
+    // Only surveys the user has opened on this device are stored locally.
+    assertUsesIndices("getAll", allowedScans = setOf("survey")) { dao.getAll().first() }
+    assertUsesIndices("getSurveyById") { dao.getSurveyById(SURVEY_ID).blockingGet() }
+    assertUsesIndices("getSurveyByIdSuspend") { dao.getSurveyByIdSuspend(SURVEY_ID) }
+  }
+
+  @Test
+  fun jobAndBaseMapDaos_useIndices() {
+    assertUsesIndices("BaseMapDao.deleteBySurveyId") {
+      localDatabase.baseMapDao().deleteBySurveyId(SURVEY_ID).blockingAwait()
+    }
+    assertUsesIndices("JobDao.deleteBySurveyId") {
+      localDatabase.jobDao().deleteBySurveyId(SURVEY_ID).blockingAwait()
+    }
+  }
+
+  @Test
+  fun userDao_usesIndices() {
+    assertUsesIndices("findById") { localDatabase.userDao().findById(USER_ID).blockingGet() }
+  }
+
+  @Test
+  fun offlineAreaDao_usesIndices() {
+    val dao = localDatabase.offlineAreaDao()
+    // Offline areas are created by hand, so there are only ever a few of them.
+    assertUsesIndices("findAllOnceAndStream", allowedScans = setOf("offline_base_map")) {
+      dao.findAllOnceAndStream().blockingFirst()
+    }
+    assertUsesIndices("findById") { dao.findById(OFFLINE_AREA_ID).blockingGet() }
+  }
+
+  @Test
+  fun tileSetDao_usesIndices() {
+    val dao = localDatabase.tileSetDao()
+    // There is one tile set per downloaded tile archive, so only lookups by id are indexed.
+    val tileSets = setOf("tile_sources")
+    assertUsesIndices("findAllOnceAndStream", tileSets) {
+      dao.findAllOnceAndStream().blockingFirst()
+    }
+    assertUsesIndices("findByState", tileSets) { dao.findByState(1).blockingGet() }
+    assertUsesIndices("findByStates", tileSets) { dao.findByStates(1, 2).blockingGet() }
+    assertUsesIndices("findById") { dao.findById(TILE_SET_ID).blockingGet() }
+    assertUsesIndices("findByUrl", tileSets) { dao.findByUrl(TILE_SET_URL).blockingGet() }
+    assertUsesIndices("findByPath", tileSets) { dao.findByPath(TILE_SET_PATH).blockingGet() }
+    assertUsesIndices("updateBasemapReferenceCount", tileSets) {
+      dao.updateBasemapReferenceCount(1, TILE_SET_URL).blockingGet()
+    }
+    assertUsesIndices("updateDownloadProgress") {
+      dao.updateDownloadProgress(TILE_SET_ID, 1, 0).blockingGet()
+    }
+    assertUsesIndices("deleteByUrl", tileSets) { dao.deleteByUrl(TILE_SET_URL).blockingGet() }
+  }
+
+  @Test
+  fun foreignKeys_areIndexed() {
+    val db = localDatabase.openHelper.readableDatabase
+    tableNames().forEach { table ->
+      val indexedColumns =
+        db.query("PRAGMA index_list(`$table`)").use { indices ->
+          buildSet {
+            while (indices.moveToNext()) {
+              val index = indices.getString(indices.getColumnIndexOrThrow("name"))
+              add(leadingColumn(index))
+            }
+          }
+        }
+      db.query("PRAGMA foreign_key_list(`$table`)").use { foreignKeys ->
+        while (foreignKeys.moveToNext()) {
+          val column = foreignKeys.getString(foreignKeys.getColumnIndexOrThrow("from"))
+          assertWithMessage("Foreign key $table.$column has no index")
+            .that(indexedColumns)
+            .contains(column)
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs [call], failing if it issues no queries, or if the plan of any query it issues scans a
+   * table other than [allowedScans].
+   */
+  private fun assertUsesIndices(
+    call: String,
+    allowedScans: Set<String> = setOf(),
+    block: suspend () -> Unit
+  ) {
+    statements.clear()
+    runBlocking { block() }
+    val queries = synchronized(statements) { statements.filter { it.isDaoQuery() } }
+    assertWithMessage("$call issued no queries").that(queries).isNotEmpty()
+    queries.forEach { query ->
+      val plan = queryPlan(query)
+      val scannedTables = plan.mapNotNull { FULL_SCAN_REGEX.matchEntire(it)?.groupValues?.get(2) }
+      assertWithMessage("Plan for $call: ${query.sql}\n$plan")
+        .that(scannedTables - allowedScans)
+        .isEmpty()
+    }
+  }
+
+  /** Returns the details of each step of the plan SQLite chooses for the specified statement. */
+  private fun queryPlan(statement: Statement): List<String> =
+    localDatabase
+      .openHelper
+      .readableDatabase
+      .query("EXPLAIN QUERY PLAN ${statement.sql}", statement.args.toTypedArray())
+      .use { cursor ->
+        buildList {
+          while (cursor.moveToNext()) add(cursor.getString(cursor.getColumnIndexOrThrow("detail")))
+        }
+      }
+
+  private fun tableNames(): List<String> =
+    localDatabase
+      .openHelper
+      .readableDatabase
+      .query(
+        "SELECT name FROM sqlite_master WHERE type = 'table' " +
+          "AND name NOT LIKE 'sqlite_%' AND name NOT IN ('room_master_table', 'android_metadata')"
+      )
+      .use { cursor -> buildList { while (cursor.moveToNext()) add(cursor.getString(0)) } }
+
+  private fun leadingColumn(index: String): String? =
+    localDatabase.openHelper.readableDatabase.query("PRAGMA index_info(`$index`)").use { cursor ->
+      cursor.moveToFirst()
+      cursor.getString(cursor.getColumnIndexOrThrow("name"))
+    }
+
+  /** A statement issued by Room, along with the arguments bound to it. */
+  private data class Statement(val sql: String, val args: List<Any?>) {
+    /**
+     * Whether this statement was declared by a DAO or generated for one, rather than issued by
+     * Room to manage transactions or track invalidations.
+     */
+    fun isDaoQuery() = DAO_QUERY_REGEX.containsMatchIn(sql) && !sql.contains(ROOM_TABLE_PREFIX)
+  }
+
+  companion object {
+    private const val SURVEY_ID = "survey id"
+    private const val JOB_ID = "job id"
+    private const val TASK_ID = "task id"
+    private const val LOI_ID = "loi id"
+    private const val SUBMISSION_ID = "submission id"
+    private const val USER_ID = "user id"
+    private const val OFFLINE_AREA_ID = "offline area id"
+    private const val TILE_SET_ID = "tile set id"
+    private const val TILE_SET_URL = "https://example.com/tiles.mbtiles"
+    private const val TILE_SET_PATH = "tiles.mbtiles"
+    private const val RETAIN_COUNT = 100
+    private const val PAGE_SIZE = 50
+    private const val ROOM_TABLE_PREFIX = "room_"
+
+    private val SYNC_STATUSES =
+      arrayOf(MutationEntitySyncStatus.PENDING, MutationEntitySyncStatus.FAILED)
+
+    private val DAO_QUERY_REGEX = Regex("^\\s*(SELECT|UPDATE|DELETE)\\b", RegexOption.IGNORE_CASE)
+
+    /** Matches plan steps which read every row of a table rather than searching an index. */
+    private val FULL_SCAN_REGEX = Regex("^SCAN (TABLE )?(\\w+)( AS \\w+)?$")
+  }
+}
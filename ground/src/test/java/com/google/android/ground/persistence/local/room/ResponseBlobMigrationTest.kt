@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room
+
+import android.content.Context
+import android.database.Cursor
+import androidx.room.Room
+import androidx.room.testing.MigrationTestHelper
+import androidx.room.util.TableInfo
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.platform.app.InstrumentationRegistry.getInstrumentation
+import com.google.android.ground.model.job.Job
+import com.google.android.ground.model.submission.TaskDataDelta
+import com.google.android.ground.model.submission.TextTaskData
+import com.google.android.ground.model.task.Task
+import com.google.android.ground.persistence.local.room.converter.ResponseDeltasConverter
+import com.google.android.ground.persistence.local.room.converter.ResponseMapConverter
+import com.google.common.truth.Truth.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Tests [ResponseBlobMigration] against the schemas in src/test/schemas, which contain only the
+ * tables recreated by the migration.
+ */
+@RunWith(RobolectricTestRunner::class)
+class ResponseBlobMigrationTest {
+
+  @get:Rule val helper = MigrationTestHelper(getInstrumentation(), LocalDatabase::class.java)
+
+  @Test
+  fun migrate_copiesLegacyJsonAsBlobs() {
+    helper.createDatabase(TEST_DB, 103).use {
+      it.execSQL(
+        "INSERT INTO submission (id, location_of_interest_id, job_id, state, responses, " +
+          "$AUDIT_INFO_COLUMNS) VALUES (?, ?, ?, 1, ?, $AUDIT_INFO_VALUES)",
+        arrayOf(SUBMISSION_ID, LOI_ID, JOB.id, """{"$TASK_ID":"foo"}""")
+      )
+      it.execSQL(
+        "INSERT INTO submission_mutation (id, survey_id, type, state, retry_count, last_error, " +
+          "user_id, client_timestamp, location_of_interest_id, job_id, submission_id, " +
+          "response_deltas) VALUES (?, 'survey id', 1, 1, 0, '', 'user id', 0, ?, ?, ?, ?)",
+        arrayOf(1, LOI_ID, JOB.id, SUBMISSION_ID, """{"$TASK_ID":$LEGACY_DELTA}""")
+      )
+      it.execSQL(
+        "INSERT INTO submission_mutation (id, survey_id, type, state, retry_count, last_error, " +
+          "user_id, client_timestamp, location_of_interest_id, job_id, submission_id, " +
+          "response_deltas) VALUES (?, 'survey id', 3, 1, 0, '', 'user id', 0, ?, ?, ?, NULL)",
+        arrayOf(2, LOI_ID, JOB.id, SUBMISSION_ID)
+      )
+    }
+
+    val db = helper.runMigrationsAndValidate(TEST_DB, 104, true, ResponseBlobMigration)
+
+    db.query("SELECT responses FROM submission WHERE id = ?", arrayOf(SUBMISSION_ID)).use {
+      assertThat(it.moveToFirst()).isTrue()
+      assertThat(it.getType(0)).isEqualTo(Cursor.FIELD_TYPE_BLOB)
+      assertThat(ResponseMapConverter.fromByteArray(JOB, it.getBlob(0)).getResponse(TASK_ID))
+        .isEqualTo(TextTaskData.fromString("foo"))
+    }
+    db.query("SELECT response_deltas FROM submission_mutation ORDER BY id").use {
+      assertThat(it.moveToFirst()).isTrue()
+      assertThat(it.getType(0)).isEqualTo(Cursor.FIELD_TYPE_BLOB)
+      assertThat(ResponseDeltasConverter.fromByteArray(JOB, it.getBlob(0)))
+        .containsExactly(TaskDataDelta(TASK_ID, Task.Type.TEXT, TextTaskData.fromString("bar")))
+      assertThat(it.moveToNext()).isTrue()
+      assertThat(it.isNull(0)).isTrue()
+    }
+  }
+
+  @Test
+  fun migrate_matchesTablesCreatedFromCurrentEntities() {
+    helper.createDatabase(TEST_DB, 103).close()
+
+    val migrated = helper.runMigrationsAndValidate(TEST_DB, 104, true, ResponseBlobMigration)
+
+    val context = ApplicationProvider.getApplicationContext<Context>()
+    val current = Room.inMemoryDatabaseBuilder(context, LocalDatabase::class.java).build()
+    val currentDb = current.openHelper.writableDatabase
+    listOf("submission", "submission_mutation").forEach {
+      assertThat(TableInfo.read(migrated, it)).isEqualTo(TableInfo.read(currentDb, it))
+    }
+    assertThat(TableInfo.read(migrated, "submission_mutation").indices?.map { it.name })
+      .containsExactly(
+        "index_submission_mutation_location_of_interest_id",
+        "index_submission_mutation_submission_id",
+        "index_submission_mutation_survey_id_state",
+        "index_submission_mutation_state"
+      )
+    current.close()
+  }
+
+  companion object {
+    private const val TEST_DB = "migration-test"
+    private const val LOI_ID = "loi id"
+    private const val SUBMISSION_ID = "submission id"
+    private const val TASK_ID = "text task"
+    private const val LEGACY_DELTA = """{"taskType":"TEXT","newTaskData":"bar"}"""
+
+    private const val AUDIT_INFO_COLUMNS =
+      "created_user_id, created_user_email, created_user_display_name, " +
+        "created_clientTimestamp, modified_user_id, modified_user_email, " +
+        "modified_user_display_name, modified_clientTimestamp"
+    private const val AUDIT_INFO_VALUES = "'user id', '', '', 0, 'user id', '', '', 0"
+
+    private val JOB =
+      Job("job id", "job name", mapOf(TASK_ID to Task(TASK_ID, 0, Task.Type.TEXT, "Text", false)))
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.converter
+
+import com.google.android.ground.model.job.Job
+import com.google.android.ground.model.submission.DateTaskData
+import com.google.android.ground.model.submission.NumberTaskData
+import com.google.android.ground.model.submission.TaskDataDelta
+import com.google.android.ground.model.submission.TaskDataMap
+import com.google.android.ground.model.submission.TextTaskData
+import com.google.android.ground.model.task.Task
+import com.google.common.truth.Truth.assertThat
+import java.util.*
+import java8.util.Optional
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class ResponseMapConverterTest {
+
+  @Test
+  fun fromByteArray_returnsEncodedResponses() {
+    val bytes = ResponseMapConverter.toByteArray(RESPONSES)
+
+    assertThat(ResponseMapConverter.fromByteArray(JOB, bytes)).isEqualTo(RESPONSES)
+  }
+
+  @Test
+  fun fromByteArray_readsLegacyJson() {
+    val json = """{"text task":"foo","number task":12.5}"""
+
+    val responses = ResponseMapConverter.fromByteArray(JOB, json.toByteArray())
+
+    assertThat(responses.getResponse(TEXT_TASK.id)).isEqualTo(TextTaskData.fromString("foo"))
+    assertThat(responses.getResponse(NUMBER_TASK.id)).isEqualTo(NumberTaskData.fromNumber("12.5"))
+  }
+
+  @Test
+  fun fromByteArray_skipsUnknownTasks() {
+    val bytes = ResponseMapConverter.toByteArray(RESPONSES)
+
+    val responses = ResponseMapConverter.fromByteArray(Job("job", "job name"), bytes)
+
+    assertThat(responses.taskIds()).isEmpty()
+  }
+
+  @Test
+  fun applyDeltas_matchesCopyWithDeltas() {
+    val deltas =
+      listOf(
+        listOf(TaskDataDelta(TEXT_TASK.id, Task.Type.TEXT, TextTaskData.fromString("bar"))),
+        listOf(TaskDataDelta(NUMBER_TASK.id, Task.Type.NUMBER, Optional.empty()))
+      )
+
+    val bytes =
+      ResponseMapConverter.applyDeltas(
+        JOB,
+        ResponseMapConverter.toByteArray(RESPONSES),
+        deltas.map { ResponseDeltasConverter.toByteArray(it) }
+      )
+
+    assertThat(ResponseMapConverter.fromByteArray(JOB, bytes))
+      .isEqualTo(RESPONSES.copyWithDeltas(deltas.flatten()))
+  }
+
+  companion object {
+    private val TEXT_TASK = Task("text task", 0, Task.Type.TEXT, "Text", false)
+    private val NUMBER_TASK = Task("number task", 1, Task.Type.NUMBER, "Number", false)
+    private val DATE_TASK = Task("date task", 2, Task.Type.DATE, "Date", false)
+    private val JOB =
+      Job("job", "job name", listOf(TEXT_TASK, NUMBER_TASK, DATE_TASK).associateBy { it.id })
+    private val RESPONSES =
+      TaskDataMap(
+        mapOf(
+          TEXT_TASK.id to TextTaskData("foo"),
+          NUMBER_TASK.id to NumberTaskData("12.5"),
+          DATE_TASK.id to DateTaskData(Date(1_600_000_000_000))
+        )
+      )
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.local.room.dao
+
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.Geometry
+import com.google.android.ground.model.geometry.LinearRing
+import com.google.android.ground.model.geometry.Point
+import com.google.android.ground.model.geometry.Polygon
+import com.google.android.ground.persistence.local.room.converter.toLocalDataStoreObject
+import com.google.android.ground.persistence.local.room.entity.LocationOfInterestEntity
+import com.google.android.ground.persistence.local.room.fields.EntityState
+import com.google.android.ground.ui.map.Bounds
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import dagger.hilt.android.testing.HiltAndroidTest
+import javax.inject.Inject
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@HiltAndroidTest
+@RunWith(RobolectricTestRunner::class)
+@OptIn(ExperimentalCoroutinesApi::class)
+class LocationOfInterestDaoTest : BaseHiltTest() {
+  @Inject lateinit var locationOfInterestDao: LocationOfInterestDao
+
+  @Test
+  fun findWithinBounds_returnsLoisInsideBounds() = runWithTestDispatcher {
+    locationOfInterestDao.upsertAll(listOf(ORIGIN_POINT, EAST_POINT, WEST_POINT))
+
+    assertThat(findWithinBounds(Bounds(Coordinate(-1.0, -1.0), Coordinate(1.0, 1.0))))
+      .containsExactly(ORIGIN_POINT.id)
+  }
+
+  @Test
+  fun findWithinBounds_whenNothingInBounds_returnsEmptyList() = runWithTestDispatcher {
+    locationOfInterestDao.upsertAll(listOf(ORIGIN_POINT, EAST_POINT, SQUARE))
+
+    assertThat(findWithinBounds(Bounds(Coordinate(-60.0, -60.0), Coordinate(-50.0, -50.0))))
+      .isEmpty()
+  }
+
+  @Test
+  fun findWithinBounds_whenBoundsInsidePolygon_returnsPolygon() = runWithTestDispatcher {
+    locationOfInterestDao.upsertAll(listOf(ORIGIN_POINT, SQUARE))
+
+    // No vertex of the square is within the bounds, but its bounding box covers them.
+    assertThat(findWithinBounds(Bounds(Coordinate(14.0, 14.0), Coordinate(16.0, 16.0))))
+      .containsExactly(SQUARE.id)
+  }
+
+  @Test
+  fun findWithinBounds_whenPolygonOverlapsEdgeOfBounds_returnsPolygon() = runWithTestDispatcher {
+    locationOfInterestDao.upsertAll(listOf(ORIGIN_POINT, SQUARE))
+
+    assertThat(findWithinBounds(Bounds(Coordinate(5.0, 5.0), Coordinate(12.0, 12.0))))
+      .containsExactly(SQUARE.id)
+  }
+
+  @Test
+  fun findWithinBounds_whenBoundsCrossAntimeridian_returnsLoisOnBothSides() =
+    runWithTestDispatcher {
+      locationOfInterestDao.upsertAll(listOf(ORIGIN_POINT, EAST_POINT, WEST_POINT))
+
+      assertThat(findWithinBounds(Bounds(Coordinate(-10.0, 170.0), Coordinate(10.0, -170.0))))
+        .containsExactly(EAST_POINT.id, WEST_POINT.id)
+        .inOrder()
+    }
+
+  @Test
+  fun findWithinBounds_whenBoundsCrossAntimeridian_excludesLoisOutsideBounds() =
+    runWithTestDispatcher {
+      locationOfInterestDao.upsertAll(listOf(ORIGIN_POINT, EAST_POINT, WEST_POINT))
+
+      assertThat(findWithinBounds(Bounds(Coordinate(-10.0, 179.5), Coordinate(10.0, -179.5))))
+        .isEmpty()
+    }
+
+  @Test
+  fun findWithinBounds_excludesDeletedLois() = runWithTestDispatcher {
+    locationOfInterestDao.upsertAll(listOf(ORIGIN_POINT.copy(state = EntityState.DELETED)))
+
+    assertThat(findWithinBounds(Bounds(Coordinate(-1.0, -1.0), Coordinate(1.0, 1.0)))).isEmpty()
+  }
+
+  private fun findWithinBounds(bounds: Bounds): List<String> =
+    locationOfInterestDao
+      .findWithinBoundsOnceAndStream(
+        FakeData.SURVEY.id,
+        EntityState.DEFAULT,
+        bounds.south,
+        bounds.west,
+        bounds.north,
+        bounds.east
+      )
+      .blockingFirst()
+      .map { it.id }
+
+  companion object {
+    private val ORIGIN_POINT = newLoi("origin", Point(Coordinate(0.0, 0.0)))
+    private val EAST_POINT = newLoi("east", Point(Coordinate(0.0, 179.0)))
+    private val WEST_POINT = newLoi("west", Point(Coordinate(0.0, -179.0)))
+    private val SQUARE =
+      newLoi(
+        "square",
+        Polygon(
+          LinearRing(
+            listOf(
+              Coordinate(10.0, 10.0),
+              Coordinate(10.0, 20.0),
+              Coordinate(20.0, 20.0),
+              Coordinate(20.0, 10.0),
+              Coordinate(10.0, 10.0)
+            )
+          )
+        )
+      )
+
+    private fun newLoi(id: String, geometry: Geometry): LocationOfInterestEntity =
+      FakeData.LOCATION_OF_INTEREST.copy(id = id, geometry = geometry).toLocalDataStoreObject()
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.mbtiles
+
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.basemap.tile.TileSet
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.ui.map.Bounds
+import com.google.common.truth.Truth.assertThat
+import dagger.hilt.android.testing.HiltAndroidTest
+import java.io.File
+import javax.inject.Inject
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@HiltAndroidTest
+@RunWith(RobolectricTestRunner::class)
+class MbtilesFootprintParserTest : BaseHiltTest() {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  @Inject lateinit var parser: MbtilesFootprintParser
+
+  private lateinit var file: File
+
+  @Before
+  override fun setUp() {
+    super.setUp()
+    file = tempFolder.newFile("footprints.geojson").apply { writeText(FOOTPRINTS_JSON) }
+  }
+
+  @Test
+  fun allTiles_returnsAllValidFeatures() {
+    val tileSets = parser.allTiles(file).blockingGet()
+
+    assertThat(tileSets.map { it.url }).containsExactly(TILE_1_URL, TILE_2_URL, "").inOrder()
+    assertThat(tileSets.map { it.path })
+      .containsExactly("10-1-2.mbtiles", "10-3-4.mbtiles", "10-5-6.mbtiles")
+      .inOrder()
+    assertThat(tileSets.map { it.state }.toSet()).containsExactly(TileSet.State.PENDING)
+  }
+
+  @Test
+  fun intersectingTiles_returnsOnlyTilesOverlappingBounds() {
+    val bounds = Bounds(Coordinate(0.5, 0.5), Coordinate(1.5, 1.5))
+
+    val tileSets = parser.intersectingTiles(bounds, file).blockingGet()
+
+    assertThat(tileSets.map { it.url }).containsExactly(TILE_1_URL)
+    assertThat(tileSets.single().offlineAreaReferenceCount).isEqualTo(1)
+  }
+
+  @Test
+  fun intersectingTiles_whenBoundsInsideTile_returnsTile() {
+    val bounds = Bounds(Coordinate(10.4, 10.4), Coordinate(10.6, 10.6))
+
+    val tileSets = parser.intersectingTiles(bounds, file).blockingGet()
+
+    assertThat(tileSets.map { it.url }).containsExactly(TILE_2_URL)
+  }
+
+  @Test
+  fun intersectingTiles_whenBoundsCrossAntimeridian_returnsTilesOnEitherSide() {
+    val bounds = Bounds(Coordinate(-90.0, 170.0), Coordinate(90.0, 0.5))
+
+    val tileSets = parser.intersectingTiles(bounds, file).blockingGet()
+
+    assertThat(tileSets.map { it.url }).containsExactly(TILE_1_URL)
+  }
+
+  companion object {
+    private const val TILE_1_URL = "https://example.com/tile1.mbtiles"
+    private const val TILE_2_URL = "https://example.com/tile2.mbtiles"
+
+    private val FOOTPRINTS_JSON =
+      """
+      {
+        "type": "FeatureCollection",
+        "features": [
+          {
+            "type": "Feature",
+            "id": "(1, 2, 10)",
+            "geometry": {
+              "type": "Polygon",
+              "coordinates": [[[0, 0], [1, 0], [1, 1], [0, 1], [0, 0]], [[0.2, 0.2], [0.3, 0.3]]]
+            },
+            "properties": { "url": "$TILE_1_URL", "name": "ignored" }
+          },
+          {
+            "type": "Feature",
+            "id": "(3, 4, 10)",
+            "geometry": {
+              "type": "Polygon",
+              "coordinates": [[[10, 10], [11, 10], [11, 11], [10, 11], [10, 10]]]
+            },
+            "properties": { "url": "$TILE_2_URL" }
+          },
+          "not a feature",
+          { "type": "Feature", "id": "(5, 6, 10)", "geometry": null }
+        ]
+      }
+      """
+        .trimIndent()
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.remote.firebase
+
+import com.google.android.ground.persistence.remote.firebase.FirebaseStorageManager.Companion.isSessionExpired
+import com.google.common.truth.Truth.assertThat
+import com.google.firebase.storage.StorageException
+import java.io.IOException
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class FirebaseStorageManagerTest {
+  @Test
+  fun isSessionExpired_whenSessionNotFoundOrGone_returnsTrue() {
+    assertThat(isSessionExpired(StorageException.fromExceptionAndHttpCode(null, 404))).isTrue()
+    assertThat(isSessionExpired(StorageException.fromExceptionAndHttpCode(null, 410))).isTrue()
+  }
+
+  @Test
+  fun isSessionExpired_whenPermissionDenied_returnsFalse() {
+    assertThat(isSessionExpired(StorageException.fromExceptionAndHttpCode(null, 403))).isFalse()
+  }
+
+  @Test
+  fun isSessionExpired_whenNotStorageError_returnsFalse() {
+    assertThat(isSessionExpired(IOException())).isFalse()
+  }
+}
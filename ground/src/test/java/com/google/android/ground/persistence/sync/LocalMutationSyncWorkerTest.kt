@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.sync
+
+import com.google.android.ground.model.mutation.Mutation
+import com.google.android.ground.persistence.sync.LocalMutationSyncWorker.Companion.packBatches
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.FakeData
+import java.util.Date
+import org.junit.Test
+
+class LocalMutationSyncWorkerTest {
+
+  @Test
+  fun packBatches_whenEmpty_returnsNothing() {
+    assertThat(packBatches(listOf())).isEmpty()
+  }
+
+  @Test
+  fun packBatches_packsMutationsForDifferentLoisIntoSameBatch() {
+    val mutations = listOf(mutation("1"), mutation("2"), mutation("3"))
+
+    assertThat(packBatches(mutations, maxBatchSize = 3)).containsExactly(listOf(mutations))
+  }
+
+  @Test
+  fun packBatches_keepsMutationsForSameLoiTogether() {
+    val loi1 = listOf(mutation("1"), mutation("1"))
+    val loi2 = listOf(mutation("2"), mutation("2"))
+    val loi3 = listOf(mutation("3"))
+
+    assertThat(packBatches(loi1 + loi2 + loi3, maxBatchSize = 3))
+      .containsExactly(listOf(loi1), listOf(loi2 + loi3))
+  }
+
+  @Test
+  fun packBatches_groupsMutationsForSameLoiInOriginalOrder() {
+    val first = mutation("1", clientTimestamp = 1)
+    val second = mutation("1", clientTimestamp = 2)
+    val mutations = listOf(first, mutation("2"), second)
+
+    val batch = packBatches(mutations, maxBatchSize = 3).single().single()
+
+    assertThat(batch).containsExactly(first, second, mutation("2")).inOrder()
+  }
+
+  @Test
+  fun packBatches_whenLoiExceedsBatchSize_splitsIntoSequence() {
+    val loi1 = (1L..5L).map { mutation("1", clientTimestamp = it) }
+    val loi2 = listOf(mutation("2"))
+
+    assertThat(packBatches(loi1 + loi2, maxBatchSize = 2))
+      .containsExactly(
+        listOf(loi1.subList(0, 2), loi1.subList(2, 4), loi1.subList(4, 5)),
+        listOf(loi2)
+      )
+  }
+
+  companion object {
+    private fun mutation(loiId: String, clientTimestamp: Long = 0): Mutation =
+      FakeData.LOCATION_OF_INTEREST.copy(id = loiId)
+        .toMutation(Mutation.Type.UPDATE, FakeData.USER.id)
+        .copy(clientTimestamp = Date(clientTimestamp))
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.persistence.sync
+
+import android.content.Context
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import androidx.work.ListenableWorker.Result
+import androidx.work.WorkerFactory
+import androidx.work.WorkerParameters
+import androidx.work.testing.SynchronousExecutor
+import androidx.work.testing.TestWorkerBuilder
+import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.persistence.local.LocalValueStore
+import com.google.common.truth.Truth.assertThat
+import com.sharedtest.persistence.remote.FakeRemoteStorageManager
+import dagger.hilt.android.testing.HiltAndroidTest
+import io.reactivex.Completable
+import java.io.File
+import java.io.IOException
+import javax.inject.Inject
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@HiltAndroidTest
+@RunWith(RobolectricTestRunner::class)
+class PhotoSyncWorkerTest : BaseHiltTest() {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  @Inject lateinit var fakeRemoteStorageManager: FakeRemoteStorageManager
+  @Inject lateinit var localValueStore: LocalValueStore
+
+  private lateinit var context: Context
+  private lateinit var photo: File
+
+  private val factory =
+    object : WorkerFactory() {
+      override fun createWorker(
+        appContext: Context,
+        workerClassName: String,
+        workerParameters: WorkerParameters
+      ) = PhotoSyncWorker(appContext, workerParameters, fakeRemoteStorageManager, localValueStore)
+    }
+
+  @Before
+  override fun setUp() {
+    super.setUp()
+    context = ApplicationProvider.getApplicationContext()
+    photo = tempFolder.newFile("photo.jpg")
+  }
+
+  @Test
+  fun doWork_whenUploadStarts_savesSessionUri() {
+    fakeRemoteStorageManager.uploadSessionUri = SESSION_URI
+    fakeRemoteStorageManager.uploadResult = Completable.error(IOException())
+
+    assertThat(doWork()).isEqualTo(Result.retry())
+    assertThat(localValueStore.getUploadSessionUri(REMOTE_PATH)).isEqualTo(SESSION_URI.toString())
+  }
+
+  @Test
+  fun doWork_onRetry_resumesSavedSession() {
+    fakeRemoteStorageManager.uploadSessionUri = SESSION_URI
+    fakeRemoteStorageManager.uploadResult = Completable.error(IOException())
+    doWork()
+
+    fakeRemoteStorageManager.uploadResult = Completable.complete()
+
+    assertThat(doWork()).isEqualTo(Result.success())
+    assertThat(fakeRemoteStorageManager.resumedSessionUris)
+      .containsExactly(null, SESSION_URI)
+      .inOrder()
+  }
+
+  @Test
+  fun doWork_onSuccess_clearsSessionUri() {
+    localValueStore.setUploadSessionUri(REMOTE_PATH, SESSION_URI.toString())
+    fakeRemoteStorageManager.uploadResult = Completable.complete()
+
+    assertThat(doWork()).isEqualTo(Result.success())
+    assertThat(localValueStore.getUploadSessionUri(REMOTE_PATH)).isNull()
+  }
+
+  @Test
+  fun doWork_withoutSavedSession_startsNewUpload() {
+    fakeRemoteStorageManager.uploadResult = Completable.complete()
+
+    assertThat(doWork()).isEqualTo(Result.success())
+    assertThat(fakeRemoteStorageManager.resumedSessionUris).containsExactly(null)
+  }
+
+  private fun doWork(): Result =
+    TestWorkerBuilder<PhotoSyncWorker>(
+        context,
+        SynchronousExecutor(),
+        inputData = PhotoSyncWorker.createInputData(photo.absolutePath, REMOTE_PATH),
+      )
+      .setWorkerFactory(factory)
+      .build()
+      .doWork()
+
+  companion object {
+    private const val REMOTE_PATH = "user-media/surveys/survey/submissions/photo.jpg"
+    private val SESSION_URI = Uri.parse("https://storage.example.com/upload?upload_id=session")
+  }
+}
@@ -27,10 +27,16 @@ import androidx.work.testing.TestWorkerBuilder
 import com.google.android.ground.BaseHiltTest
 import com.google.android.ground.model.basemap.tile.TileSet
 import com.google.android.ground.persistence.local.stores.LocalTileSetStore
+import com.google.android.ground.rx.Schedulers
 import com.google.common.truth.Truth.assertThat
+import com.sharedtest.system.perf.FakePerfTracer
 import dagger.hilt.android.testing.HiltAndroidTest
+import io.reactivex.Completable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers as RxSchedulers
 import java.io.File
 import java.io.FileOutputStream
+import java.util.concurrent.atomic.AtomicInteger
 import javax.inject.Inject
 import org.junit.Before
 import org.junit.Test
@@ -43,6 +49,8 @@ import org.robolectric.RobolectricTestRunner
 @RunWith(RobolectricTestRunner::class)
 class TileSetDownloadWorkerTest : BaseHiltTest() {
   @Inject lateinit var localTileSetStore: LocalTileSetStore
+  @Inject lateinit var schedulers: Schedulers
+  @Inject lateinit var perfTracer: FakePerfTracer
   private lateinit var context: Context
   @Mock private lateinit var mockContext: Context
 
@@ -52,7 +60,14 @@ class TileSetDownloadWorkerTest : BaseHiltTest() {
         appContext: Context,
         workerClassName: String,
         workerParameters: WorkerParameters
-      ): ListenableWorker = TileSetDownloadWorker(appContext, workerParameters, localTileSetStore)
+      ): ListenableWorker =
+        TileSetDownloadWorker(
+          appContext,
+          workerParameters,
+          localTileSetStore,
+          schedulers,
+          perfTracer
+        )
     }
 
   @Before
@@ -121,6 +136,33 @@ class TileSetDownloadWorkerTest : BaseHiltTest() {
     File("fake").delete()
   }
 
+  @Test
+  fun doWork_MarksTileSetFailedOnError() {
+    `when`(mockContext.openFileOutput("TILESET", Context.MODE_PRIVATE))
+      .thenReturn(FileOutputStream("fake").apply { close() })
+    val tiles =
+      TileSet(
+        url = "http://google.com",
+        id = "TILESET",
+        path = "TILESET",
+        state = TileSet.State.PENDING,
+        offlineAreaReferenceCount = 1
+      )
+    localTileSetStore.insertOrUpdateTileSet(tiles).blockingAwait()
+    val worker =
+      TestWorkerBuilder<TileSetDownloadWorker>(mockContext, SynchronousExecutor())
+        .setWorkerFactory(factory)
+        .build()
+
+    worker.doWork()
+
+    localTileSetStore
+      .getTileSet("http://google.com")
+      .test()
+      .assertValue(tiles.copy(state = TileSet.State.FAILED))
+    File("fake").delete()
+  }
+
   @Test
   fun doWork_FailsOnInvalidURL() {
     val tiles =
@@ -141,4 +183,108 @@ class TileSetDownloadWorkerTest : BaseHiltTest() {
     val result = worker.doWork()
     assertThat(result).isEqualTo(Result.failure())
   }
+
+  @Test
+  fun doWork_StopsDownloadTraceOnFailure() {
+    val tiles =
+      TileSet(
+        url = "BAD URL",
+        id = "TILESET",
+        path = "TILESET",
+        state = TileSet.State.PENDING,
+        offlineAreaReferenceCount = 1
+      )
+    localTileSetStore.insertOrUpdateTileSet(tiles).blockingAwait()
+    val worker =
+      TestWorkerBuilder<TileSetDownloadWorker>(context, SynchronousExecutor())
+        .setWorkerFactory(factory)
+        .build()
+
+    worker.doWork()
+
+    assertThat(perfTracer.completedTraces("tile_set_download")).hasSize(1)
+    assertThat(perfTracer.startedTraces.all { it.isStopped }).isTrue()
+  }
+
+  @Test
+  fun doWork_LimitsParallelDownloadsToInputData() {
+    val store = ConcurrencyTrackingTileSetStore(localTileSetStore)
+    (1..6).forEach {
+      localTileSetStore
+        .insertOrUpdateTileSet(
+          TileSet(
+            // Nothing listens on port 1, so each download fails once its connection is refused.
+            url = "http://127.0.0.1:1/tileset$it",
+            id = "TILESET$it",
+            path = "TILESET$it",
+            state = TileSet.State.PENDING,
+            offlineAreaReferenceCount = 1
+          )
+        )
+        .blockingAwait()
+    }
+    val worker =
+      TestWorkerBuilder<TileSetDownloadWorker>(context, SynchronousExecutor())
+        .setInputData(TileSetDownloadWorker.createInputData(2))
+        .setWorkerFactory(
+          object : WorkerFactory() {
+            override fun createWorker(
+              appContext: Context,
+              workerClassName: String,
+              workerParameters: WorkerParameters
+            ): ListenableWorker =
+              TileSetDownloadWorker(
+                appContext,
+                workerParameters,
+                store,
+                IoSchedulers,
+                perfTracer
+              )
+          }
+        )
+        .build()
+
+    assertThat(worker.doWork()).isEqualTo(Result.retry())
+    assertThat(store.maxDownloadsInProgress).isEqualTo(2)
+  }
+
+  /** Runs downloads on a real thread pool, so that they can overlap. */
+  private object IoSchedulers : Schedulers {
+    override fun io(): Scheduler = RxSchedulers.io()
+
+    override fun ui(): Scheduler = RxSchedulers.trampoline()
+  }
+
+  /**
+   * Records the maximum number of tile sets marked in progress but not yet finished. Holds each
+   * download open briefly once started, so that downloads allowed to run in parallel overlap.
+   */
+  private class ConcurrencyTrackingTileSetStore(private val delegate: LocalTileSetStore) :
+    LocalTileSetStore by delegate {
+    private val downloadsInProgress = AtomicInteger()
+    private val maxInProgress = AtomicInteger()
+
+    val maxDownloadsInProgress: Int
+      get() = maxInProgress.get()
+
+    override fun updateDownloadProgress(tileSet: TileSet): Completable =
+      when (tileSet.state) {
+        TileSet.State.IN_PROGRESS ->
+          Completable.fromAction {
+              maxInProgress.accumulateAndGet(downloadsInProgress.incrementAndGet(), ::maxOf)
+              Thread.sleep(DOWNLOAD_HOLD_MILLIS)
+            }
+            .andThen(delegate.updateDownloadProgress(tileSet))
+        TileSet.State.FAILED,
+        TileSet.State.DOWNLOADED ->
+          delegate.updateDownloadProgress(tileSet).doOnComplete {
+            downloadsInProgress.decrementAndGet()
+          }
+        else -> delegate.updateDownloadProgress(tileSet)
+      }
+  }
+
+  companion object {
+    private const val DOWNLOAD_HOLD_MILLIS = 200L
+  }
 }
@@ -17,18 +17,23 @@ package com.google.android.ground.repository
 
 import com.google.android.ground.BaseHiltTest
 import com.google.android.ground.domain.usecases.survey.ActivateSurveyUseCase
+import com.google.android.ground.model.AuditInfo
 import com.google.android.ground.model.geometry.*
 import com.google.android.ground.model.mutation.Mutation.Type.CREATE
+import com.google.android.ground.persistence.remote.NotFoundException
 import com.google.android.ground.persistence.sync.MutationSyncWorkManager
 import com.google.android.ground.ui.map.Bounds
+import com.google.common.truth.Truth.assertThat
 import com.sharedtest.FakeData
 import com.sharedtest.persistence.remote.FakeRemoteDataStore
 import com.sharedtest.system.auth.FakeAuthenticationManager
+import com.sharedtest.system.perf.FakePerfTracer
 import dagger.hilt.android.testing.BindValue
 import dagger.hilt.android.testing.HiltAndroidTest
 import io.reactivex.Completable
 import io.reactivex.Flowable
 import java.util.*
+import java8.util.Optional
 import javax.inject.Inject
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.rx2.await
@@ -52,6 +57,7 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
   @Inject lateinit var locationOfInterestRepository: LocationOfInterestRepository
   @Inject lateinit var userRepository: UserRepository
   @Inject lateinit var activateSurvey: ActivateSurveyUseCase
+  @Inject lateinit var perfTracer: FakePerfTracer
 
   private val mutation = LOCATION_OF_INTEREST.toMutation(CREATE, TEST_USER.id)
 
@@ -72,7 +78,7 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
   }
 
   private fun mockEnqueueSyncWorker() {
-    `when`(mockWorkManager.enqueueSyncWorker(anyString())).thenReturn(Completable.complete())
+    `when`(mockWorkManager.enqueueSyncWorker()).thenReturn(Completable.complete())
   }
 
   @Test
@@ -118,12 +124,12 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
 
     locationOfInterestRepository.applyAndEnqueue(mutation).test().assertNoErrors().assertComplete()
 
-    verify(mockWorkManager).enqueueSyncWorker(LOCATION_OF_INTEREST.id)
+    verify(mockWorkManager).enqueueSyncWorker()
   }
 
   @Test
   fun testApplyAndEnqueue_returnsErrorOnWorkerSyncFailure() {
-    `when`(mockWorkManager.enqueueSyncWorker(anyString())).thenReturn(Completable.error(Error()))
+    `when`(mockWorkManager.enqueueSyncWorker()).thenReturn(Completable.error(Error()))
 
     locationOfInterestRepository
       .applyAndEnqueue(LOCATION_OF_INTEREST.toMutation(CREATE, TEST_USER.id))
@@ -131,13 +137,55 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
       .assertError(Error::class.java)
       .assertNotComplete()
 
-    verify(mockWorkManager, times(1)).enqueueSyncWorker(LOCATION_OF_INTEREST.id)
+    verify(mockWorkManager, times(1)).enqueueSyncWorker()
   }
 
   // TODO(#1373): Add tests for new LOI sync once implemented (create, update, delete, error).
 
   // TODO(#1373): Add tests for getLocationsOfInterest once new LOI sync implemented.
 
+  @Test
+  fun testSyncLocationsOfInterest_downloadsLoisModifiedSinceLastSync() = runWithTestDispatcher {
+    val modifiedLoi = createPoint("6", COORDINATE_2).copy(lastModified = receivedAt(2000))
+    fakeRemoteDataStore.lois = TEST_LOCATIONS_OF_INTEREST + modifiedLoi
+
+    locationOfInterestRepository.syncLocationsOfInterest(TEST_SURVEY)
+
+    locationOfInterestRepository
+      .getOfflineLocationOfInterest(TEST_SURVEY.id, modifiedLoi.id)
+      .test()
+      .assertNoErrors()
+      .assertValueCount(1)
+  }
+
+  @Test
+  fun testSyncLocationsOfInterest_skipsLoisModifiedBeforeLastSync() = runWithTestDispatcher {
+    val modifiedLoi = createPoint("6", COORDINATE_2).copy(lastModified = receivedAt(2000))
+    fakeRemoteDataStore.lois = listOf(modifiedLoi)
+    locationOfInterestRepository.syncLocationsOfInterest(TEST_SURVEY)
+    val staleLoi = createPoint("7", COORDINATE_2).copy(lastModified = receivedAt(1000))
+    fakeRemoteDataStore.lois = listOf(staleLoi)
+
+    locationOfInterestRepository.syncLocationsOfInterest(TEST_SURVEY)
+
+    locationOfInterestRepository
+      .getOfflineLocationOfInterest(TEST_SURVEY.id, staleLoi.id)
+      .test()
+      .assertError(NotFoundException::class.java)
+  }
+
+  @Test
+  fun testSyncLocationsOfInterest_tracesIncrementalSync() = runWithTestDispatcher {
+    val modifiedLoi = createPoint("6", COORDINATE_2).copy(lastModified = receivedAt(2000))
+    fakeRemoteDataStore.lois = listOf(modifiedLoi)
+
+    locationOfInterestRepository.syncLocationsOfInterest(TEST_SURVEY)
+
+    val trace = perfTracer.completedTraces("loi_sync").last()
+    assertThat(trace.attributes).containsEntry("sync_type", "incremental")
+    assertThat(trace.metrics).containsEntry("lois", 1L)
+  }
+
   @Test
   fun testLoiWithinBounds_whenBoundsNotAvailable_returnsNothing() = runTest {
     locationOfInterestRepository
@@ -187,6 +235,22 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
       )
   }
 
+  @Test
+  fun testLoiWithinBounds_whenBoundsCrossAntimeridian_returnsLoisOnBothSides() =
+    runWithTestDispatcher {
+      val eastLoi = createPoint("6", Coordinate(0.0, 179.0)).copy(lastModified = receivedAt(2000))
+      val westLoi = createPoint("7", Coordinate(0.0, -179.0)).copy(lastModified = receivedAt(2000))
+      fakeRemoteDataStore.lois = TEST_LOCATIONS_OF_INTEREST + eastLoi + westLoi
+      locationOfInterestRepository.syncLocationsOfInterest(TEST_SURVEY)
+      val southwest = Coordinate(-10.0, 170.0)
+      val northeast = Coordinate(10.0, -170.0)
+
+      locationOfInterestRepository
+        .getWithinBoundsOnceAndStream(TEST_SURVEY, Flowable.just(Bounds(southwest, northeast)))
+        .test()
+        .assertValue { lois -> lois.map { it.id } == listOf(eastLoi.id, westLoi.id) }
+    }
+
   companion object {
     private val COORDINATE_1 = Coordinate(-20.0, -20.0)
     private val COORDINATE_2 = Coordinate(0.0, 0.0)
@@ -214,6 +278,9 @@ class LocationOfInterestRepositoryTest : BaseHiltTest() {
         TEST_AREA_OF_INTEREST_2
       )
 
+    private fun receivedAt(serverTimeMillis: Long) =
+      AuditInfo(TEST_USER, Date(serverTimeMillis), Optional.of(Date(serverTimeMillis)))
+
     private fun createPoint(id: String, coordinate: Coordinate) =
       LOCATION_OF_INTEREST.copy(
         id = id,
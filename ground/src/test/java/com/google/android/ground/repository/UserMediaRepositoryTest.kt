@@ -57,4 +57,22 @@ class UserMediaRepositoryTest : BaseHiltTest() {
       assertThat(localFile).isNotNull()
     }
   }
+
+  @Test
+  fun calculateInSampleSize_keepsLargerDimensionAtLeastMax() {
+    assertThat(UserMediaRepository.calculateInSampleSize(4000, 3000, 2048)).isEqualTo(1)
+    assertThat(UserMediaRepository.calculateInSampleSize(3000, 4096, 2048)).isEqualTo(2)
+    assertThat(UserMediaRepository.calculateInSampleSize(9000, 6000, 2048)).isEqualTo(4)
+  }
+
+  @Test
+  fun scaledSize_preservesAspectRatio() {
+    assertThat(UserMediaRepository.scaledSize(4000, 3000, 2048)).isEqualTo(2048 to 1536)
+    assertThat(UserMediaRepository.scaledSize(3000, 4000, 2048)).isEqualTo(1536 to 2048)
+  }
+
+  @Test
+  fun scaledSize_whenAlreadySmallEnough_returnsSameSize() {
+    assertThat(UserMediaRepository.scaledSize(800, 600, 2048)).isEqualTo(800 to 600)
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.rx
+
+import com.google.android.ground.rx.RxAssemblyTracking.AssemblyTrace
+import com.google.common.truth.Truth.assertThat
+import io.reactivex.Observable
+import io.reactivex.Single
+import io.reactivex.plugins.RxJavaPlugins
+import org.junit.After
+import org.junit.Test
+
+class RxAssemblyTrackingTest {
+
+  @After
+  fun tearDown() {
+    RxJavaPlugins.reset()
+  }
+
+  @Test
+  fun enable_whenSampled_attachesAssemblySiteToErrors() {
+    RxAssemblyTracking.enable(1.0, APP_PACKAGE)
+
+    val error = failingSingle().test().errors().single()
+
+    val trace = error.suppressed.filterIsInstance<AssemblyTrace>().single()
+    assertThat(trace.assemblySite?.methodName).isEqualTo("failingSingle")
+  }
+
+  @Test
+  fun enable_whenErrorPassesThroughManyTracedStreams_attachesSingleTrace() {
+    RxAssemblyTracking.enable(1.0, APP_PACKAGE)
+
+    val error =
+      Observable.error<Int>(RuntimeException())
+        .map { it + 1 }
+        .filter { it > 0 }
+        .flatMap { Observable.just(it) }
+        .test()
+        .errors()
+        .single()
+
+    assertThat(error.suppressed.filterIsInstance<AssemblyTrace>()).hasSize(1)
+  }
+
+  @Test
+  fun enable_whenNotSampled_leavesErrorsUnchanged() {
+    RxAssemblyTracking.enable(0.0, APP_PACKAGE)
+
+    val error = failingSingle().test().errors().single()
+
+    assertThat(error.suppressed).isEmpty()
+  }
+
+  @Test
+  fun enable_doesNotChangeEmittedValues() {
+    RxAssemblyTracking.enable(1.0, APP_PACKAGE)
+
+    Observable.range(1, 3).map { it * 2 }.test().assertValues(2, 4, 6).assertComplete()
+  }
+
+  @Test
+  fun disable_stopsTracingNewStreams() {
+    RxAssemblyTracking.enable(1.0, APP_PACKAGE)
+    RxAssemblyTracking.disable()
+
+    val error = failingSingle().test().errors().single()
+
+    assertThat(error.suppressed).isEmpty()
+  }
+
+  private fun failingSingle(): Single<Int> =
+    Single.fromCallable<Int> { throw IllegalStateException() }.map { it + 1 }
+
+  companion object {
+    private const val APP_PACKAGE = "com.google.android.ground"
+  }
+}
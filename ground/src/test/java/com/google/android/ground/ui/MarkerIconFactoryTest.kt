@@ -82,6 +82,18 @@ class MarkerIconFactoryTest : BaseHiltTest() {
     verifyBitmapScale(bitmap, scale)
   }
 
+  @Test
+  fun markerBitmap_sameZoomBucket_isCached() {
+    val bitmap = markerIconFactory.getMarkerBitmap(Color.BLUE, Config.ZOOM_LEVEL_THRESHOLD)
+
+    assertThat(markerIconFactory.getMarkerBitmap(Color.BLUE, Config.ZOOM_LEVEL_THRESHOLD + 1))
+      .isSameInstanceAs(bitmap)
+    assertThat(markerIconFactory.getMarkerBitmap(Color.BLUE, Config.ZOOM_LEVEL_THRESHOLD, true))
+      .isNotSameInstanceAs(bitmap)
+    assertThat(markerIconFactory.getMarkerBitmap(Color.RED, Config.ZOOM_LEVEL_THRESHOLD))
+      .isNotSameInstanceAs(bitmap)
+  }
+
   private fun verifyBitmapScale(bitmap: Bitmap, scale: Float) {
     val expectedWidth = (markerUnscaledWidth * scale).toInt()
     val expectedHeight = (markerUnscaledHeight * scale).toInt()
@@ -85,6 +85,12 @@ class LocationOfInterestHelperTest : BaseHiltTest() {
     assertSubtitle(null, "")
   }
 
+  @Test
+  fun testGetSubtitle_whenJobNameIsNull() {
+    val loi = FakeData.LOCATION_OF_INTEREST.copy(job = FakeData.JOB.copy(name = null))
+    assertSubtitle(loi, "")
+  }
+
   private fun assertCreatedBy(loi: LocationOfInterest?, expectedCreatedBy: String) {
     assertThat(loiHelper.getCreatedBy(Optional.ofNullable(loi))).isEqualTo(expectedCreatedBy)
   }
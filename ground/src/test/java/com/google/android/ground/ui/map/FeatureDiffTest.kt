@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map
+
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.Point
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+class FeatureDiffTest {
+
+  @Test
+  fun between_whenUnchanged_isEmpty() {
+    val renderedFeatures = mapOf("1" to FEATURE_1, "2" to FEATURE_2)
+
+    val diff = FeatureDiff.between(renderedFeatures, setOf(FEATURE_1, FEATURE_2))
+
+    assertThat(diff.isEmpty()).isTrue()
+  }
+
+  @Test
+  fun between_returnsAddedAndRemovedFeatures() {
+    val diff = FeatureDiff.between(mapOf("1" to FEATURE_1), setOf(FEATURE_2))
+
+    assertThat(diff.added).containsExactly(FEATURE_2)
+    assertThat(diff.removed).containsExactly(FEATURE_1)
+    assertThat(diff.changed).isEmpty()
+  }
+
+  @Test
+  fun between_whenGeometryChanged_returnsChangedFeature() {
+    val movedFeature = FEATURE_1.copy(geometry = Point(Coordinate(1.0, 1.0)))
+
+    val diff = FeatureDiff.between(mapOf("1" to FEATURE_1), setOf(movedFeature))
+
+    assertThat(diff.changed).containsExactly(FEATURE_1 to movedFeature)
+    assertThat(diff.added).isEmpty()
+    assertThat(diff.removed).isEmpty()
+  }
+
+  @Test
+  fun between_whenTagChanged_returnsChangedFeature() {
+    val flaggedFeature = FEATURE_1.copy(tag = FEATURE_1.tag.copy(flag = true))
+
+    val diff = FeatureDiff.between(mapOf("1" to FEATURE_1), setOf(flaggedFeature))
+
+    assertThat(diff.changed).containsExactly(FEATURE_1 to flaggedFeature)
+  }
+
+  companion object {
+    private val FEATURE_1 =
+      Feature(
+        id = "1",
+        type = FeatureType.LOCATION_OF_INTEREST.ordinal,
+        geometry = Point(Coordinate(0.0, 0.0))
+      )
+    private val FEATURE_2 =
+      Feature(
+        id = "2",
+        type = FeatureType.LOCATION_OF_INTEREST.ordinal,
+        geometry = Point(Coordinate(2.0, 2.0))
+      )
+  }
+}
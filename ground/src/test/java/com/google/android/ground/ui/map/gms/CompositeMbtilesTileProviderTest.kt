@@ -0,0 +1,163 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map.gms
+
+import com.google.android.gms.maps.model.TileProvider
+import com.google.android.ground.model.geometry.Envelope
+import com.google.common.truth.Truth.assertThat
+import java.io.File
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class CompositeMbtilesTileProviderTest {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  /** Providers created for each file, in order of creation. */
+  private val providers = mutableListOf<Pair<File, MbtilesTileProvider>>()
+
+  /** The tile cache size of each provider, in order of creation. */
+  private val tileCacheSizes = mutableListOf<Int>()
+
+  @Test
+  fun tileEnvelope_atZoomZero_coversWorld() {
+    val envelope = CompositeMbtilesTileProvider.tileEnvelope(0, 0, 0)
+
+    assertThat(envelope.minLng).isEqualTo(-180.0)
+    assertThat(envelope.maxLng).isEqualTo(180.0)
+    assertThat(envelope.minLat).isWithin(TOLERANCE).of(-MAX_LAT)
+    assertThat(envelope.maxLat).isWithin(TOLERANCE).of(MAX_LAT)
+  }
+
+  @Test
+  fun tileEnvelope_numbersRowsFromTop() {
+    val envelope = CompositeMbtilesTileProvider.tileEnvelope(1, 0, 1)
+
+    assertThat(envelope).isEqualTo(Envelope(0.0, 0.0, envelope.maxLat, 180.0))
+    assertThat(envelope.maxLat).isWithin(TOLERANCE).of(MAX_LAT)
+  }
+
+  @Test
+  fun tileEnvelope_adjacentTilesShareEdges() {
+    val tile = CompositeMbtilesTileProvider.tileEnvelope(300, 400, 10)
+    val east = CompositeMbtilesTileProvider.tileEnvelope(301, 400, 10)
+    val south = CompositeMbtilesTileProvider.tileEnvelope(300, 401, 10)
+
+    assertThat(east.minLng).isEqualTo(tile.maxLng)
+    assertThat(south.maxLat).isEqualTo(tile.minLat)
+  }
+
+  @Test
+  fun getTile_routesToFileCoveringTile() {
+    val northWest = writeMbtiles(newFile(), NORTH_WEST_METADATA, listOf(MbtilesTile(1, 0, 1, "nw")))
+    val southEast = writeMbtiles(newFile(), SOUTH_EAST_METADATA, listOf(MbtilesTile(1, 1, 0, "se")))
+    val provider = createProvider(listOf(northWest, southEast))
+
+    assertThat(provider.getTile(0, 0, 1)!!.data).isEqualTo("nw".toByteArray())
+    assertThat(providers.map { it.first }).containsExactly(northWest)
+    assertThat(provider.getTile(1, 1, 1)!!.data).isEqualTo("se".toByteArray())
+    assertThat(providers.map { it.first }).containsExactly(northWest, southEast).inOrder()
+  }
+
+  @Test
+  fun getTile_skipsFilesOutsideZoomRange() {
+    val file = writeMbtiles(newFile(), mapOf("minzoom" to "2"), listOf(MbtilesTile(1, 0, 1, "a")))
+    val provider = createProvider(listOf(file))
+
+    assertThat(provider.getTile(0, 0, 1)).isEqualTo(TileProvider.NO_TILE)
+    assertThat(providers).isEmpty()
+  }
+
+  @Test
+  fun getTile_whenFilesOverlap_returnsTileFromFirstFile() {
+    val first = writeMbtiles(newFile(), tiles = listOf(MbtilesTile(0, 0, 0, "first")))
+    val second = writeMbtiles(newFile(), tiles = listOf(MbtilesTile(0, 0, 0, "second")))
+    val provider = createProvider(listOf(first, second))
+
+    assertThat(provider.getTile(0, 0, 0)!!.data).isEqualTo("first".toByteArray())
+    assertThat(providers.map { it.first }).containsExactly(first)
+  }
+
+  @Test
+  fun getTile_closesLeastRecentlyUsedFile() {
+    val northWest = writeMbtiles(newFile(), NORTH_WEST_METADATA, listOf(MbtilesTile(1, 0, 1, "nw")))
+    val southEast = writeMbtiles(newFile(), SOUTH_EAST_METADATA, listOf(MbtilesTile(1, 1, 0, "se")))
+    val provider = createProvider(listOf(northWest, southEast), maxOpenFiles = 1)
+
+    provider.getTile(0, 0, 1)
+    provider.getTile(1, 1, 1)
+
+    assertThat(providers.map { it.second.isClosed }).containsExactly(true, false).inOrder()
+    // Reopens the evicted file when needed again.
+    assertThat(provider.getTile(0, 0, 1)!!.data).isEqualTo("nw".toByteArray())
+    assertThat(providers.map { it.second.isClosed }).containsExactly(true, true, false).inOrder()
+  }
+
+  @Test
+  fun getTile_splitsTileCacheBetweenOpenFiles() {
+    val northWest = writeMbtiles(newFile(), NORTH_WEST_METADATA, listOf(MbtilesTile(1, 0, 1, "nw")))
+    val southEast = writeMbtiles(newFile(), SOUTH_EAST_METADATA, listOf(MbtilesTile(1, 1, 0, "se")))
+    val provider = createProvider(listOf(northWest, southEast), maxOpenFiles = 4)
+
+    provider.getTile(0, 0, 1)
+    provider.getTile(1, 1, 1)
+
+    assertThat(tileCacheSizes)
+      .containsExactly(
+        MbtilesTileProvider.TILE_CACHE_SIZE_BYTES / 4,
+        MbtilesTileProvider.TILE_CACHE_SIZE_BYTES / 4
+      )
+  }
+
+  @Test
+  fun close_closesOpenFiles() {
+    val northWest = writeMbtiles(newFile(), NORTH_WEST_METADATA, listOf(MbtilesTile(1, 0, 1, "nw")))
+    val southEast = writeMbtiles(newFile(), SOUTH_EAST_METADATA, listOf(MbtilesTile(1, 1, 0, "se")))
+    val provider = createProvider(listOf(northWest, southEast))
+    provider.getTile(0, 0, 1)
+    provider.getTile(1, 1, 1)
+
+    provider.close()
+
+    assertThat(providers.map { it.second.isClosed }).containsExactly(true, true)
+    assertThat(provider.getTile(0, 0, 1)).isEqualTo(TileProvider.NO_TILE)
+    assertThat(providers).hasSize(2)
+  }
+
+  private fun createProvider(files: List<File>, maxOpenFiles: Int = 2) =
+    CompositeMbtilesTileProvider(files, maxOpenFiles) { file, tileCacheSizeBytes ->
+      tileCacheSizes.add(tileCacheSizeBytes)
+      MbtilesTileProvider(file, tileCacheSizeBytes) { readTileDataAsText(it) }
+        .also { providers.add(file to it) }
+    }
+
+  private fun newFile() = tempFolder.newFile().also { it.delete() }
+
+  companion object {
+    /** Covers tile (0, 0) at zoom 1, and none of the other tiles at that zoom level. */
+    private val NORTH_WEST_METADATA = mapOf("bounds" to "-170,10,-10,80")
+
+    /** Covers tile (1, 1) at zoom 1, and none of the other tiles at that zoom level. */
+    private val SOUTH_EAST_METADATA = mapOf("bounds" to "10,-80,170,-10")
+
+    /** Latitude at which the Web Mercator projection is cut off. */
+    private const val MAX_LAT = 85.0511287798
+    private const val TOLERANCE = 1e-9
+  }
+}
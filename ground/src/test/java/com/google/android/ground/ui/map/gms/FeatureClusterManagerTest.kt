@@ -19,6 +19,10 @@ import android.os.Looper.getMainLooper
 import androidx.test.core.app.ApplicationProvider
 import com.google.android.gms.maps.GoogleMap
 import com.google.android.ground.BaseHiltTest
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.model.geometry.Point
+import com.google.android.ground.ui.map.Feature
+import com.google.android.ground.ui.map.FeatureType
 import com.google.common.truth.Truth.assertThat
 import com.sharedtest.FakeData
 import dagger.hilt.android.testing.HiltAndroidTest
@@ -68,4 +72,73 @@ class FeatureClusterManagerTest : BaseHiltTest() {
     )
     assertThat(featureClusterManager.algorithm.items).isEmpty()
   }
+
+  @Test
+  fun addOrUpdateLocationOfInterest_updatesExistingLOI() {
+    val feature = FakeData.LOCATION_OF_INTEREST_FEATURE
+    val flaggedFeature = feature.copy(tag = feature.tag.copy(flag = true))
+
+    featureClusterManager.addOrUpdateLocationOfInterestFeature(feature)
+    featureClusterManager.addOrUpdateLocationOfInterestFeature(flaggedFeature)
+
+    assertThat(featureClusterManager.algorithm.items)
+      .containsExactly(FeatureClusterItem(flaggedFeature))
+  }
+
+  @Test
+  fun addOrUpdateLocationOfInterestFeatures_whenReAdded_keepsOneItemPerFeature() {
+    val features = pointFeatures(FEATURE_COUNT)
+    val movedFeatures =
+      features.take(FEATURE_COUNT / 2).map { it.copy(geometry = Point(Coordinate(-1.0, -1.0))) }
+
+    featureClusterManager.addOrUpdateLocationOfInterestFeatures(features)
+    featureClusterManager.addOrUpdateLocationOfInterestFeatures(features)
+    featureClusterManager.addOrUpdateLocationOfInterestFeatures(movedFeatures)
+    features.forEach { featureClusterManager.addOrUpdateLocationOfInterestFeature(it) }
+
+    assertThat(featureClusterManager.algorithm.items).hasSize(FEATURE_COUNT)
+    assertManagedFeaturesMatchAlgorithm()
+  }
+
+  @Test
+  fun removeStaleFeatures_removesItemsFromIndexAndAlgorithm() {
+    val features = pointFeatures(FEATURE_COUNT)
+    featureClusterManager.addOrUpdateLocationOfInterestFeatures(features)
+
+    featureClusterManager.removeStaleFeatures(features.take(FEATURE_COUNT / 2).toSet())
+
+    assertThat(featureClusterManager.algorithm.items).hasSize(FEATURE_COUNT / 2)
+    assertManagedFeaturesMatchAlgorithm()
+  }
+
+  @Test
+  fun removeFeatures_removesItemsFromIndexAndAlgorithm() {
+    val features = pointFeatures(FEATURE_COUNT)
+    featureClusterManager.addOrUpdateLocationOfInterestFeatures(features)
+
+    featureClusterManager.removeFeatures(setOf("id_0", "id_1", "missing"))
+
+    assertThat(featureClusterManager.algorithm.items).hasSize(FEATURE_COUNT - 2)
+    assertManagedFeaturesMatchAlgorithm()
+  }
+
+  /** Asserts that the features indexed by id are exactly those held by the algorithm. */
+  private fun assertManagedFeaturesMatchAlgorithm() {
+    assertThat(featureClusterManager.getManagedFeatures())
+      .containsExactlyElementsIn(featureClusterManager.algorithm.items.map { it.feature })
+  }
+
+  /** Returns [count] point features spread across a grid. */
+  private fun pointFeatures(count: Int): List<Feature> =
+    (0 until count).map {
+      Feature(
+        id = "id_$it",
+        type = FeatureType.LOCATION_OF_INTEREST.ordinal,
+        geometry = Point(Coordinate(it / 10 * 0.01, it % 10 * 0.01))
+      )
+    }
+
+  companion object {
+    private const val FEATURE_COUNT = 100
+  }
 }
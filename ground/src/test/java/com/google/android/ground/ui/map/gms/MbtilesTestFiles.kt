@@ -0,0 +1,55 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map.gms
+
+import android.database.sqlite.SQLiteDatabase
+import android.database.sqlite.SQLiteStatement
+import java.io.File
+
+/** A tile in an MBTiles file. As in the file, rows are numbered from the bottom (TMS). */
+internal data class MbtilesTile(val zoom: Int, val column: Int, val tmsRow: Int, val data: String)
+
+/** Writes an MBTiles file with the specified metadata and tiles, and returns it. */
+internal fun writeMbtiles(
+  file: File,
+  metadata: Map<String, String> = mapOf(),
+  tiles: List<MbtilesTile> = listOf()
+): File {
+  SQLiteDatabase.openOrCreateDatabase(file, null).use { db ->
+    db.execSQL("CREATE TABLE metadata (name TEXT, value TEXT)")
+    db.execSQL(
+      "CREATE TABLE tiles " +
+        "(zoom_level INTEGER, tile_column INTEGER, tile_row INTEGER, tile_data BLOB)"
+    )
+    metadata.forEach { (name, value) ->
+      db.execSQL("INSERT INTO metadata VALUES (?, ?)", arrayOf(name, value))
+    }
+    tiles.forEach {
+      db.execSQL(
+        "INSERT INTO tiles VALUES (?, ?, ?, ?)",
+        arrayOf(it.zoom, it.column, it.tmsRow, it.data.toByteArray())
+      )
+    }
+  }
+  return file
+}
+
+/**
+ * Reads the tile data selected by [statement] as text. Robolectric's SQLite can't read blobs
+ * through file descriptors, so tests use text tile data and read it with a string query instead.
+ */
+internal fun readTileDataAsText(statement: SQLiteStatement): ByteArray? =
+  statement.simpleQueryForString()?.toByteArray()
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map.gms
+
+import android.database.sqlite.SQLiteStatement
+import com.google.android.gms.maps.model.TileProvider
+import com.google.common.truth.Truth.assertThat
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import org.junit.Assert.assertThrows
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class MbtilesTileProviderTest {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  private val readCount = AtomicInteger()
+
+  /** Statements used to read tiles, keyed by the id of the reading thread. */
+  private val statementsByThread = ConcurrentHashMap<Long, MutableSet<SQLiteStatement>>()
+
+  @Test
+  fun constructor_doesNotOpenFile() {
+    val file = File(tempFolder.root, "missing.mbtiles")
+
+    createProvider(file)
+
+    assertThat(file.exists()).isFalse()
+  }
+
+  @Test
+  fun getTile_numbersRowsFromTop() {
+    // Row 2 of 4 from the bottom at zoom 2 is row 1 from the top.
+    val file = writeMbtiles(newFile(), tiles = listOf(MbtilesTile(2, 1, 2, "a")))
+    val provider = createProvider(file)
+
+    assertThat(provider.getTile(1, 1, 2)!!.data).isEqualTo("a".toByteArray())
+    assertThat(provider.getTile(1, 2, 2)).isEqualTo(TileProvider.NO_TILE)
+  }
+
+  @Test
+  fun getTile_outsideZoomRange_returnsNoTileWithoutReading() {
+    val metadata = mapOf("minzoom" to "2", "maxzoom" to "3")
+    val provider = createProvider(writeMbtiles(newFile(), metadata, listOf(TILE)))
+
+    assertThat(provider.getTile(0, 0, 1)).isEqualTo(TileProvider.NO_TILE)
+    assertThat(provider.getTile(0, 0, 4)).isEqualTo(TileProvider.NO_TILE)
+    assertThat(readCount.get()).isEqualTo(0)
+  }
+
+  @Test
+  fun getTile_cachesServedTiles() {
+    val provider = createProvider(writeMbtiles(newFile(), tiles = listOf(TILE)))
+
+    val tile = provider.getTile(0, 0, 0)
+
+    assertThat(provider.getTile(0, 0, 0)).isSameInstanceAs(tile)
+    assertThat(readCount.get()).isEqualTo(1)
+  }
+
+  @Test
+  fun getTile_whenCacheFull_evictsLeastRecentlyServedTile() {
+    val tiles = listOf(MbtilesTile(1, 0, 0, "a"), MbtilesTile(1, 1, 0, "b"))
+    // Room for one of the single byte tiles.
+    val provider = createProvider(writeMbtiles(newFile(), tiles = tiles), tileCacheSizeBytes = 1)
+
+    provider.getTile(0, 1, 1)
+    provider.getTile(1, 1, 1)
+    provider.getTile(1, 1, 1)
+    provider.getTile(0, 1, 1)
+
+    assertThat(readCount.get()).isEqualTo(3)
+  }
+
+  @Test
+  fun getTile_remembersMissingTiles() {
+    val provider = createProvider(writeMbtiles(newFile(), tiles = listOf(TILE)))
+
+    provider.getTile(1, 1, 1)
+
+    assertThat(provider.getTile(1, 1, 1)).isEqualTo(TileProvider.NO_TILE)
+    assertThat(readCount.get()).isEqualTo(1)
+  }
+
+  @Test
+  fun getTile_reusesOneStatementPerThread() {
+    val provider = createProvider(writeMbtiles(newFile(), tiles = listOf(TILE)))
+    val executor = Executors.newSingleThreadExecutor()
+
+    provider.getTile(0, 0, 1)
+    provider.getTile(1, 0, 1)
+    executor.submit { provider.getTile(0, 1, 1) }.get()
+    executor.submit { provider.getTile(1, 1, 1) }.get()
+    executor.shutdown()
+
+    assertThat(readCount.get()).isEqualTo(4)
+    assertThat(statementsByThread).hasSize(2)
+    assertThat(statementsByThread.values.map { it.size }).containsExactly(1, 1)
+    assertThat(statementsByThread.values.flatten().toSet()).hasSize(2)
+  }
+
+  @Test
+  fun close_whileReading_releasesAllConnections() {
+    val provider = createProvider(writeMbtiles(newFile(), tiles = listOf(TILE)))
+    val executor = Executors.newFixedThreadPool(THREAD_COUNT)
+    val started = CountDownLatch(THREAD_COUNT)
+
+    val reads =
+      (0 until THREAD_COUNT).map { thread ->
+        executor.submit {
+          started.countDown()
+          // Each coordinate is missing from the file, so every request is read from the file.
+          repeat(REQUESTS_PER_THREAD) { provider.getTile(it, thread, ZOOM) }
+        }
+      }
+    started.await()
+    provider.close()
+    // Fails if any request threw rather than returning a result.
+    reads.forEach { it.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) }
+    executor.shutdown()
+
+    assertThat(provider.getTile(0, 0, 0)).isEqualTo(TileProvider.NO_TILE)
+    statementsByThread.values.flatten().forEach {
+      assertThrows(IllegalStateException::class.java) { it.simpleQueryForString() }
+    }
+  }
+
+  private fun createProvider(file: File, tileCacheSizeBytes: Int = TILE_CACHE_SIZE_BYTES) =
+    MbtilesTileProvider(file, tileCacheSizeBytes) { statement ->
+      readCount.incrementAndGet()
+      statementsByThread
+        .computeIfAbsent(Thread.currentThread().id) { ConcurrentHashMap.newKeySet() }
+        .add(statement)
+      readTileDataAsText(statement)
+    }
+
+  private fun newFile() = File(tempFolder.root, "tiles.mbtiles")
+
+  companion object {
+    private val TILE = MbtilesTile(0, 0, 0, "tile")
+    private const val TILE_CACHE_SIZE_BYTES = 1024
+    private const val THREAD_COUNT = 4
+    private const val REQUESTS_PER_THREAD = 1_000
+    private const val ZOOM = 20
+    private const val TIMEOUT_SECONDS = 30L
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.ui.map.gms
+
+import com.google.android.gms.maps.model.TileProvider
+import com.google.android.ground.model.geometry.Coordinate
+import com.google.android.ground.ui.map.Bounds
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okio.Buffer
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@RunWith(RobolectricTestRunner::class)
+class WebTileProviderTest {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  private val server = MockWebServer()
+  private lateinit var cache: WebTileCache
+
+  @Before
+  fun setUp() {
+    server.start()
+    cache = WebTileCache(tempFolder.newFolder(), MAX_CACHE_BYTES)
+  }
+
+  @After
+  fun tearDown() {
+    server.shutdown()
+  }
+
+  @Test
+  fun getTile_whenFresh_returnsCachedTile() {
+    server.enqueue(tileResponse(TILE_DATA))
+    val provider = createProvider()
+
+    provider.getTile(1, 2, 3)
+    val tile = provider.getTile(1, 2, 3)
+
+    assertThat(tile!!.data).isEqualTo(TILE_DATA)
+    assertThat(server.requestCount).isEqualTo(1)
+    assertThat(server.takeRequest().path).isEqualTo("/3/1/2")
+  }
+
+  @Test
+  fun getTile_whenStale_revalidatesWithValidators() {
+    server.enqueue(tileResponse(TILE_DATA).setHeader("ETag", ETAG))
+    server.enqueue(MockResponse().setResponseCode(304))
+    val provider = createProvider(maxAgeMillis = 0)
+
+    provider.getTile(1, 2, 3)
+    val tile = provider.getTile(1, 2, 3)
+
+    assertThat(tile!!.data).isEqualTo(TILE_DATA)
+    server.takeRequest()
+    assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo(ETAG)
+  }
+
+  @Test
+  fun getTile_whenStaleAndChanged_returnsNewTile() {
+    val newData = byteArrayOf(4, 5, 6)
+    server.enqueue(tileResponse(TILE_DATA).setHeader("ETag", ETAG))
+    server.enqueue(tileResponse(newData))
+    val provider = createProvider(maxAgeMillis = 0)
+
+    provider.getTile(1, 2, 3)
+
+    assertThat(provider.getTile(1, 2, 3)!!.data).isEqualTo(newData)
+  }
+
+  @Test
+  fun getTile_whenOffline_returnsStaleTile() {
+    server.enqueue(tileResponse(TILE_DATA))
+    val provider = createProvider(maxAgeMillis = 0)
+    provider.getTile(1, 2, 3)
+
+    server.shutdown()
+
+    assertThat(provider.getTile(1, 2, 3)!!.data).isEqualTo(TILE_DATA)
+  }
+
+  @Test
+  fun getTile_whenOfflineAndNotCached_returnsNull() {
+    val provider = createProvider()
+
+    server.shutdown()
+
+    assertThat(provider.getTile(1, 2, 3)).isNull()
+  }
+
+  @Test
+  fun getTile_whenNotFound_returnsNoTile() {
+    server.enqueue(MockResponse().setResponseCode(404))
+
+    assertThat(createProvider().getTile(1, 2, 3)).isEqualTo(TileProvider.NO_TILE)
+  }
+
+  @Test
+  fun getTile_whenRequestedConcurrently_fetchesOnce() {
+    // Enough responses for every request, so that duplicate fetches fail rather than block.
+    repeat(THREAD_COUNT) {
+      server.enqueue(tileResponse(TILE_DATA).setHeadersDelay(200, TimeUnit.MILLISECONDS))
+    }
+    val provider = createProvider()
+    val executor = Executors.newFixedThreadPool(THREAD_COUNT)
+    val start = CountDownLatch(1)
+
+    val tiles =
+      (0 until THREAD_COUNT).map {
+        executor.submit<ByteArray?> {
+          start.await()
+          provider.getTile(1, 2, 3)?.data
+        }
+      }
+    start.countDown()
+
+    tiles.forEach { assertThat(it.get(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(TILE_DATA) }
+    executor.shutdown()
+    assertThat(server.requestCount).isEqualTo(1)
+  }
+
+  @Test
+  fun prefetch_cachesTilesAroundViewport() {
+    server.dispatcher =
+      object : Dispatcher() {
+        override fun dispatch(request: RecordedRequest) = tileResponse(TILE_DATA)
+      }
+    val provider = createProvider()
+    // Lies within tile (1, 1) at zoom 2, so the ring spans columns and rows 0 to 2.
+    val viewport = Bounds(Coordinate(10.0, -80.0), Coordinate(50.0, -10.0))
+    val ringUrls =
+      (0..2)
+        .flatMap { x -> (0..2).map { y -> x to y } }
+        .filter { it != 1 to 1 }
+        .map { (x, y) -> provider.getTileUrl(x, y, 2)!! }
+
+    provider.prefetch(viewport, 2)
+
+    val deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS)
+    while (ringUrls.any { cache.get(it) == null } && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10)
+    }
+    provider.close()
+    assertThat(ringUrls.filterNot { cache.get(it)?.data.contentEquals(TILE_DATA) }).isEmpty()
+    assertThat(server.requestCount).isEqualTo(ringUrls.size)
+  }
+
+  @Test
+  fun cache_evictsLeastRecentlyUsedTiles() {
+    val data = ByteArray(MAX_CACHE_BYTES.toInt() / 3)
+    cache.put("a", WebTileCache.Entry(data, null, null, 0))
+    cache.put("b", WebTileCache.Entry(data, null, null, 0))
+    cache.get("a")
+    cache.put("c", WebTileCache.Entry(data, null, null, 0))
+
+    assertThat(cache.get("a")).isNotNull()
+    assertThat(cache.get("b")).isNull()
+    assertThat(cache.get("c")).isNotNull()
+  }
+
+  @Test
+  fun tileCoordinates_matchTileEnvelope() {
+    val envelope = CompositeMbtilesTileProvider.tileEnvelope(300, 400, 10)
+
+    assertThat(WebTileProvider.tileX(envelope.centerLng, 10)).isEqualTo(300)
+    assertThat(WebTileProvider.tileY(envelope.centerLat, 10)).isEqualTo(400)
+  }
+
+  private fun createProvider(maxAgeMillis: Long = 60_000) =
+    WebTileProvider(server.url("/").toString() + "\${z}/\${x}/\${y}", cache, maxAgeMillis)
+
+  private fun tileResponse(data: ByteArray) = MockResponse().setBody(Buffer().write(data))
+
+  companion object {
+    private const val ETAG = "\"v1\""
+    private const val MAX_CACHE_BYTES = 1024L
+    private const val THREAD_COUNT = 4
+    private const val TIMEOUT_SECONDS = 10L
+    private val TILE_DATA = byteArrayOf(1, 2, 3)
+  }
+}
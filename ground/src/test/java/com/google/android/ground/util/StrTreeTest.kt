@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.ground.util
+
+import com.google.android.ground.model.geometry.Envelope
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+class StrTreeTest {
+
+  @Test
+  fun query_whenEmpty_returnsNothing() {
+    val tree = StrTree<Int>(listOf())
+
+    assertThat(tree.query(WORLD)).isEmpty()
+  }
+
+  @Test
+  fun query_returnsOnlyIntersectingItems() {
+    val tree = StrTree(GRID)
+
+    assertThat(tree.query(Envelope(10.5, 20.5, 11.5, 20.7)))
+      .containsExactly(cellId(10, 20), cellId(11, 20))
+  }
+
+  @Test
+  fun query_includesItemsTouchingEdges() {
+    val tree = StrTree(GRID)
+
+    assertThat(tree.query(Envelope(5.0, 5.0, 5.0, 5.0)))
+      .containsExactly(cellId(4, 4), cellId(4, 5), cellId(5, 4), cellId(5, 5))
+  }
+
+  @Test
+  fun query_whenAreaCoversAllItems_returnsAllItems() {
+    val tree = StrTree(GRID, nodeCapacity = 4)
+
+    assertThat(tree.query(WORLD)).containsExactlyElementsIn(GRID.map { it.second })
+  }
+
+  @Test
+  fun query_matchesLinearScan() {
+    val tree = StrTree(GRID, nodeCapacity = 3)
+    val area = Envelope(17.2, 3.9, 33.3, 48.1)
+
+    assertThat(tree.query(area))
+      .containsExactlyElementsIn(GRID.filter { it.first.intersects(area) }.map { it.second })
+  }
+
+  companion object {
+    private const val GRID_SIZE = 50
+
+    private val WORLD = Envelope(-90.0, -180.0, 90.0, 180.0)
+
+    /** Unit cells covering the area between (0, 0) and ([GRID_SIZE], [GRID_SIZE]). */
+    private val GRID =
+      (0 until GRID_SIZE).flatMap { lat ->
+        (0 until GRID_SIZE).map { lng ->
+          Envelope(lat.toDouble(), lng.toDouble(), lat + 1.0, lng + 1.0) to cellId(lat, lng)
+        }
+      }
+
+    private fun cellId(lat: Int, lng: Int) = lat * GRID_SIZE + lng
+  }
+}
@@ -29,6 +29,7 @@ import io.reactivex.Completable
 import io.reactivex.Flowable
 import io.reactivex.Maybe
 import io.reactivex.Single
+import java.util.Date
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -59,6 +60,11 @@ class FakeRemoteDataStore @Inject internal constructor() : RemoteDataStore {
 
   override suspend fun loadLocationsOfInterest(survey: Survey) = lois
 
+  override suspend fun loadLocationsOfInterestModifiedSince(survey: Survey, timestamp: Date) =
+    lois.filter { loi ->
+      loi.lastModified.serverTimestamp.map { !it.before(timestamp) }.orElse(false)
+    }
+
   override fun loadSubmissions(
     locationOfInterest: LocationOfInterest
   ): Single<List<Result<Submission>>> {
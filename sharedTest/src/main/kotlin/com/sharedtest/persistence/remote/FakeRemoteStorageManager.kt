@@ -23,8 +23,26 @@ import java.io.File
 import javax.inject.Inject
 
 class FakeRemoteStorageManager @Inject internal constructor() : RemoteStorageManager {
+  /** Upload session started by each upload, or `null` if uploads don't report one. */
+  var uploadSessionUri: Uri? = null
+
+  /** Result of each upload once its session has started. */
+  var uploadResult: Completable = Completable.never()
+
+  /** The session each upload was asked to resume, in the order uploads were subscribed to. */
+  val resumedSessionUris = mutableListOf<Uri?>()
+
   override fun getDownloadUrl(remoteDestinationPath: String): Single<Uri> = Single.never()
 
-  override fun uploadMediaFromFile(file: File, remoteDestinationPath: String): Completable =
-    Completable.never()
+  override fun uploadMediaFromFile(
+    file: File,
+    remoteDestinationPath: String,
+    resumeSessionUri: Uri?,
+    onSessionStarted: (Uri) -> Unit
+  ): Completable =
+    Completable.defer {
+      resumedSessionUris.add(resumeSessionUri)
+      uploadSessionUri?.let(onSessionStarted)
+      uploadResult
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sharedtest.system.perf
+
+import com.google.android.ground.system.perf.PerfTrace
+import com.google.android.ground.system.perf.PerfTracer
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/** Records traces in memory so that tests can assert against them. */
+@Singleton
+class FakePerfTracer @Inject constructor() : PerfTracer {
+
+  class FakePerfTrace(val name: String) : PerfTrace {
+    val attributes: MutableMap<String, String> = ConcurrentHashMap()
+    val metrics: MutableMap<String, Long> = ConcurrentHashMap()
+
+    @Volatile
+    var isStopped = false
+      private set
+
+    override fun putAttribute(name: String, value: String) {
+      if (!isStopped) attributes[name] = value
+    }
+
+    override fun incrementMetric(name: String, by: Long) {
+      if (!isStopped) metrics.merge(name, by) { a, b -> a + b }
+    }
+
+    override fun putMetric(name: String, value: Long) {
+      if (!isStopped) metrics[name] = value
+    }
+
+    override fun stop() {
+      isStopped = true
+    }
+  }
+
+  private val traces = CopyOnWriteArrayList<FakePerfTrace>()
+
+  /** All traces started so far, in the order in which they were started. */
+  val startedTraces: List<FakePerfTrace>
+    get() = traces.toList()
+
+  /** Returns the stopped traces with the specified name. */
+  fun completedTraces(name: String): List<FakePerfTrace> =
+    traces.filter { it.name == name && it.isStopped }
+
+  override fun startTrace(name: String): PerfTrace = FakePerfTrace(name).also { traces.add(it) }
+}